@@ -0,0 +1,113 @@
+package fr.amu.univ.miage.m1.glq.benchmark;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import fr.amu.univ.miage.m1.glq.service.store.IdMap;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.ref.Reference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Empreinte mémoire d'une table d'emprunts, entités exclues (créées avant la mesure).
+ *
+ * - CONCURRENT_HASH_MAP : ancien stockage, ConcurrentHashMap<String, Loan>
+ * - ID_MAP : IdMap (clé int, adressage ouvert)
+ *
+ * presized : les deux tables sont créées pour size entrées (taux de
+ * remplissage fixe) ; sinon elles grandissent au fil des insertions et le
+ * résultat dépend de l'endroit où size tombe dans leur cycle de croissance.
+ *
+ * Résultat secondaire bytesPerEntry : tas occupé après GC, rapporté au nombre d'emprunts.
+ * JMH additionne ce compteur sur les itérations : diviser le score par Cnt.
+ * Le temps mesuré est celui du remplissage.
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.include=EntityStoreFootprintBenchmark
+ * (jeu de 5 millions d'emprunts : -Djmh.args="-p size=5000000")
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-XX:+UseParallelGC"})
+@State(Scope.Benchmark)
+public class EntityStoreFootprintBenchmark {
+
+    public enum Store { CONCURRENT_HASH_MAP, ID_MAP }
+
+    @Param({"1000000"})
+    int size;
+
+    @Param
+    Store store;
+
+    @Param({"true", "false"})
+    boolean presized;
+
+    private final PrefixedIdGenerator loanIds = new PrefixedIdGenerator("L");
+    private Loan[] loans;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double bytesPerEntry;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        loans = new Loan[size];
+        for (int i = 0; i < size; i++) {
+            Loan loan = new Loan();
+            loan.setId(loanIds.format(i + 1));
+            loans[i] = loan;
+        }
+    }
+
+    @Benchmark
+    public int fill(Footprint footprint) {
+        long before = usedHeap();
+        Object table;
+        int count;
+        if (store == Store.ID_MAP) {
+            IdMap<Loan> map = presized ? new IdMap<>(loanIds, size) : new IdMap<>(loanIds);
+            for (Loan loan : loans) {
+                map.put(loan.getId(), loan);
+            }
+            table = map;
+            count = map.size();
+        } else {
+            Map<String, Loan> map = presized ? new ConcurrentHashMap<>(size) : new ConcurrentHashMap<>();
+            for (Loan loan : loans) {
+                map.put(loan.getId(), loan);
+            }
+            table = map;
+            count = map.size();
+        }
+        long after = usedHeap();
+        Reference.reachabilityFence(table);
+        footprint.bytesPerEntry = (after - before) / (double) size;
+        return count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,106 @@
+package fr.amu.univ.miage.m1.glq.benchmark;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Débit sur un seul livre très demandé, 32 threads.
+ *
+ * - casReserveRelease : prise / remise d'un exemplaire par CAS (Book.tryReserveCopy / releaseCopy)
+ * - lockedReserveRelease : référence, lecture-modification-écriture par getter/setter sous verrou global
+ * - checkoutReturn : createLoan + returnLoan complets, un membre par thread
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.include=HotBookBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class HotBookBenchmark {
+
+    private static final int COPIES = 16;
+
+    @State(Scope.Benchmark)
+    public static class SharedBook {
+        Book book;
+        final Object globalLock = new Object();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            book = new Book("B00001", "Hot", "Author", "978-0000000000", 2024, COPIES, "ROMAN");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedLibrary {
+        LibraryManager manager;
+        String hotBookId;
+        final AtomicInteger memberCounter = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            LibraryManager.resetInstance();
+            manager = LibraryManager.getInstance();
+            // Assez d'exemplaires pour que chaque thread puisse emprunter
+            hotBookId = manager.addBook("Hot", "Author", "978-0000000001", 2024, 64, "ROMAN");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Desk {
+        String memberId;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedLibrary library) {
+            int n = library.memberCounter.incrementAndGet();
+            memberId = library.manager.addMember("Desk", "" + n, "desk" + n + "@univ.fr", "TEACHER");
+        }
+    }
+
+    @Benchmark
+    public boolean casReserveRelease(SharedBook state) {
+        if (state.book.tryReserveCopy()) {
+            return state.book.releaseCopy();
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean lockedReserveRelease(SharedBook state) {
+        Book book = state.book;
+        synchronized (state.globalLock) {
+            if (book.getAvailableCopies() <= 0) {
+                return false;
+            }
+            book.setAvailableCopies(book.getAvailableCopies() - 1);
+        }
+        synchronized (state.globalLock) {
+            book.setAvailableCopies(book.getAvailableCopies() + 1);
+        }
+        return true;
+    }
+
+    @Benchmark
+    public String checkoutReturn(SharedLibrary library, Desk desk) {
+        String loanId = library.manager.createLoan(desk.memberId, library.hotBookId);
+        library.manager.returnLoan(loanId);
+        return loanId;
+    }
+}
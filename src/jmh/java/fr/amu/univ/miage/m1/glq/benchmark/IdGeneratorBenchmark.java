@@ -0,0 +1,52 @@
+package fr.amu.univ.miage.m1.glq.benchmark;
+
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coût de génération d'un identifiant.
+ *
+ * - stringFormat : ancienne version, "B" + String.format("%05d", counter++)
+ * - prefixed : PrefixedIdGenerator (encodage manuel)
+ * - compactValue : valeur numérique seule, sans vue texte
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.include=IdGeneratorBenchmark
+ * (ajouter -prof gc dans la ligne de commande JMH pour comparer les allocations)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private final AtomicInteger counter = new AtomicInteger(1);
+    private final PrefixedIdGenerator generator = new PrefixedIdGenerator("B");
+
+    @Benchmark
+    public String stringFormat() {
+        return "B" + String.format("%05d", counter.getAndIncrement());
+    }
+
+    @Benchmark
+    public String prefixed() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public long compactValue() {
+        return generator.nextValue();
+    }
+}
@@ -0,0 +1,81 @@
+package fr.amu.univ.miage.m1.glq.benchmark;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import fr.amu.univ.miage.m1.glq.util.DateUtils;
+import fr.amu.univ.miage.m1.glq.util.log.Level;
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Jeu de données partagé : size livres, size membres et size emprunts
+ * (un par membre), dont 10 % en retard.
+ *
+ * Logs au niveau WARN et notifications ignorées pendant les mesures,
+ * pour mesurer le code métier et non la console.
+ *
+ * Taille choisie par -p size=... (voir README) ; 5 000 000 demande
+ * plusieurs Go de tas (-jvmArgsAppend -Xmx...).
+ */
+@State(Scope.Benchmark)
+public class LibraryDataset {
+
+    static final String[] CATEGORIES = {"ROMAN", "SCIENCE", "TECHNIQUE", "HISTOIRE", "JEUNESSE"};
+    static final String[] WORDS = {"java", "histoire", "voyage", "cuisine", "algèbre", "jardin", "musique", "réseau"};
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    public LibraryManager manager;
+    public String[] bookIds;
+    public String[] isbns;
+    public String[] emails;
+    public String[] memberIds;
+
+    @Setup
+    public void load() {
+        LogManager.setLevel(Level.WARN);
+        LibraryManager.resetInstance();
+        manager = LibraryManager.getInstance();
+        manager.getNotificationDispatcher().setNotifier(batch -> { });
+
+        bookIds = new String[size];
+        isbns = new String[size];
+        emails = new String[size];
+        memberIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            isbns[i] = "978-" + (1_000_000_000L + i);
+            bookIds[i] = manager.addBook(WORDS[i % WORDS.length] + " tome " + i, "Auteur " + (i % 5000),
+                isbns[i], 1950 + i % 70, 2, CATEGORIES[i % CATEGORIES.length]);
+            emails[i] = "membre" + i + "@univ.fr";
+            memberIds[i] = manager.addMember("Prénom" + i, "Nom" + i, emails[i], i % 10 == 0 ? "TEACHER" : "STUDENT");
+        }
+
+        Date past = DateUtils.addDays(new Date(), -5);
+        for (int i = 0; i < size; i++) {
+            // Chaque membre emprunte un livre différent ; il reste un exemplaire par livre
+            String loanId = manager.createLoan(memberIds[i], bookIds[(i * 7) % size]);
+            if (i % 10 == 0) {
+                Loan loan = manager.getLoan(loanId);
+                loan.setDueDate(past);
+            }
+        }
+    }
+
+    @TearDown
+    public void close() {
+        LibraryManager.resetInstance();
+        LogManager.setLevel(Level.INFO);
+    }
+
+    int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+}
@@ -0,0 +1,112 @@
+package fr.amu.univ.miage.m1.glq.benchmark;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chemins critiques de LibraryManager sur un jeu de données de taille variable
+ * (LibraryDataset), en mono-thread et en variantes 4 threads (suffixe _mt).
+ *
+ * createLoan et returnLoan sont mesurés ensemble (checkoutReturn) : un
+ * emprunt seul épuiserait le quota du membre au bout de quelques appels.
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.include=LibraryManagerBenchmark -Djmh.args="-p size=10000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LibraryManagerBenchmark {
+
+    /**
+     * Guichet propre à chaque thread : un membre enseignant et un livre
+     * à nombreux exemplaires, pour emprunter sans conflit entre threads.
+     */
+    @State(Scope.Thread)
+    public static class Desk {
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        String memberId;
+        String bookId;
+
+        @Setup
+        public void setUp(LibraryDataset data) {
+            int n = COUNTER.incrementAndGet();
+            memberId = data.manager.addMember("Guichet", "" + n, "guichet" + n + "@univ.fr", "TEACHER");
+            bookId = data.manager.addBook("Guichet " + n, "Auteur", "GUICHET-" + n, 2024, 1000, "ROMAN");
+        }
+    }
+
+    @Benchmark
+    public String checkoutReturn(LibraryDataset data, Desk desk) {
+        String loanId = data.manager.createLoan(desk.memberId, desk.bookId);
+        data.manager.returnLoan(loanId);
+        return loanId;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String checkoutReturn_mt(LibraryDataset data, Desk desk) {
+        return checkoutReturn(data, desk);
+    }
+
+    @Benchmark
+    public List<Book> searchBooks(LibraryDataset data) {
+        return data.manager.searchBooks("tome " + data.randomIndex());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Book> searchBooks_mt(LibraryDataset data) {
+        return searchBooks(data);
+    }
+
+    @Benchmark
+    public Book getBookByIsbn(LibraryDataset data) {
+        return data.manager.getBookByIsbn(data.isbns[data.randomIndex()]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Book getBookByIsbn_mt(LibraryDataset data) {
+        return getBookByIsbn(data);
+    }
+
+    @Benchmark
+    public Member getMemberByEmail(LibraryDataset data) {
+        return data.manager.getMemberByEmail(data.emails[data.randomIndex()]);
+    }
+
+    @Benchmark
+    public List<Loan> getOverdueLoans(LibraryDataset data) {
+        return data.manager.getOverdueLoans();
+    }
+
+    @Benchmark
+    public String generateLoanReport(LibraryDataset data) {
+        return data.manager.generateLoanReport();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateLoanReport_mt(LibraryDataset data) {
+        return generateLoanReport(data);
+    }
+}
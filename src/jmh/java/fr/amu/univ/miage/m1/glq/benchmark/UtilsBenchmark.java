@@ -0,0 +1,79 @@
+package fr.amu.univ.miage.m1.glq.benchmark;
+
+import fr.amu.univ.miage.m1.glq.util.DateUtils;
+import fr.amu.univ.miage.m1.glq.util.ValidationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utilitaires DateUtils et ValidationUtils, appelés sur les chemins d'emprunt.
+ *
+ * Les variantes _mt (4 threads) montrent le coût des SimpleDateFormat
+ * statiques partagés.
+ *
+ * Lancement : mvn -Pbenchmark test-compile exec:exec -Djmh.include=UtilsBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilsBenchmark {
+
+    private final Date start = new Date(1_700_000_000_000L);
+    private final Date end = new Date(1_700_000_000_000L + 40 * DateUtils.ONE_DAY_MS);
+
+    @Benchmark
+    public int daysBetween() {
+        return DateUtils.daysBetween(start, end);
+    }
+
+    @Benchmark
+    public Date addDays() {
+        return DateUtils.addDays(start, 14);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateUtils.formatDate(start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String formatDate_mt() {
+        return DateUtils.formatDate(start);
+    }
+
+    @Benchmark
+    public boolean isWithinDays() {
+        return DateUtils.isWithinDays(end, 60);
+    }
+
+    @Benchmark
+    public boolean isValidEmail() {
+        return ValidationUtils.isValidEmail("alice.martin@univ-amu.fr");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean isValidEmail_mt() {
+        return ValidationUtils.isValidEmail("alice.martin@univ-amu.fr");
+    }
+
+    @Benchmark
+    public boolean isValidIsbn() {
+        return ValidationUtils.isValidIsbn("978-0132350884");
+    }
+}
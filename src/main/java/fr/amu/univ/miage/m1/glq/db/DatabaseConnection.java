@@ -1,57 +1,79 @@
 package fr.amu.univ.miage.m1.glq.db;
 
+import fr.amu.univ.miage.m1.glq.db.pool.ConnectionPool;
+import fr.amu.univ.miage.m1.glq.db.pool.PoolSettings;
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * Gestionnaire de connexion à la base de données.
  * 
  * ⚠️ PROBLÈMES À CORRIGER ⚠️
- * - Singleton mal implémenté (pas thread-safe)
  * - Credentials en dur dans le code
- * - Pas de pooling de connexions
  * - Gestion des exceptions pauvre
  * - Couplage fort avec H2
  * 
  * Note : Dans cette version, on utilise le stockage en mémoire dans LibraryManager.
  * Cette classe est fournie pour montrer comment NE PAS faire l'accès BDD.
+ *
+ * Les connexions viennent d'un pool borné (voir ConnectionPool, réglages
+ * library.db.pool.*) : getConnection() en emprunte une, que l'appelant
+ * doit fermer pour la rendre.
  */
 public class DatabaseConnection {
     
-    // Singleton instance (non thread-safe !)
+    private static final Logger LOG = LogManager.getLogger(DatabaseConnection.class);
+    
     private static DatabaseConnection instance;
     
     // Configuration en dur (très mauvais pour la sécurité et la flexibilité)
-    private static final String DB_URL = "jdbc:h2:mem:bibliotech;DB_CLOSE_DELAY=-1";
+    // YEAR est un mot-clé depuis H2 2.x : NON_KEYWORDS garde la colonne books.year utilisable
+    private static final String DB_URL = "jdbc:h2:mem:bibliotech;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR";
     private static final String DB_USER = "sa";
     private static final String DB_PASSWORD = "";
     
-    private Connection connection;
+    private ConnectionPool pool;
     
     // Constructeur privé
     private DatabaseConnection() {
         try {
             // Chargement du driver (obsolète avec JDBC 4.0+)
             Class.forName("org.h2.Driver");
-            this.connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+            // URL surchargeable (ex. jdbc:h2:./data/bibliotech;NON_KEYWORDS=YEAR pour garder les données)
+            String url = System.getProperty("library.db.url", DB_URL);
+            this.pool = new ConnectionPool(() -> DriverManager.getConnection(url, DB_USER, DB_PASSWORD),
+                PoolSettings.fromSystemProperties());
             initializeSchema();
         } catch (Exception e) {
             // Mauvaise gestion : avale l'exception
-            System.err.println("Erreur de connexion BDD : " + e.getMessage());
+            LOG.error("Erreur de connexion BDD : {}", e.getMessage(), e);
         }
     }
     
-    // Singleton getInstance (non thread-safe !)
-    public static DatabaseConnection getInstance() {
+    public static synchronized DatabaseConnection getInstance() {
         if (instance == null) {
             instance = new DatabaseConnection();
         }
         return instance;
     }
     
-    public Connection getConnection() {
-        return connection;
+    /**
+     * Emprunte une connexion au pool ; la fermer la rend au pool.
+     */
+    public Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Connexion BDD indisponible");
+        }
+        return pool.borrow();
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
     }
     
     /**
@@ -100,9 +122,9 @@ public class DatabaseConnection {
                 id VARCHAR(10) PRIMARY KEY,
                 member_id VARCHAR(10) NOT NULL,
                 book_id VARCHAR(10) NOT NULL,
-                loan_date DATE NOT NULL,
-                due_date DATE NOT NULL,
-                return_date DATE,
+                loan_date TIMESTAMP NOT NULL,
+                due_date TIMESTAMP NOT NULL,
+                return_date TIMESTAMP,
                 status VARCHAR(20) DEFAULT 'ACTIVE',
                 penalty_amount DECIMAL(10,2) DEFAULT 0,
                 renewal_count INT DEFAULT 0,
@@ -116,44 +138,47 @@ public class DatabaseConnection {
                 id VARCHAR(10) PRIMARY KEY,
                 member_id VARCHAR(10) NOT NULL,
                 book_id VARCHAR(10) NOT NULL,
-                reservation_date DATE NOT NULL,
-                expiry_date DATE,
+                reservation_date TIMESTAMP NOT NULL,
+                expiry_date TIMESTAMP,
                 status VARCHAR(20) DEFAULT 'PENDING',
                 queue_position INT DEFAULT 1,
                 FOREIGN KEY (member_id) REFERENCES members(id),
                 FOREIGN KEY (book_id) REFERENCES books(id)
             )
-            """
+            """,
+            // Index des recherches fréquentes : emprunts en cours d'un membre,
+            // échéances, file d'attente d'un livre
+            "CREATE INDEX IF NOT EXISTS idx_loans_member_status ON loans(member_id, status)",
+            "CREATE INDEX IF NOT EXISTS idx_loans_due_date ON loans(due_date)",
+            "CREATE INDEX IF NOT EXISTS idx_reservations_book_status ON reservations(book_id, status)",
+            "CREATE INDEX IF NOT EXISTS idx_books_isbn ON books(isbn)",
+            "CREATE INDEX IF NOT EXISTS idx_members_email ON members(email)"
         };
         
-        try {
+        try (Connection connection = pool.borrow(); Statement statement = connection.createStatement()) {
             for (String sql : createStatements) {
-                connection.createStatement().execute(sql);
+                statement.execute(sql);
             }
-            System.out.println("Schéma BDD initialisé");
+            LOG.info("Schéma BDD initialisé");
         } catch (SQLException e) {
-            System.err.println("Erreur création schéma : " + e.getMessage());
+            LOG.error("Erreur création schéma : {}", e.getMessage(), e);
         }
     }
     
     /**
-     * Ferme la connexion.
+     * Ferme le pool et ses connexions.
      * Problème : pas appelé automatiquement, risque de fuite de ressources
      */
     public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Erreur fermeture connexion : " + e.getMessage());
+        if (pool != null) {
+            pool.close();
         }
     }
     
     /**
      * Réinitialise la connexion (pour les tests).
      */
-    public static void reset() {
+    public static synchronized void reset() {
         if (instance != null) {
             instance.close();
             instance = null;
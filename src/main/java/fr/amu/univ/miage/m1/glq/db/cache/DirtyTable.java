@@ -0,0 +1,84 @@
+package fr.amu.univ.miage.m1.glq.db.cache;
+
+import fr.amu.univ.miage.m1.glq.db.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Lignes d'une table à écrire : une entrée par identifiant, quel que soit
+ * le nombre de modifications. L'entité elle-même est gardée, pas une
+ * copie : le lot écrit son état au moment du flush.
+ *
+ * Thread-safe.
+ */
+final class DirtyTable<T> {
+
+    final String name;
+    final Repository<T> repository;
+    private final Function<T, String> idOf;
+    private final Map<String, T> dirty = new ConcurrentHashMap<>();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    DirtyTable(String name, Repository<T> repository, Function<T, String> idOf) {
+        this.name = name;
+        this.repository = repository;
+        this.idOf = idOf;
+    }
+
+    /**
+     * Retourne false si la ligne était déjà en attente (modifications regroupées).
+     */
+    boolean markDirty(T entity) {
+        return dirty.put(idOf.apply(entity), entity) == null;
+    }
+
+    void markDeleted(String id) {
+        dirty.remove(id);
+        deleted.add(id);
+    }
+
+    /**
+     * Retire les lignes en attente. Une modification qui arrive pendant
+     * l'écriture remet la ligne en attente pour le flush suivant.
+     */
+    List<T> drainDirty() {
+        List<T> drained = new ArrayList<>(dirty.size());
+        for (String id : dirty.keySet()) {
+            T entity = dirty.remove(id);
+            if (entity != null) {
+                drained.add(entity);
+            }
+        }
+        return drained;
+    }
+
+    List<String> drainDeleted() {
+        List<String> drained = new ArrayList<>(deleted.size());
+        for (String id : deleted) {
+            if (deleted.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    // Lot en échec : les lignes repartent en attente, sauf si elles ont été modifiées
+    // ou supprimées depuis
+    void requeue(List<T> entities) {
+        for (T entity : entities) {
+            String id = idOf.apply(entity);
+            if (!deleted.contains(id)) {
+                dirty.putIfAbsent(id, entity);
+            }
+        }
+    }
+
+    int pendingCount() {
+        return dirty.size() + deleted.size();
+    }
+}
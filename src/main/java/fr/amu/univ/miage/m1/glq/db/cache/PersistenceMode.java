@@ -0,0 +1,24 @@
+package fr.amu.univ.miage.m1.glq.db.cache;
+
+/**
+ * Écriture en base des modifications du LibraryManager.
+ */
+public enum PersistenceMode {
+    /** Mémoire seule, rien n'est écrit en base. */
+    NONE,
+    /** Chaque modification est écrite aussitôt, dans le thread appelant. */
+    WRITE_THROUGH,
+    /** Les modifications sont regroupées puis écrites par lots en arrière-plan. */
+    WRITE_BEHIND;
+
+    /**
+     * Lecture tolérante de la propriété library.persistence
+     * (none, write-through, write-behind).
+     */
+    public static PersistenceMode parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,364 @@
+package fr.amu.univ.miage.m1.glq.db.cache;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.db.repository.BookRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcBookRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcLoanRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcMemberRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcReservationRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.LoanRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.MemberRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.ReservationRepository;
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Couche d'écriture entre le LibraryManager et la base.
+ *
+ * La mémoire reste la référence : le LibraryManager signale chaque entité
+ * modifiée, et la couche décide quand l'écrire.
+ *
+ * - WRITE_BEHIND : une ligne modifiée plusieurs fois avant le flush n'est
+ *   écrite qu'une fois. Le flush part toutes les flushIntervalMs, ou dès
+ *   que batchSize lignes attendent, en un lot JDBC par table.
+ * - WRITE_THROUGH : chaque modification est écrite dans le thread appelant ;
+ *   une écriture en échec est remise en attente pour le flush suivant.
+ * - NONE : rien n'est écrit (voir disabled()).
+ *
+ * Les tables sont écrites dans l'ordre des clés étrangères (livres et
+ * membres, puis emprunts et réservations), les suppressions dans l'ordre
+ * inverse. Un lot en échec est rejoué au flush suivant ; une suppression
+ * refusée (ligne encore référencée) est abandonnée.
+ *
+ * close() écrit ce qui reste ; un hook d'arrêt de la JVM le fait aussi.
+ *
+ * Thread-safe.
+ */
+public class WriteBehindStore implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(WriteBehindStore.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1_000;
+
+    private static final WriteBehindStore DISABLED = new WriteBehindStore();
+
+    private final PersistenceMode mode;
+    private final DirtyTable<Book> books;
+    private final DirtyTable<Member> members;
+    private final DirtyTable<Loan> loans;
+    private final DirtyTable<Reservation> reservations;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean open = true;
+
+    private final LongAdder changes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Couche sur les dépôts donnés, thread d'écriture démarré.
+     */
+    public static WriteBehindStore create(BookRepository bookRepository, MemberRepository memberRepository,
+                                          LoanRepository loanRepository, ReservationRepository reservationRepository,
+                                          PersistenceMode mode, int batchSize, long flushIntervalMs) {
+        WriteBehindStore store = new WriteBehindStore(bookRepository, memberRepository, loanRepository,
+            reservationRepository, mode, batchSize, flushIntervalMs);
+        store.start();
+        return store;
+    }
+
+    private WriteBehindStore(BookRepository bookRepository, MemberRepository memberRepository,
+                             LoanRepository loanRepository, ReservationRepository reservationRepository,
+                             PersistenceMode mode, int batchSize, long flushIntervalMs) {
+        if (mode == PersistenceMode.NONE) {
+            throw new IllegalArgumentException("Mode NONE : utiliser WriteBehindStore.disabled()");
+        }
+        if (batchSize < 1 || flushIntervalMs < 1) {
+            throw new IllegalArgumentException("Taille de lot et intervalle doivent être positifs");
+        }
+        this.mode = mode;
+        this.books = new DirtyTable<>("books", bookRepository, Book::getId);
+        this.members = new DirtyTable<>("members", memberRepository, Member::getId);
+        this.loans = new DirtyTable<>("loans", loanRepository, Loan::getId);
+        this.reservations = new DirtyTable<>("reservations", reservationRepository, Reservation::getId);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "write-behind-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shutdownHook = new Thread(this::close, "write-behind-shutdown");
+    }
+
+    // Hors du constructeur : l'instance n'est publiée aux threads qu'une fois construite
+    private void start() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private WriteBehindStore() {
+        this.mode = PersistenceMode.NONE;
+        this.books = null;
+        this.members = null;
+        this.loans = null;
+        this.reservations = null;
+        this.batchSize = 0;
+        this.flushIntervalMs = 0;
+        this.flusher = null;
+        this.shutdownHook = null;
+    }
+
+    /**
+     * Couche inactive (mode NONE) : toutes les notifications sont ignorées.
+     */
+    public static WriteBehindStore disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Couche sur les dépôts JDBC de la base donnée, réglée par les propriétés
+     * système library.persistence.batchSize et library.persistence.flushInterval (ms).
+     */
+    public static WriteBehindStore forDatabase(DatabaseConnection db, PersistenceMode mode) {
+        if (mode == PersistenceMode.NONE) {
+            return DISABLED;
+        }
+        return create(new JdbcBookRepository(db), new JdbcMemberRepository(db),
+            new JdbcLoanRepository(db), new JdbcReservationRepository(db), mode,
+            Integer.getInteger("library.persistence.batchSize", DEFAULT_BATCH_SIZE),
+            Long.getLong("library.persistence.flushInterval", DEFAULT_FLUSH_INTERVAL_MS));
+    }
+
+    /**
+     * Couche choisie par la propriété système library.persistence
+     * (none par défaut, write-through ou write-behind).
+     */
+    public static WriteBehindStore fromSystemProperties() {
+        PersistenceMode mode = PersistenceMode.parse(System.getProperty("library.persistence"));
+        return mode == PersistenceMode.NONE ? DISABLED : forDatabase(DatabaseConnection.getInstance(), mode);
+    }
+
+    public void bookChanged(Book book) {
+        changed(books, book);
+    }
+
+    public void memberChanged(Member member) {
+        changed(members, member);
+    }
+
+    public void loanChanged(Loan loan) {
+        changed(loans, loan);
+    }
+
+    public void reservationChanged(Reservation reservation) {
+        changed(reservations, reservation);
+    }
+
+    public void bookDeleted(String id) {
+        deleted(books, id);
+    }
+
+    public void memberDeleted(String id) {
+        deleted(members, id);
+    }
+
+    private <T> void changed(DirtyTable<T> table, T entity) {
+        if (mode == PersistenceMode.NONE) {
+            return;
+        }
+        changes.increment();
+        if (mode == PersistenceMode.WRITE_THROUGH) {
+            try {
+                table.repository.save(entity);
+                rowsWritten.increment();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                LOG.error("Écriture immédiate en échec ({}), remise en attente", table.name, e);
+            }
+        }
+        if (!table.markDirty(entity)) {
+            coalesced.increment();
+        }
+        requestFlushIfFull();
+    }
+
+    private void deleted(DirtyTable<?> table, String id) {
+        if (mode == PersistenceMode.NONE) {
+            return;
+        }
+        changes.increment();
+        if (mode == PersistenceMode.WRITE_THROUGH) {
+            try {
+                table.repository.delete(id);
+                rowsWritten.increment();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                LOG.error("Suppression refusée ({})", table.name, e);
+                return;
+            }
+        }
+        table.markDeleted(id);
+        requestFlushIfFull();
+    }
+
+    // Seuil atteint : un seul flush anticipé à la fois est demandé au thread d'écriture
+    private void requestFlushIfFull() {
+        if (getPendingCount() >= batchSize && open && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // Fermeture en cours : close() écrit ce qui reste
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Écrit tout ce qui est en attente. Retourne false si un lot a échoué
+     * (il sera rejoué au flush suivant).
+     */
+    public boolean flush() {
+        if (mode == PersistenceMode.NONE) {
+            return true;
+        }
+        flushLock.lock();
+        try {
+            boolean ok = writeDirty(books) & writeDirty(members);
+            ok &= writeDirty(loans) & writeDirty(reservations);
+            ok &= writeDeleted(reservations) & writeDeleted(loans);
+            ok &= writeDeleted(members) & writeDeleted(books);
+            flushes.increment();
+            return ok;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.error("Flush en échec : {}", e.getMessage(), e);
+        }
+    }
+
+    private <T> boolean writeDirty(DirtyTable<T> table) {
+        List<T> batch = table.drainDirty();
+        if (batch.isEmpty()) {
+            return true;
+        }
+        try {
+            table.repository.saveAll(batch);
+            rowsWritten.add(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            table.requeue(batch);
+            failures.increment();
+            LOG.error("Lot de {} ligne(s) en échec ({}), rejoué au prochain flush", batch.size(), table.name, e);
+            return false;
+        }
+    }
+
+    private boolean writeDeleted(DirtyTable<?> table) {
+        boolean ok = true;
+        for (String id : table.drainDeleted()) {
+            try {
+                table.repository.delete(id);
+                rowsWritten.increment();
+            } catch (RuntimeException e) {
+                failures.increment();
+                LOG.error("Suppression refusée ({})", table.name, e);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Écrit ce qui reste en attente puis arrête le thread d'écriture.
+     */
+    @Override
+    public void close() {
+        if (mode == PersistenceMode.NONE || !open) {
+            return;
+        }
+        open = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Arrêt de la JVM déjà en cours
+            }
+        }
+    }
+
+    public PersistenceMode getMode() {
+        return mode;
+    }
+
+    public int getPendingCount() {
+        if (mode == PersistenceMode.NONE) {
+            return 0;
+        }
+        return books.pendingCount() + members.pendingCount() + loans.pendingCount() + reservations.pendingCount();
+    }
+
+    /**
+     * Modifications signalées (y compris celles regroupées avec une autre).
+     */
+    public long getChangeCount() {
+        return changes.sum();
+    }
+
+    /**
+     * Modifications absorbées par une ligne déjà en attente.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package fr.amu.univ.miage.m1.glq.db.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Ouvre une connexion physique pour le pool.
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+
+    Connection create() throws SQLException;
+}
@@ -0,0 +1,324 @@
+package fr.amu.univ.miage.m1.glq.db.pool;
+
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool borné de connexions JDBC.
+ *
+ * Un sémaphore limite le nombre de connexions prêtées à maxSize ; les
+ * connexions libres sont rangées dans une pile sans verrou (la dernière
+ * rendue, encore chaude, repart en premier). Emprunt et restitution ne
+ * prennent aucun verrou tant qu'une connexion est disponible.
+ *
+ * - validation à l'emprunt si la connexion est restée libre plus de
+ *   validationIntervalMs (isValid), remplacement si elle est morte
+ * - un thread de maintenance ferme les connexions libres depuis plus de
+ *   idleTimeoutMs (en gardant minIdle) et signale les emprunts plus longs
+ *   que leakThresholdMs, avec la pile de l'emprunteur si captureStacks
+ *   est actif ou si le log est au niveau DEBUG
+ * - cache LRU de PreparedStatement par connexion (statementCacheSize
+ *   requêtes, 0 pour le désactiver), fermé avec la connexion
+ * - métriques : emprunts, délais dépassés, temps d'attente cumulé et maximal,
+ *   succès et défauts du cache de requêtes
+ *
+ * Thread-safe.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_S = 1;
+
+    private final ConnectionFactory factory;
+    private final PoolSettings settings;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean open = true;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+
+    public ConnectionPool(ConnectionFactory factory, PoolSettings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize());
+        long period = Math.max(10, Math.min(settings.idleTimeoutMs(), settings.leakThresholdMs()) / 2);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion ; la fermer la rend au pool.
+     *
+     * @throws SQLException si aucune connexion ne s'est libérée dans le délai
+     *                      ou si l'ouverture d'une connexion a échoué
+     */
+    public Connection borrow() throws SQLException {
+        if (!open) {
+            throw new SQLException("Pool de connexions fermé");
+        }
+        acquirePermit();
+        try {
+            PooledConnection connection = takeIdleOrCreate();
+            connection.borrowedAt = System.currentTimeMillis();
+            connection.borrower = Thread.currentThread();
+            connection.leakReported = false;
+            connection.borrowStack = captureStacks() ? new Throwable("Connexion empruntée ici") : null;
+            borrowed.add(connection);
+            borrows.increment();
+            return connection.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(settings.borrowTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Attente d'une connexion interrompue", e);
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLException("Aucune connexion libre après " + settings.borrowTimeoutMs()
+                + " ms (" + settings.maxSize() + " connexions prêtées)");
+        }
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            if (isUsable(connection)) {
+                return connection;
+            }
+            invalidated.increment();
+            discard(connection);
+        }
+        StatementCache statements = settings.statementCacheSize() > 0
+            ? new StatementCache(settings.statementCacheSize(), statementHits, statementMisses)
+            : null;
+        connection = new PooledConnection(this, factory.create(), statements);
+        totalConnections.incrementAndGet();
+        created.increment();
+        return connection;
+    }
+
+    private boolean isUsable(PooledConnection connection) {
+        try {
+            if (connection.physical.isClosed()) {
+                return false;
+            }
+            long idleFor = System.currentTimeMillis() - connection.lastReturnedAt;
+            return idleFor < settings.validationIntervalMs()
+                || connection.physical.isValid(VALIDATION_TIMEOUT_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Restitution par la poignée : remise à zéro de l'état de transaction,
+     * puis retour en tête de pile (ou fermeture si le pool est fermé).
+     */
+    void release(PooledConnection connection) {
+        borrowed.remove(connection);
+        connection.borrower = null;
+        connection.borrowStack = null;
+        boolean healthy = resetState(connection);
+        if (open && healthy && totalConnections.get() <= settings.maxSize()) {
+            connection.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(connection);
+        } else {
+            discard(connection);
+        }
+        permits.release();
+    }
+
+    private static boolean resetState(PooledConnection connection) {
+        try {
+            Connection physical = connection.physical;
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (connection.statements != null) {
+                connection.statements.releaseAll();
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            LOG.warn("Connexion écartée à la restitution : {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection connection) {
+        totalConnections.decrementAndGet();
+        if (connection.statements != null) {
+            connection.statements.closeAll();
+        }
+        try {
+            connection.physical.close();
+        } catch (SQLException e) {
+            LOG.warn("Erreur fermeture connexion du pool : {}", e.getMessage());
+        }
+    }
+
+    private boolean captureStacks() {
+        return settings.captureStacks() || LOG.isDebugEnabled();
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        evictIdle(now);
+        detectLeaks(now);
+    }
+
+    // Les plus anciennes sont en fin de pile : on ferme par la fin
+    private void evictIdle(long now) {
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && idle.size() > settings.minIdle()) {
+            PooledConnection connection = oldestFirst.next();
+            if (now - connection.lastReturnedAt >= settings.idleTimeoutMs() && idle.remove(connection)) {
+                evicted.increment();
+                discard(connection);
+            }
+        }
+    }
+
+    private void detectLeaks(long now) {
+        for (PooledConnection connection : borrowed) {
+            long heldFor = now - connection.borrowedAt;
+            if (heldFor < settings.leakThresholdMs() || connection.leakReported) {
+                continue;
+            }
+            connection.leakReported = true;
+            leaks.increment();
+            Thread borrower = connection.borrower;
+            String name = borrower == null ? "?" : borrower.getName();
+            Throwable stack = connection.borrowStack;
+            if (stack != null) {
+                LOG.error("Fuite probable : connexion empruntée depuis {} ms par {}", heldFor, name, stack);
+            } else {
+                LOG.warn("Fuite probable : connexion empruntée depuis {} ms par {}", heldFor, name);
+            }
+        }
+    }
+
+    /**
+     * Ferme les connexions libres ; celles encore prêtées le seront à leur restitution.
+     */
+    @Override
+    public void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        housekeeper.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    public PoolSettings getSettings() {
+        return settings;
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Temps d'attente cumulé des emprunts qui n'ont pas trouvé de place immédiatement.
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    public long getInvalidatedCount() {
+        return invalidated.sum();
+    }
+
+    public long getLeakCount() {
+        return leaks.sum();
+    }
+
+    public long getStatementCacheHits() {
+        return statementHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementMisses.sum();
+    }
+}
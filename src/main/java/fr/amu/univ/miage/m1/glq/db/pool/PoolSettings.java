@@ -0,0 +1,63 @@
+package fr.amu.univ.miage.m1.glq.db.pool;
+
+/**
+ * Réglages du pool de connexions.
+ *
+ * @param maxSize              nombre maximal de connexions physiques
+ * @param minIdle              connexions libres gardées malgré l'inactivité
+ * @param borrowTimeoutMs      attente maximale d'une connexion libre
+ * @param idleTimeoutMs        inactivité au-delà de laquelle une connexion libre est fermée
+ * @param leakThresholdMs      durée d'emprunt au-delà de laquelle une fuite est signalée
+ * @param validationIntervalMs inactivité au-delà de laquelle la connexion est validée à l'emprunt
+ * @param captureStacks        mémorise la pile de l'emprunteur pour le signalement des fuites
+ * @param statementCacheSize   requêtes préparées gardées par connexion (0 : pas de cache)
+ */
+public record PoolSettings(int maxSize, int minIdle, long borrowTimeoutMs, long idleTimeoutMs,
+                           long leakThresholdMs, long validationIntervalMs, boolean captureStacks,
+                           int statementCacheSize) {
+
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    public PoolSettings {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Taille de pool invalide : max=" + maxSize + ", minIdle=" + minIdle);
+        }
+        if (borrowTimeoutMs < 0 || idleTimeoutMs <= 0 || leakThresholdMs <= 0 || validationIntervalMs < 0) {
+            throw new IllegalArgumentException("Délais de pool invalides");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Taille du cache de requêtes invalide : " + statementCacheSize);
+        }
+    }
+
+    public PoolSettings(int maxSize, int minIdle, long borrowTimeoutMs, long idleTimeoutMs,
+                        long leakThresholdMs, long validationIntervalMs, boolean captureStacks) {
+        this(maxSize, minIdle, borrowTimeoutMs, idleTimeoutMs, leakThresholdMs, validationIntervalMs,
+            captureStacks, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public static PoolSettings defaults() {
+        return new PoolSettings(DEFAULT_MAX_SIZE, 2, 5_000, 60_000, 30_000, 1_000, false);
+    }
+
+    /**
+     * Réglages par défaut surchargés par les propriétés système
+     * library.db.pool.size, .minIdle, .timeout, .idleTimeout, .leakThreshold,
+     * .validationInterval, .captureStacks et .statementCacheSize (durées en
+     * millisecondes).
+     */
+    public static PoolSettings fromSystemProperties() {
+        PoolSettings d = defaults();
+        int maxSize = Integer.getInteger("library.db.pool.size", d.maxSize());
+        return new PoolSettings(
+            maxSize,
+            Math.min(maxSize, Integer.getInteger("library.db.pool.minIdle", d.minIdle())),
+            Long.getLong("library.db.pool.timeout", d.borrowTimeoutMs()),
+            Long.getLong("library.db.pool.idleTimeout", d.idleTimeoutMs()),
+            Long.getLong("library.db.pool.leakThreshold", d.leakThresholdMs()),
+            Long.getLong("library.db.pool.validationInterval", d.validationIntervalMs()),
+            Boolean.getBoolean("library.db.pool.captureStacks"),
+            Integer.getInteger("library.db.pool.statementCacheSize", d.statementCacheSize()));
+    }
+}
@@ -0,0 +1,82 @@
+package fr.amu.univ.miage.m1.glq.db.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connexion physique gérée par le pool, avec son état d'emprunt.
+ *
+ * Chaque emprunt reçoit sa propre poignée (proxy de Connection) : close()
+ * rend la connexion au pool, et une poignée déjà rendue refuse toute
+ * utilisation, même si la connexion physique a été prêtée à quelqu'un d'autre.
+ *
+ * prepareStatement(sql) passe par le cache de requêtes de la connexion
+ * (voir StatementCache) quand il est activé.
+ */
+final class PooledConnection {
+
+    private final ConnectionPool pool;
+    final Connection physical;
+    final StatementCache statements;
+    final long createdAt = System.currentTimeMillis();
+
+    volatile long lastReturnedAt = createdAt;
+    volatile long borrowedAt;
+    volatile Thread borrower;
+    volatile Throwable borrowStack;
+    volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statements) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statements = statements;
+    }
+
+    Connection newHandle() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, new Handle());
+    }
+
+    private final class Handle implements InvocationHandler {
+
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + (closed ? ", rendue" : "") + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connexion déjà rendue au pool");
+            }
+            if (statements != null && args != null && args.length == 1
+                && method.getName().equals("prepareStatement")) {
+                return statements.prepare(physical, (Connection) proxy, () -> closed, (String) args[0]);
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
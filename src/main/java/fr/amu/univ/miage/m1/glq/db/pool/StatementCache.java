@@ -0,0 +1,184 @@
+package fr.amu.univ.miage.m1.glq.db.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cache LRU des PreparedStatement d'une connexion physique, par texte SQL.
+ *
+ * prepareStatement(sql) rend une poignée sur la requête déjà préparée ;
+ * fermer la poignée efface les paramètres et garde la requête pour le
+ * prochain emprunteur. Si la même requête est déjà ouverte (deux
+ * curseurs imbriqués), une requête hors cache est préparée. La requête la
+ * moins récemment utilisée est fermée au-delà de la capacité.
+ *
+ * Non thread-safe : seul l'emprunteur de la connexion l'utilise.
+ */
+final class StatementCache {
+
+    private final int capacity;
+    private final Map<String, CachedStatement> statements;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    StatementCache(int capacity, LongAdder hits, LongAdder misses) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(Connection physical, Connection owner, BooleanSupplier ownerClosed,
+                              String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.inUse) {
+            misses.increment();
+            return physical.prepareStatement(sql);
+        }
+        if (cached == null) {
+            misses.increment();
+            cached = new CachedStatement(physical.prepareStatement(sql));
+            statements.put(sql, cached);
+        } else {
+            hits.increment();
+        }
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class}, new Handle(cached, owner, ownerClosed));
+    }
+
+    /**
+     * Restitution de la connexion : les requêtes oubliées ouvertes sont remises à zéro.
+     */
+    void releaseAll() {
+        List<String> broken = new ArrayList<>();
+        for (Map.Entry<String, CachedStatement> entry : statements.entrySet()) {
+            if (entry.getValue().inUse && !entry.getValue().release()) {
+                broken.add(entry.getKey());
+            }
+        }
+        broken.forEach(statements::remove);
+    }
+
+    void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static final class CachedStatement {
+
+        final PreparedStatement physical;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        // Retourne false si la requête est inutilisable et doit sortir du cache
+        boolean release() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return true;
+            }
+            try {
+                physical.clearParameters();
+                physical.clearBatch();
+                return true;
+            } catch (SQLException e) {
+                closeQuietly();
+                return false;
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // La connexion est sans doute déjà fermée
+            }
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final BooleanSupplier ownerClosed;
+        private boolean closed;
+
+        Handle(CachedStatement cached, Connection owner, BooleanSupplier ownerClosed) {
+            this.cached = cached;
+            this.owner = owner;
+            this.ownerClosed = ownerClosed;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (!ownerClosed.getAsBoolean() && !cached.release()) {
+                            statements.values().remove(cached);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || ownerClosed.getAsBoolean();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.physical + "]";
+                default:
+                    break;
+            }
+            if (closed || ownerClosed.getAsBoolean()) {
+                throw new SQLException("Requête déjà fermée");
+            }
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+
+import java.util.List;
+
+/**
+ * Persistance des livres.
+ */
+public interface BookRepository extends Repository<Book> {
+
+    Book findByIsbn(String isbn);
+
+    List<Book> findAll();
+}
@@ -0,0 +1,82 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.model.Book;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Livres dans la table books.
+ */
+public class JdbcBookRepository extends JdbcRepository<Book> implements BookRepository {
+
+    private static final String COLUMNS =
+        "id, title, author, isbn, year, copies, available_copies, category, is_active";
+    private static final String MERGE =
+        "MERGE INTO books (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM books";
+
+    public JdbcBookRepository(DatabaseConnection db) {
+        super(db);
+    }
+
+    @Override
+    public void save(Book book) {
+        update(MERGE, ps -> bind(ps, book));
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        batch(MERGE, books, JdbcBookRepository::bind);
+    }
+
+    @Override
+    public Book findById(String id) {
+        return queryOne(SELECT + " WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public Book findByIsbn(String isbn) {
+        return queryOne(SELECT + " WHERE isbn = ? ORDER BY id FETCH FIRST 1 ROWS ONLY", ps -> ps.setString(1, isbn));
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return queryList(SELECT + " ORDER BY id", ps -> { });
+    }
+
+    @Override
+    public void delete(String id) {
+        update("DELETE FROM books WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM books", ps -> { });
+    }
+
+    @Override
+    protected Book mapRow(ResultSet rs) throws SQLException {
+        Book book = new Book(rs.getString("id"), rs.getString("title"), rs.getString("author"),
+            rs.getString("isbn"), rs.getInt("year"), rs.getInt("copies"), rs.getString("category"));
+        book.setAvailableCopies(rs.getInt("available_copies"));
+        book.setActive(rs.getBoolean("is_active"));
+        return book;
+    }
+
+    private static void bind(PreparedStatement ps, Book book) throws SQLException {
+        ps.setString(1, book.getId());
+        ps.setString(2, book.getTitle());
+        ps.setString(3, book.getAuthor());
+        ps.setString(4, book.getIsbn());
+        ps.setInt(5, book.getYear());
+        ps.setInt(6, book.getCopies());
+        ps.setInt(7, book.getAvailableCopies());
+        ps.setString(8, book.getCategory());
+        ps.setBoolean(9, book.isActive());
+    }
+}
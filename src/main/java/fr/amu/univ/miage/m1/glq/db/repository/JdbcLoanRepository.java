@@ -0,0 +1,101 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Emprunts dans la table loans.
+ *
+ * Les recherches par membre et statut et par échéance s'appuient sur les
+ * index idx_loans_member_status et idx_loans_due_date.
+ */
+public class JdbcLoanRepository extends JdbcRepository<Loan> implements LoanRepository {
+
+    private static final String COLUMNS =
+        "id, member_id, book_id, loan_date, due_date, return_date, status, penalty_amount, renewal_count, notes";
+    private static final String MERGE =
+        "MERGE INTO loans (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM loans";
+
+    public JdbcLoanRepository(DatabaseConnection db) {
+        super(db);
+    }
+
+    @Override
+    public void save(Loan loan) {
+        update(MERGE, ps -> bind(ps, loan));
+    }
+
+    @Override
+    public void saveAll(Collection<Loan> loans) {
+        batch(MERGE, loans, JdbcLoanRepository::bind);
+    }
+
+    @Override
+    public Loan findById(String id) {
+        return queryOne(SELECT + " WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public List<Loan> findOpenByMember(String memberId) {
+        return queryList(SELECT + " WHERE member_id = ? AND status IN ('ACTIVE', 'OVERDUE') ORDER BY id",
+            ps -> ps.setString(1, memberId));
+    }
+
+    @Override
+    public List<Loan> findByMember(String memberId) {
+        return queryList(SELECT + " WHERE member_id = ? ORDER BY id", ps -> ps.setString(1, memberId));
+    }
+
+    @Override
+    public List<Loan> findOpenDueBefore(Date date) {
+        return queryList(SELECT + " WHERE due_date < ? AND status NOT IN ('RETURNED', 'LOST') ORDER BY due_date",
+            ps -> ps.setTimestamp(1, toTimestamp(date)));
+    }
+
+    @Override
+    public void delete(String id) {
+        update("DELETE FROM loans WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM loans", ps -> { });
+    }
+
+    @Override
+    protected Loan mapRow(ResultSet rs) throws SQLException {
+        Loan loan = new Loan();
+        loan.setId(rs.getString("id"));
+        loan.setMemberId(rs.getString("member_id"));
+        loan.setBookId(rs.getString("book_id"));
+        loan.setLoanDate(toDate(rs.getTimestamp("loan_date")));
+        loan.setDueDate(toDate(rs.getTimestamp("due_date")));
+        loan.setReturnDate(toDate(rs.getTimestamp("return_date")));
+        loan.setStatus(rs.getString("status"));
+        loan.setPenaltyAmount(rs.getDouble("penalty_amount"));
+        loan.setRenewalCount(rs.getInt("renewal_count"));
+        loan.setNotes(rs.getString("notes"));
+        return loan;
+    }
+
+    private static void bind(PreparedStatement ps, Loan loan) throws SQLException {
+        ps.setString(1, loan.getId());
+        ps.setString(2, loan.getMemberId());
+        ps.setString(3, loan.getBookId());
+        ps.setTimestamp(4, toTimestamp(loan.getLoanDate()));
+        ps.setTimestamp(5, toTimestamp(loan.getDueDate()));
+        ps.setTimestamp(6, toTimestamp(loan.getReturnDate()));
+        ps.setString(7, loan.getStatus());
+        ps.setDouble(8, loan.getPenaltyAmount());
+        ps.setInt(9, loan.getRenewalCount());
+        ps.setString(10, loan.getNotes());
+    }
+}
@@ -0,0 +1,108 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.model.Member;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Membres dans la table members.
+ */
+public class JdbcMemberRepository extends JdbcRepository<Member> implements MemberRepository {
+
+    private static final String COLUMNS =
+        "id, first_name, last_name, email, phone, street_address, city, zip_code, country, " +
+        "birth_date, membership_date, membership_expiry_date, member_type, loan_quota, is_active, " +
+        "current_loans_count, total_loans_count, late_returns_count";
+    private static final String MERGE =
+        "MERGE INTO members (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM members";
+
+    public JdbcMemberRepository(DatabaseConnection db) {
+        super(db);
+    }
+
+    @Override
+    public void save(Member member) {
+        update(MERGE, ps -> bind(ps, member));
+    }
+
+    @Override
+    public void saveAll(Collection<Member> members) {
+        batch(MERGE, members, JdbcMemberRepository::bind);
+    }
+
+    @Override
+    public Member findById(String id) {
+        return queryOne(SELECT + " WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public Member findByEmail(String email) {
+        return queryOne(SELECT + " WHERE email = ? ORDER BY id FETCH FIRST 1 ROWS ONLY", ps -> ps.setString(1, email));
+    }
+
+    @Override
+    public List<Member> findAll() {
+        return queryList(SELECT + " ORDER BY id", ps -> { });
+    }
+
+    @Override
+    public void delete(String id) {
+        update("DELETE FROM members WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM members", ps -> { });
+    }
+
+    @Override
+    protected Member mapRow(ResultSet rs) throws SQLException {
+        Member member = new Member();
+        member.setId(rs.getString("id"));
+        member.setFirstName(rs.getString("first_name"));
+        member.setLastName(rs.getString("last_name"));
+        member.setEmail(rs.getString("email"));
+        member.setPhone(rs.getString("phone"));
+        member.setStreetAddress(rs.getString("street_address"));
+        member.setCity(rs.getString("city"));
+        member.setZipCode(rs.getString("zip_code"));
+        member.setCountry(rs.getString("country"));
+        member.setBirthDate(toDate(rs.getTimestamp("birth_date")));
+        member.setMembershipDate(toDate(rs.getTimestamp("membership_date")));
+        member.setMembershipExpiryDate(toDate(rs.getTimestamp("membership_expiry_date")));
+        member.setMemberType(rs.getString("member_type"));
+        member.setLoanQuota(rs.getInt("loan_quota"));
+        member.setActive(rs.getBoolean("is_active"));
+        member.setCurrentLoansCount(rs.getInt("current_loans_count"));
+        member.setTotalLoansCount(rs.getInt("total_loans_count"));
+        member.setLateReturnsCount(rs.getInt("late_returns_count"));
+        return member;
+    }
+
+    private static void bind(PreparedStatement ps, Member member) throws SQLException {
+        ps.setString(1, member.getId());
+        ps.setString(2, member.getFirstName());
+        ps.setString(3, member.getLastName());
+        ps.setString(4, member.getEmail());
+        ps.setString(5, member.getPhone());
+        ps.setString(6, member.getStreetAddress());
+        ps.setString(7, member.getCity());
+        ps.setString(8, member.getZipCode());
+        ps.setString(9, member.getCountry());
+        ps.setTimestamp(10, toTimestamp(member.getBirthDate()));
+        ps.setTimestamp(11, toTimestamp(member.getMembershipDate()));
+        ps.setTimestamp(12, toTimestamp(member.getMembershipExpiryDate()));
+        ps.setString(13, member.getMemberType());
+        ps.setInt(14, member.getLoanQuota());
+        ps.setBoolean(15, member.isActive());
+        ps.setInt(16, member.getCurrentLoansCount());
+        ps.setInt(17, member.getTotalLoansCount());
+        ps.setInt(18, member.getLateReturnsCount());
+    }
+}
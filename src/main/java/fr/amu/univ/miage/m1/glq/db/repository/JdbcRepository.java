@@ -0,0 +1,113 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Base des dépôts JDBC : requêtes préparées, lecture des lignes,
+ * conversion des dates. Chaque requête emprunte une connexion au pool et
+ * la rend aussitôt.
+ *
+ * Les erreurs SQL sont remontées en RuntimeException (message en français,
+ * cause d'origine conservée).
+ */
+abstract class JdbcRepository<T> {
+
+    @FunctionalInterface
+    interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface EntityBinder<T> {
+        void bind(PreparedStatement ps, T entity) throws SQLException;
+    }
+
+    private final DatabaseConnection db;
+
+    JdbcRepository(DatabaseConnection db) {
+        this.db = db;
+    }
+
+    protected abstract T mapRow(ResultSet rs) throws SQLException;
+
+    protected List<T> queryList(String sql, Binder binder) {
+        try (Connection connection = db.getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<T> results = new ArrayList<>();
+                while (rs.next()) {
+                    results.add(mapRow(rs));
+                }
+                return results;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur BDD (" + sql.trim() + ") : " + e.getMessage(), e);
+        }
+    }
+
+    protected T queryOne(String sql, Binder binder) {
+        List<T> results = queryList(sql, binder);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    protected long queryLong(String sql, Binder binder) {
+        try (Connection connection = db.getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur BDD (" + sql.trim() + ") : " + e.getMessage(), e);
+        }
+    }
+
+    protected int update(String sql, Binder binder) {
+        try (Connection connection = db.getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            binder.bind(ps);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur BDD (" + sql.trim() + ") : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Exécute la même requête pour chaque entité, en un seul lot JDBC.
+     */
+    protected void batch(String sql, Collection<? extends T> entities, EntityBinder<T> binder) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        try (Connection connection = db.getConnection(); PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (T entity : entities) {
+                binder.bind(ps, entity);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            throw new RuntimeException("Erreur BDD (" + sql.trim() + ") : " + e.getMessage(), e);
+        }
+    }
+
+    static Timestamp toTimestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+
+    static Date toDate(Timestamp timestamp) {
+        return timestamp == null ? null : new Date(timestamp.getTime());
+    }
+}
@@ -0,0 +1,82 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Réservations dans la table reservations.
+ *
+ * La file d'un livre est lue par l'index idx_reservations_book_status.
+ */
+public class JdbcReservationRepository extends JdbcRepository<Reservation> implements ReservationRepository {
+
+    private static final String COLUMNS =
+        "id, member_id, book_id, reservation_date, expiry_date, status, queue_position";
+    private static final String MERGE =
+        "MERGE INTO reservations (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM reservations";
+
+    public JdbcReservationRepository(DatabaseConnection db) {
+        super(db);
+    }
+
+    @Override
+    public void save(Reservation reservation) {
+        update(MERGE, ps -> bind(ps, reservation));
+    }
+
+    @Override
+    public void saveAll(Collection<Reservation> reservations) {
+        batch(MERGE, reservations, JdbcReservationRepository::bind);
+    }
+
+    @Override
+    public Reservation findById(String id) {
+        return queryOne(SELECT + " WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public List<Reservation> findPendingByBook(String bookId) {
+        return queryList(SELECT + " WHERE book_id = ? AND status = 'PENDING' ORDER BY reservation_date, queue_position, id",
+            ps -> ps.setString(1, bookId));
+    }
+
+    @Override
+    public void delete(String id) {
+        update("DELETE FROM reservations WHERE id = ?", ps -> ps.setString(1, id));
+    }
+
+    @Override
+    public long count() {
+        return queryLong("SELECT COUNT(*) FROM reservations", ps -> { });
+    }
+
+    @Override
+    protected Reservation mapRow(ResultSet rs) throws SQLException {
+        Reservation reservation = new Reservation();
+        reservation.setId(rs.getString("id"));
+        reservation.setMemberId(rs.getString("member_id"));
+        reservation.setBookId(rs.getString("book_id"));
+        reservation.setReservationDate(toDate(rs.getTimestamp("reservation_date")));
+        reservation.setExpiryDate(toDate(rs.getTimestamp("expiry_date")));
+        reservation.setStatus(rs.getString("status"));
+        reservation.setQueuePosition(rs.getInt("queue_position"));
+        return reservation;
+    }
+
+    private static void bind(PreparedStatement ps, Reservation reservation) throws SQLException {
+        ps.setString(1, reservation.getId());
+        ps.setString(2, reservation.getMemberId());
+        ps.setString(3, reservation.getBookId());
+        ps.setTimestamp(4, toTimestamp(reservation.getReservationDate()));
+        ps.setTimestamp(5, toTimestamp(reservation.getExpiryDate()));
+        ps.setString(6, reservation.getStatus());
+        ps.setInt(7, reservation.getQueuePosition());
+    }
+}
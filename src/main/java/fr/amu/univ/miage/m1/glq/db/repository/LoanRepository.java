@@ -0,0 +1,27 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Persistance des emprunts.
+ *
+ * Les emprunts relus n'ont que les identifiants du membre et du livre
+ * (getMember() / getBook() valent null) : à résoudre par l'appelant.
+ */
+public interface LoanRepository extends Repository<Loan> {
+
+    /**
+     * Emprunts en cours (ACTIVE ou OVERDUE) du membre.
+     */
+    List<Loan> findOpenByMember(String memberId);
+
+    List<Loan> findByMember(String memberId);
+
+    /**
+     * Emprunts non rendus dont l'échéance est strictement avant la date donnée.
+     */
+    List<Loan> findOpenDueBefore(Date date);
+}
@@ -0,0 +1,15 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.model.Member;
+
+import java.util.List;
+
+/**
+ * Persistance des membres.
+ */
+public interface MemberRepository extends Repository<Member> {
+
+    Member findByEmail(String email);
+
+    List<Member> findAll();
+}
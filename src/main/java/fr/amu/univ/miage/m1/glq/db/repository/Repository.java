@@ -0,0 +1,25 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import java.util.Collection;
+
+/**
+ * Opérations communes aux dépôts, par identifiant.
+ */
+public interface Repository<T> {
+
+    /**
+     * Insère ou met à jour l'entité.
+     */
+    void save(T entity);
+
+    /**
+     * Insère ou met à jour les entités, en un seul lot.
+     */
+    void saveAll(Collection<T> entities);
+
+    T findById(String id);
+
+    void delete(String id);
+
+    long count();
+}
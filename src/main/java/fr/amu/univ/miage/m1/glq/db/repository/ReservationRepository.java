@@ -0,0 +1,16 @@
+package fr.amu.univ.miage.m1.glq.db.repository;
+
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+
+import java.util.List;
+
+/**
+ * Persistance des réservations.
+ */
+public interface ReservationRepository extends Repository<Reservation> {
+
+    /**
+     * Réservations PENDING du livre, dans l'ordre de la file (date puis position).
+     */
+    List<Reservation> findPendingByBook(String bookId);
+}
@@ -1,5 +1,7 @@
 package fr.amu.univ.miage.m1.glq.model;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Représente un livre dans la bibliothèque.
  * 
@@ -16,10 +18,14 @@ public class Book {
     public String isbn;         // Devrait être privé
     public int year;            // Devrait être privé
     public int copies;          // Nombre total d'exemplaires
-    public int availableCopies; // Nombre d'exemplaires disponibles
+    public volatile int availableCopies; // Nombre d'exemplaires disponibles (modifié par CAS)
     public String category;     // "ROMAN", "SCIENCE", "TECHNIQUE", etc.
     public boolean isActive;    // Si le livre est actif dans le catalogue
     
+    // Accès CAS à availableCopies (sans objet AtomicInteger par livre)
+    private static final AtomicIntegerFieldUpdater<Book> AVAILABLE_COPIES =
+        AtomicIntegerFieldUpdater.newUpdater(Book.class, "availableCopies");
+    
     // Constructeur par défaut (problème : permet des objets invalides)
     public Book() {
     }
@@ -62,6 +68,38 @@ public class Book {
         this.availableCopies = availableCopies; 
     }
     
+    /**
+     * Prend un exemplaire (emprunt) par compare-and-set, sans verrou.
+     * Retourne false si aucun exemplaire n'est disponible.
+     */
+    public boolean tryReserveCopy() {
+        while (true) {
+            int current = availableCopies;
+            if (current <= 0) {
+                return false;
+            }
+            if (AVAILABLE_COPIES.compareAndSet(this, current, current - 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Rend un exemplaire (retour) par compare-and-set, sans verrou.
+     * Retourne false si tous les exemplaires sont déjà en stock.
+     */
+    public boolean releaseCopy() {
+        while (true) {
+            int current = availableCopies;
+            if (current >= copies) {
+                return false;
+            }
+            if (AVAILABLE_COPIES.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
     
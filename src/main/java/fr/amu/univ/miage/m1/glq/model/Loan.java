@@ -6,10 +6,11 @@ import java.util.Date;
  * Représente un emprunt de livre.
  * 
  * TODO: Cette classe a plusieurs problèmes à corriger :
- * - Statut en String au lieu d'enum
  * - java.util.Date au lieu de java.time
  * - Logique métier dans le modèle
- * - Pas d'encapsulation des règles de transition d'état
+ *
+ * Le statut est un LoanStatus dont les transitions sont vérifiées
+ * (getStatus / setStatus en String restent pour la compatibilité).
  */
 public class Loan {
     
@@ -26,8 +27,8 @@ public class Loan {
     private Date dueDate;
     private Date returnDate;
     
-    // Statut en String : "ACTIVE", "RETURNED", "OVERDUE", "LOST"
-    private String status;
+    // Statut (null tant qu'un emprunt relu n'est pas complété)
+    private LoanStatus state;
     
     // Pénalité calculée (ne devrait pas être stockée ici)
     private double penaltyAmount;
@@ -39,6 +40,9 @@ public class Loan {
     // Notes diverses
     private String notes;
     
+    // Observateur optionnel (index du service)
+    private LoanListener listener;
+    
     public Loan() {
     }
     
@@ -49,7 +53,7 @@ public class Loan {
         this.book = book;
         this.bookId = book.getId();
         this.loanDate = new Date();
-        this.status = "ACTIVE";
+        this.state = LoanStatus.ACTIVE;
         this.renewalCount = 0;
         this.penaltyAmount = 0.0;
         
@@ -68,7 +72,7 @@ public class Loan {
     
     // Méthode avec logique métier (devrait être dans un service)
     public boolean isOverdue() {
-        if (status.equals("RETURNED") || status.equals("LOST")) {
+        if (state == null || !state.isOpen()) {
             return false;
         }
         return new Date().after(dueDate);
@@ -85,7 +89,7 @@ public class Loan {
     
     // Méthode de renouvellement (logique métier complexe dans le modèle)
     public boolean canRenew() {
-        if (!status.equals("ACTIVE")) {
+        if (state != LoanStatus.ACTIVE) {
             return false;
         }
         if (isOverdue()) {
@@ -107,7 +111,7 @@ public class Loan {
         renewalCount++;
         // Ajouter 14 jours à la date de retour
         long extensionMs = 14L * 24 * 60 * 60 * 1000;
-        this.dueDate = new Date(dueDate.getTime() + extensionMs);
+        setDueDate(new Date(dueDate.getTime() + extensionMs));
     }
     
     // Getters et setters
@@ -130,16 +134,47 @@ public class Loan {
     public void setLoanDate(Date loanDate) { this.loanDate = loanDate; }
     
     public Date getDueDate() { return dueDate; }
-    public void setDueDate(Date dueDate) { this.dueDate = dueDate; }
+    public void setDueDate(Date dueDate) {
+        Date oldDueDate = this.dueDate;
+        this.dueDate = dueDate;
+        if (listener != null) {
+            listener.onDueDateChanged(this, oldDueDate);
+        }
+    }
     
     public Date getReturnDate() { return returnDate; }
     public void setReturnDate(Date returnDate) { this.returnDate = returnDate; }
     
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public LoanStatus getState() { return state; }
+    
+    /**
+     * Change de statut selon la table de LoanStatus (libre pour un emprunt
+     * sans statut, par exemple relu depuis la base).
+     */
+    public void setState(LoanStatus state) {
+        LoanStatus oldState = this.state;
+        if (oldState != null && !oldState.canTransitionTo(state)) {
+            throw new IllegalStateException("Transition interdite pour l'emprunt " + id + " : "
+                + oldState + " -> " + state);
+        }
+        this.state = state;
+        if (listener != null && oldState != state) {
+            listener.onStatusChanged(this, oldState);
+        }
+    }
+    
+    // Vue en String du statut (compatibilité)
+    public String getStatus() { return state == null ? null : state.name(); }
+    public void setStatus(String status) { setState(LoanStatus.parse(status)); }
     
     public double getPenaltyAmount() { return penaltyAmount; }
-    public void setPenaltyAmount(double penaltyAmount) { this.penaltyAmount = penaltyAmount; }
+    public void setPenaltyAmount(double penaltyAmount) {
+        double oldPenalty = this.penaltyAmount;
+        this.penaltyAmount = penaltyAmount;
+        if (listener != null) {
+            listener.onPenaltyChanged(this, oldPenalty);
+        }
+    }
     
     public int getRenewalCount() { return renewalCount; }
     public void setRenewalCount(int renewalCount) { this.renewalCount = renewalCount; }
@@ -150,8 +185,11 @@ public class Loan {
     public String getNotes() { return notes; }
     public void setNotes(String notes) { this.notes = notes; }
     
+    public LoanListener getListener() { return listener; }
+    public void setListener(LoanListener listener) { this.listener = listener; }
+    
     @Override
     public String toString() {
-        return "Loan[" + id + "] " + bookId + " -> " + memberId + " (" + status + ")";
+        return "Loan[" + id + "] " + bookId + " -> " + memberId + " (" + state + ")";
     }
 }
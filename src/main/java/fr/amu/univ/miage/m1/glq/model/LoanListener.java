@@ -0,0 +1,30 @@
+package fr.amu.univ.miage.m1.glq.model;
+
+import java.util.Date;
+
+/**
+ * Observateur des modifications d'un emprunt.
+ *
+ * Permet aux index du service de rester cohérents quand un emprunt
+ * est modifié directement (setter) plutôt que via LibraryManager.
+ */
+public interface LoanListener {
+
+    /**
+     * Appelé après un changement de date de retour (setter ou renouvellement).
+     */
+    default void onDueDateChanged(Loan loan, Date oldDueDate) {
+    }
+    
+    /**
+     * Appelé après un changement de statut.
+     */
+    default void onStatusChanged(Loan loan, LoanStatus oldStatus) {
+    }
+    
+    /**
+     * Appelé après un changement du montant de la pénalité.
+     */
+    default void onPenaltyChanged(Loan loan, double oldPenalty) {
+    }
+}
@@ -0,0 +1,57 @@
+package fr.amu.univ.miage.m1.glq.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Statut d'un emprunt et transitions autorisées.
+ *
+ *   ACTIVE  -> OVERDUE, RETURNED, LOST
+ *   OVERDUE -> RETURNED, LOST
+ *   LOST    -> RETURNED (exemplaire retrouvé)
+ *   RETURNED : état final
+ */
+public enum LoanStatus {
+    ACTIVE,
+    OVERDUE,
+    RETURNED,
+    LOST;
+
+    private Set<LoanStatus> next;
+
+    static {
+        ACTIVE.next = EnumSet.of(OVERDUE, RETURNED, LOST);
+        OVERDUE.next = EnumSet.of(RETURNED, LOST);
+        LOST.next = EnumSet.of(RETURNED);
+        RETURNED.next = EnumSet.noneOf(LoanStatus.class);
+    }
+
+    /**
+     * Indique si l'emprunt peut passer de ce statut à target
+     * (rester dans le même statut est toujours permis).
+     */
+    public boolean canTransitionTo(LoanStatus target) {
+        return target == this || next.contains(target);
+    }
+
+    /**
+     * Emprunt en cours : l'exemplaire est chez le membre (ACTIVE ou OVERDUE).
+     */
+    public boolean isOpen() {
+        return this == ACTIVE || this == OVERDUE;
+    }
+
+    /**
+     * Statut correspondant au nom ("ACTIVE"...), ou null pour null.
+     */
+    public static LoanStatus parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Statut d'emprunt inconnu : " + name);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.util.Date;
 
 /**
  * Représente une réservation de livre.
+ *
+ * Statut : voir ReservationStatus (getStatus / setStatus en String pour la compatibilité).
  */
 public class Reservation {
     
@@ -12,8 +14,8 @@ public class Reservation {
     private String bookId;
     private Date reservationDate;
     private Date expiryDate;
-    private String status; // "PENDING", "FULFILLED", "CANCELLED", "EXPIRED"
-    private int queuePosition;
+    private ReservationStatus state;
+    private int queuePosition; // Position à la création (la position courante est calculée par la file du livre)
     
     public Reservation() {
     }
@@ -23,7 +25,7 @@ public class Reservation {
         this.memberId = memberId;
         this.bookId = bookId;
         this.reservationDate = new Date();
-        this.status = "PENDING";
+        this.state = ReservationStatus.PENDING;
         // Expiration dans 7 jours
         this.expiryDate = new Date(reservationDate.getTime() + 7L * 24 * 60 * 60 * 1000);
     }
@@ -44,8 +46,24 @@ public class Reservation {
     public Date getExpiryDate() { return expiryDate; }
     public void setExpiryDate(Date expiryDate) { this.expiryDate = expiryDate; }
     
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public ReservationStatus getState() { return state; }
+    
+    /**
+     * Change de statut : seule une réservation PENDING (ou sans statut) peut changer.
+     */
+    public void setState(ReservationStatus state) {
+        if (this.state != null && !this.state.canTransitionTo(state)) {
+            throw new IllegalStateException("Transition interdite pour la réservation " + id + " : "
+                + this.state + " -> " + state);
+        }
+        this.state = state;
+    }
+    
+    // Vue en String du statut (compatibilité)
+    public String getStatus() { return state == null ? null : state.name(); }
+    public void setStatus(String status) { setState(ReservationStatus.parse(status)); }
+    
+    public boolean isPending() { return state == ReservationStatus.PENDING; }
     
     public int getQueuePosition() { return queuePosition; }
     public void setQueuePosition(int queuePosition) { this.queuePosition = queuePosition; }
@@ -0,0 +1,34 @@
+package fr.amu.univ.miage.m1.glq.model;
+
+/**
+ * Statut d'une réservation : seule une réservation PENDING peut changer
+ * de statut (FULFILLED, CANCELLED ou EXPIRED, tous finaux).
+ */
+public enum ReservationStatus {
+    PENDING,
+    FULFILLED,
+    CANCELLED,
+    EXPIRED;
+
+    /**
+     * Indique si la réservation peut passer de ce statut à target
+     * (rester dans le même statut est toujours permis).
+     */
+    public boolean canTransitionTo(ReservationStatus target) {
+        return target == this || this == PENDING;
+    }
+
+    /**
+     * Statut correspondant au nom ("PENDING"...), ou null pour null.
+     */
+    public static ReservationStatus parse(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Statut de réservation inconnu : " + name);
+        }
+    }
+}
@@ -1,12 +1,46 @@
 package fr.amu.univ.miage.m1.glq.service;
 
+import fr.amu.univ.miage.m1.glq.db.cache.WriteBehindStore;
 import fr.amu.univ.miage.m1.glq.model.Book;
 import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.LoanListener;
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
 import fr.amu.univ.miage.m1.glq.model.Member;
 import fr.amu.univ.miage.m1.glq.model.Reservation;
+import fr.amu.univ.miage.m1.glq.model.ReservationStatus;
+import fr.amu.univ.miage.m1.glq.service.catalog.MappedCatalog;
+import fr.amu.univ.miage.m1.glq.service.concurrent.StripedLocks;
+import fr.amu.univ.miage.m1.glq.service.history.ClosedLoanStore;
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import fr.amu.univ.miage.m1.glq.service.index.BookSearchIndex;
+import fr.amu.univ.miage.m1.glq.service.index.DueDateIndex;
+import fr.amu.univ.miage.m1.glq.service.index.IsbnIndex;
+import fr.amu.univ.miage.m1.glq.service.index.MemberLoanIndex;
+import fr.amu.univ.miage.m1.glq.service.index.ReservationQueue;
+import fr.amu.univ.miage.m1.glq.service.index.StatusIndex;
+import fr.amu.univ.miage.m1.glq.service.journal.Deleted;
+import fr.amu.univ.miage.m1.glq.service.journal.EntityKind;
+import fr.amu.univ.miage.m1.glq.service.journal.Journal;
+import fr.amu.univ.miage.m1.glq.service.journal.LibraryState;
+import fr.amu.univ.miage.m1.glq.service.journal.Operation;
+import fr.amu.univ.miage.m1.glq.service.ledger.LoanLedger;
+import fr.amu.univ.miage.m1.glq.service.notification.ConsoleNotifier;
+import fr.amu.univ.miage.m1.glq.service.notification.Notification;
+import fr.amu.univ.miage.m1.glq.service.notification.NotificationDispatcher;
+import fr.amu.univ.miage.m1.glq.service.store.IdMap;
+import fr.amu.univ.miage.m1.glq.service.stats.InventoryCounters;
+import fr.amu.univ.miage.m1.glq.service.stats.InventoryLevel;
+import fr.amu.univ.miage.m1.glq.service.stats.LoanStatistics;
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Gestionnaire principal de la bibliothèque.
@@ -39,22 +73,108 @@ import java.util.Date;
  * - Replace Conditional with Polymorphism
  * - Dependency Injection
  */
+// "try" : les StripedLocks.Guard des try-with-resources ne servent qu'à délimiter la section verrouillée
+@SuppressWarnings("try")
 public class LibraryManager {
     
     // Singleton (anti-pattern dans ce contexte)
-    private static LibraryManager instance;
+    private static final Logger LOG = LogManager.getLogger(LibraryManager.class);
     
-    // Stockage en mémoire (simulation de base de données)
-    private Map<String, Book> books = new HashMap<>();
-    private Map<String, Member> members = new HashMap<>();
-    private Map<String, Loan> loans = new HashMap<>();
-    private Map<String, Reservation> reservations = new HashMap<>();
+    private static volatile LibraryManager instance;
     
-    // Compteurs pour générer les IDs
-    private int bookIdCounter = 1;
-    private int memberIdCounter = 1;
-    private int loanIdCounter = 1;
-    private int reservationIdCounter = 1;
+    // Générateurs d'IDs (B00001, M00001, L00001, R00001)
+    private final PrefixedIdGenerator bookIds = new PrefixedIdGenerator("B");
+    private final PrefixedIdGenerator memberIds = new PrefixedIdGenerator("M");
+    private final PrefixedIdGenerator loanIds = new PrefixedIdGenerator("L");
+    private final PrefixedIdGenerator reservationIds = new PrefixedIdGenerator("R");
+    
+    // Stockage en mémoire (simulation de base de données), par clé numérique de l'identifiant
+    private final IdMap<Book> books = new IdMap<>(bookIds);
+    private final IdMap<Member> members = new IdMap<>(memberIds);
+    private final IdMap<Loan> loans = new IdMap<>(loanIds);
+    private final IdMap<Reservation> reservations = new IdMap<>(reservationIds);
+    
+    // Index secondaires (maintenus par les méthodes CRUD)
+    private final IsbnIndex isbnIndex = new IsbnIndex();
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final MemberLoanIndex memberLoanIndex = new MemberLoanIndex();
+    private final Map<String, ReservationQueue> reservationQueues = new ConcurrentHashMap<>();
+    
+    private final DueDateIndex dueDateIndex = new DueDateIndex();
+    
+    // Registre en colonnes des emprunts : agrégats des rapports
+    private final LoanLedger ledger = new LoanLedger(loanIds, memberIds, bookIds);
+    
+    // Emprunts rendus, archivés hors du tas : loans ne garde que les emprunts en cours
+    private final ClosedLoanStore history = new ClosedLoanStore(loanIds, memberIds, bookIds);
+    // Un emprunt passe de loans à history sous ce verrou : les lectures qui
+    // réunissent les deux le prennent aussi (ni doublon, ni emprunt manqué)
+    private final Object archiveLock = new Object();
+    
+    // Emprunts et réservations partitionnés par statut (vues directes, sans parcours)
+    private final StatusIndex<LoanStatus, Loan> loansByStatus = new StatusIndex<>(LoanStatus.class);
+    private final StatusIndex<ReservationStatus, Reservation> reservationsByStatus =
+        new StatusIndex<>(ReservationStatus.class);
+    
+    // Statistiques des emprunts pour generateLoanReport
+    // (taille des classements : library.stats.topk, mode approché : library.stats.approximate)
+    private final LoanStatistics loanStats = new LoanStatistics(
+        Integer.getInteger("library.stats.topk", LoanStatistics.DEFAULT_TOP_K),
+        Boolean.getBoolean("library.stats.approximate"));
+    
+    // Observateur commun à tous les emprunts : garde index et statistiques à jour
+    // même quand un emprunt est modifié directement par ses setters
+    private final LoanListener loanListener = new LoanListener() {
+        @Override
+        public void onDueDateChanged(Loan loan, Date oldDueDate) {
+            dueDateIndex.move(loan, oldDueDate);
+            ledger.put(loan);
+            loanChanged(loan);
+        }
+        
+        @Override
+        public void onStatusChanged(Loan loan, LoanStatus oldStatus) {
+            loansByStatus.move(loan, oldStatus, loan.getState());
+            ledger.put(loan);
+            loanStats.statusChanged(oldStatus, loan.getState());
+            loanChanged(loan);
+        }
+        
+        @Override
+        public void onPenaltyChanged(Loan loan, double oldPenalty) {
+            loanStats.penaltyChanged(oldPenalty, loan.getPenaltyAmount());
+            ledger.put(loan);
+            loanChanged(loan);
+        }
+    };
+    
+    // Compteurs d'inventaire par catégorie pour generateInventoryReport
+    private final InventoryCounters inventory = new InventoryCounters();
+    
+    // Concurrence :
+    // - un emprunt et les listes de l'index membre sont modifiés sous le verrou du membre ;
+    // - la file de réservation d'un livre est protégée par le verrou du livre ;
+    // - les exemplaires disponibles sont pris et rendus par CAS sur le livre, via l'inventaire
+    //   (verrou interne en lecture partagé, toujours pris en dernier) ;
+    // - le catalogue (index ISBN et plein texte) est protégé par un verrou lecture/écriture.
+    private final StripedLocks entityLocks = new StripedLocks();
+    private final ReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    
+    // Notifications envoyées en arrière-plan, par lots
+    private final NotificationDispatcher notifications = new NotificationDispatcher(new ConsoleNotifier());
+    
+    // Écriture en base des entités modifiées (library.persistence, mémoire seule par défaut)
+    private volatile WriteBehindStore persistence = WriteBehindStore.fromSystemProperties();
+    // Écritures du thread qui tient des verrous d'entité, signalées après déverrouillage (voir deferWrites)
+    private final ThreadLocal<PendingWrites> pendingWrites = new ThreadLocal<>();
+    
+    // Journal des opérations et instantanés (library.journal.dir, inactif par défaut) :
+    // append() sous les verrous de l'opération, commit() une fois les verrous rendus
+    private final Journal journal = Journal.fromSystemProperties();
+    
+    // Catalogue projeté en mémoire (library.catalog.file) : livres matérialisés à la demande,
+    // null quand tout le catalogue est en mémoire
+    private volatile MappedCatalog catalog;
     
     // Configuration en dur (devrait être externalisée)
     private static final double PENALTY_RATE_PER_DAY = 0.50;
@@ -63,25 +183,105 @@ public class LibraryManager {
     private static final int TEACHER_LOAN_DURATION = 30;
     private static final int DEFAULT_LOAN_DURATION = 21;
     
+    /**
+     * Mode de recherche : index inversé, ou parcours séquentiel (référence pour vérification).
+     */
+    public enum SearchMode { INDEXED, LINEAR_SCAN }
+    
+    private volatile SearchMode searchMode = SearchMode.INDEXED;
+    
     // Constructeur privé pour le singleton
     private LibraryManager() {
-        // Initialisation avec quelques données de test
-        initTestData();
+        LibraryState recovered = journal.takeRecoveredState();
+        if (recovered != null) {
+            // Redémarrage : dernier instantané puis fin du journal
+            restore(recovered);
+        } else if (openCatalog()) {
+            LOG.info("Catalogue projeté : {} livres", catalog.size());
+        } else {
+            // Initialisation avec quelques données de test
+            initTestData();
+        }
+        journal.setSnapshotSource(() -> {
+            loadWholeCatalog();
+            return new LibraryState(books.values(), members.values(), streamedLoans(), reservations.values());
+        });
+        if (catalog != null && journal.isEnabled()) {
+            // Le journal ne connaît pas le catalogue : un premier instantané le recopie
+            Thread.ofVirtual().name("catalog-checkpoint").start(journal::checkpoint);
+        }
     }
     
-    // Singleton getInstance
+    // Singleton getInstance (double-checked locking)
     public static LibraryManager getInstance() {
-        if (instance == null) {
-            instance = new LibraryManager();
+        LibraryManager result = instance;
+        if (result == null) {
+            synchronized (LibraryManager.class) {
+                result = instance;
+                if (result == null) {
+                    result = new LibraryManager();
+                    instance = result;
+                }
+            }
         }
-        return instance;
+        return result;
     }
     
     // Pour les tests : reset l'instance
-    public static void resetInstance() {
+    public static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.shutdown();
+        }
         instance = null;
     }
     
+    /**
+     * Arrête les traitements d'arrière-plan (envoie les notifications en attente,
+     * écrit en base les modifications en attente).
+     */
+    public void shutdown() {
+        notifications.close();
+        persistence.close();
+        journal.close();
+    }
+    
+    /**
+     * Journal des opérations : LSN, fsync, instantanés.
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+    
+    /**
+     * Écrit un instantané de l'état et supprime le journal qu'il remplace
+     * (sans effet si le journal est inactif).
+     */
+    public boolean checkpoint() {
+        return journal.checkpoint();
+    }
+    
+    /**
+     * Couche d'écriture en base : modes, flush, compteurs.
+     */
+    public WriteBehindStore getPersistence() {
+        return persistence;
+    }
+    
+    /**
+     * Change de couche d'écriture ; l'ancienne est vidée et fermée, et tout
+     * le contenu actuel est signalé à la nouvelle.
+     */
+    public void setPersistence(WriteBehindStore store) {
+        WriteBehindStore previous = persistence;
+        persistence = store;
+        previous.close();
+        loadWholeCatalog();
+        books.values().forEach(store::bookChanged);
+        members.values().forEach(store::memberChanged);
+        streamedLoans().forEach(store::loanChanged);
+        reservations.values().forEach(store::reservationChanged);
+    }
+    
     // ==================== GESTION DES LIVRES ====================
     
     /**
@@ -90,31 +290,75 @@ public class LibraryManager {
      */
     public String addBook(String title, String author, String isbn, int year, 
                           int copies, String category) {
-        String id = "B" + String.format("%05d", bookIdCounter++);
+        String id = bookIds.nextId();
         Book book = new Book(id, title, author, isbn, year, copies, category);
-        books.put(id, book);
-        System.out.println("Livre ajouté : " + book);  // Logging dans le code métier !
+        catalogLock.writeLock().lock();
+        try {
+            books.put(id, book);
+            isbnIndex.add(book);
+            searchIndex.add(book);
+            inventory.bookAdded(book);
+            journal.append(Operation.ADD_BOOK, book);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        journal.commit();
+        persistence.bookChanged(book);
+        LOG.info("Livre ajouté : Book[{}] {} by {}", id, title, author);
         return id;
     }
     
     public Book getBook(String id) {
-        return books.get(id);
+        Book book = books.get(id);
+        if (book == null && catalog != null) {
+            book = loadFromCatalog(id);
+        }
+        return book;
     }
     
+    /**
+     * Recherche un livre par ISBN (tirets ignorés, ISBN-10 et ISBN-13 équivalents).
+     * Les livres déjà en mémoire passent avant ceux du catalogue projeté.
+     */
     public Book getBookByIsbn(String isbn) {
-        for (Book book : books.values()) {
-            if (book.getIsbn() != null && book.getIsbn().equals(isbn)) {
+        catalogLock.readLock().lock();
+        try {
+            Book book = isbnIndex.get(isbn);
+            if (book != null || catalog == null) {
                 return book;
             }
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        return null;
+        return loadFromCatalogByIsbn(isbn);
     }
     
     public List<Book> getAllBooks() {
+        loadWholeCatalog();
         return new ArrayList<>(books.values());
     }
     
+    /**
+     * Recherche les livres dont le titre, l'auteur ou l'ISBN contient la requête.
+     */
     public List<Book> searchBooks(String query) {
+        if (searchMode == SearchMode.LINEAR_SCAN) {
+            return searchBooksLinear(query);
+        }
+        loadWholeCatalog();
+        catalogLock.readLock().lock();
+        try {
+            return searchIndex.search(query);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Recherche par parcours de tout le catalogue (implémentation d'origine).
+     */
+    public List<Book> searchBooksLinear(String query) {
+        loadWholeCatalog();
         List<Book> results = new ArrayList<>();
         String q = query.toLowerCase();
         for (Book book : books.values()) {
@@ -128,13 +372,55 @@ public class LibraryManager {
     }
     
     public void updateBook(Book book) {
-        if (books.containsKey(book.getId())) {
-            books.put(book.getId(), book);
+        boolean updated = false;
+        catalogLock.writeLock().lock();
+        try (StripedLocks.Guard guard = entityLocks.lock(book.getId())) {
+            if (getBook(book.getId()) != null) {
+                books.put(book.getId(), book);
+                isbnIndex.add(book);
+                searchIndex.add(book);
+                inventory.bookUpdated(book);
+                journal.append(Operation.UPDATE_BOOK, book);
+                updated = true;
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        journal.commit();
+        // Écriture en base hors du verrou du catalogue (aller-retour JDBC en WRITE_THROUGH),
+        // sauf si le livre a été supprimé ou remplacé entre-temps
+        if (updated && books.get(book.getId()) == book) {
+            persistence.bookChanged(book);
         }
     }
     
     public void deleteBook(String id) {
-        books.remove(id);
+        boolean deleted = false;
+        catalogLock.writeLock().lock();
+        try (StripedLocks.Guard guard = entityLocks.lock(id)) {
+            // Un livre du catalogue projeté est chargé avant d'être retiré (compteurs d'inventaire)
+            if (getBook(id) != null && books.remove(id) != null) {
+                isbnIndex.remove(id);
+                searchIndex.remove(id);
+                inventory.bookRemoved(id);
+                journal.append(Operation.DELETE_BOOK, new Deleted(EntityKind.BOOK, id));
+                deleted = true;
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+        journal.commit();
+        if (deleted) {
+            persistence.bookDeleted(id);
+        }
+    }
+    
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+    
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
     }
     
     // ==================== GESTION DES MEMBRES ====================
@@ -144,10 +430,13 @@ public class LibraryManager {
      * Problèmes : pas de validation email, logique de quota dupliquée
      */
     public String addMember(String firstName, String lastName, String email, String type) {
-        String id = "M" + String.format("%05d", memberIdCounter++);
+        String id = memberIds.nextId();
         Member member = new Member(id, firstName, lastName, email, type);
         members.put(id, member);
-        System.out.println("Membre ajouté : " + member);  // Logging dans le code métier !
+        journal.append(Operation.ADD_MEMBER, member);
+        journal.commit();
+        persistence.memberChanged(member);
+        LOG.info("Membre ajouté : Member[{}] {} {} ({})", id, firstName, lastName, member.getMemberType());
         return id;
     }
     
@@ -169,13 +458,33 @@ public class LibraryManager {
     }
     
     public void updateMember(Member member) {
-        if (members.containsKey(member.getId())) {
-            members.put(member.getId(), member);
+        boolean updated = false;
+        try (StripedLocks.Guard guard = entityLocks.lock(member.getId())) {
+            if (members.containsKey(member.getId())) {
+                members.put(member.getId(), member);
+                journal.append(Operation.UPDATE_MEMBER, member);
+                updated = true;
+            }
+        }
+        journal.commit();
+        // Écriture en base hors du verrou du membre, comme updateBook
+        if (updated && members.get(member.getId()) == member) {
+            persistence.memberChanged(member);
         }
     }
     
     public void deleteMember(String id) {
-        members.remove(id);
+        boolean deleted = false;
+        try (StripedLocks.Guard guard = entityLocks.lock(id)) {
+            if (members.remove(id) != null) {
+                journal.append(Operation.DELETE_MEMBER, new Deleted(EntityKind.MEMBER, id));
+                deleted = true;
+            }
+        }
+        journal.commit();
+        if (deleted) {
+            persistence.memberDeleted(id);
+        }
     }
     
     // ==================== GESTION DES EMPRUNTS ====================
@@ -195,8 +504,36 @@ public class LibraryManager {
      * 7. Création de l'emprunt
      * 8. Mise à jour des compteurs
      * 9. Envoi de notification
+     * 
+     * Thread-safe : seul le membre est verrouillé, l'exemplaire est pris par CAS.
+     * Le livre n'est verrouillé que s'il a des réservations en attente.
      */
     public String createLoan(String memberId, String bookId) {
+        // Livre du catalogue projeté chargé avant les verrous d'entité (ordre : catalogue, puis entités)
+        getBook(bookId);
+        String loanId = null;
+        PendingWrites writes = deferWrites();
+        try {
+            try (StripedLocks.Guard guard = entityLocks.lock(memberId)) {
+                if (!hasPendingReservations(bookId)) {
+                    loanId = createLoanLocked(memberId, bookId, false);
+                }
+            }
+            if (loanId == null) {
+                // Livre réservé : la file de réservation exige aussi le verrou du livre
+                try (StripedLocks.Guard guard = entityLocks.lock(memberId, bookId)) {
+                    loanId = createLoanLocked(memberId, bookId, true);
+                }
+            }
+            journal.commit();
+        } finally {
+            signalWrites(writes);
+        }
+        return loanId;
+    }
+    
+    // Corps de createLoan, appelé avec le verrou du membre (et celui du livre si bookLocked)
+    private String createLoanLocked(String memberId, String bookId, boolean bookLocked) {
         // Récupérer le membre
         Member member = members.get(memberId);
         if (member == null) {
@@ -227,10 +564,10 @@ public class LibraryManager {
         }
         
         // Compter les emprunts actifs du membre
+        List<Loan> openLoans = memberLoanIndex.openLoans(memberId);
         int activeLoans = 0;
-        for (Loan loan : loans.values()) {
-            if (loan.getMemberId().equals(memberId) && 
-                (loan.getStatus().equals("ACTIVE") || loan.getStatus().equals("OVERDUE"))) {
+        for (Loan loan : openLoans) {
+            if (loan.getState().isOpen()) {
                 activeLoans++;
             }
         }
@@ -241,11 +578,17 @@ public class LibraryManager {
         
         // Vérifier si le membre a des pénalités impayées
         double unpaidPenalties = 0;
-        for (Loan loan : loans.values()) {
-            if (loan.getMemberId().equals(memberId) && loan.getPenaltyAmount() > 0) {
+        for (Loan loan : openLoans) {
+            if (loan.getPenaltyAmount() > 0) {
+                unpaidPenalties += loan.getPenaltyAmount();
+            }
+        }
+        for (Loan loan : memberLoanIndex.closedLoans(memberId)) {
+            if (loan.getPenaltyAmount() > 0) {
                 unpaidPenalties += loan.getPenaltyAmount();
             }
         }
+        unpaidPenalties += history.penaltiesOfMember(memberId);
         
         if (unpaidPenalties > 10.0) {
             throw new RuntimeException("Pénalités impayées trop élevées : " + unpaidPenalties + "€");
@@ -274,53 +617,60 @@ public class LibraryManager {
         }
         
         // Vérifier si le membre n'a pas déjà emprunté ce livre
-        for (Loan loan : loans.values()) {
-            if (loan.getMemberId().equals(memberId) && 
-                loan.getBookId().equals(bookId) &&
-                loan.getStatus().equals("ACTIVE")) {
+        for (Loan loan : openLoans) {
+            if (loan.getState() == LoanStatus.ACTIVE && loan.getBookId().equals(bookId)) {
                 throw new RuntimeException("Vous avez déjà emprunté ce livre");
             }
         }
         
-        // Vérifier les réservations
-        List<Reservation> bookReservations = new ArrayList<>();
-        for (Reservation res : reservations.values()) {
-            if (res.getBookId().equals(bookId) && res.getStatus().equals("PENDING")) {
-                bookReservations.add(res);
-            }
+        // Vérifier les réservations (tête de la file du livre)
+        ReservationQueue queue = bookLocked ? reservationQueues.get(bookId) : null;
+        Reservation firstReservation = queue == null ? null : queue.peek();
+        if (firstReservation != null && !firstReservation.getMemberId().equals(memberId)) {
+            throw new RuntimeException("Ce livre est réservé par un autre membre");
         }
         
-        if (!bookReservations.isEmpty()) {
-            // Trier par date
-            bookReservations.sort((r1, r2) -> r1.getReservationDate().compareTo(r2.getReservationDate()));
-            Reservation firstReservation = bookReservations.get(0);
-            
-            if (!firstReservation.getMemberId().equals(memberId)) {
-                throw new RuntimeException("Ce livre est réservé par un autre membre");
-            } else {
-                // Marquer la réservation comme fulfilled
-                firstReservation.setStatus("FULFILLED");
-            }
+        // Prendre un exemplaire (CAS : jamais en dessous de zéro, même en concurrence)
+        if (!inventory.takeCopy(book)) {
+            throw new RuntimeException("Aucun exemplaire disponible. Voulez-vous réserver ?");
+        }
+        
+        if (firstReservation != null) {
+            // Marquer la réservation comme fulfilled
+            firstReservation.setState(ReservationStatus.FULFILLED);
+            reservationsByStatus.move(firstReservation, ReservationStatus.PENDING, ReservationStatus.FULFILLED);
+            queue.poll();
+            reservationChanged(firstReservation);
         }
         
         // Créer l'emprunt
-        String loanId = "L" + String.format("%05d", loanIdCounter++);
+        String loanId = loanIds.nextId();
         Loan loan = new Loan(loanId, member, book);
         loans.put(loanId, loan);
-        
-        // Mettre à jour le stock
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
+        memberLoanIndex.addOpen(loan);
+        dueDateIndex.add(loan);
+        ledger.put(loan);
+        loansByStatus.add(loan, loan.getState());
+        loanStats.loanCreated(bookId, loan.getState(), loan.getPenaltyAmount());
+        loan.setListener(loanListener);
         
         // Mettre à jour les compteurs du membre
         member.setCurrentLoansCount(member.getCurrentLoansCount() + 1);
         member.setTotalLoansCount(member.getTotalLoansCount() + 1);
         
+        // Emprunt, exemplaires du livre et compteurs du membre : écrits une fois les verrous rendus
+        loanChanged(loan);
+        bookChanged(book);
+        memberChanged(member);
+        // Le livre n'est pas journalisé : ses exemplaires disponibles sont recalculés au redémarrage
+        journal.append(Operation.CREATE_LOAN, loan, member, firstReservation);
+        
         // Envoyer une notification (simulation)
         sendNotification(member.getEmail(), "Emprunt confirmé", 
             "Vous avez emprunté : " + book.getTitle() + 
             ". Date de retour : " + loan.getDueDate());
         
-        System.out.println("Emprunt créé : " + loan);
+        LOG.info("Emprunt créé : Loan[{}] {} -> {}", loanId, bookId, memberId);
         
         return loanId;
     }
@@ -331,12 +681,29 @@ public class LibraryManager {
      * ⚠️ MÉTHODE AVEC BEAUCOUP DE RESPONSABILITÉS ⚠️
      */
     public void returnLoan(String loanId) {
-        Loan loan = loans.get(loanId);
+        Loan loan = getLoan(loanId);
         if (loan == null) {
             throw new RuntimeException("Emprunt non trouvé : " + loanId);
         }
-        
-        if (loan.getStatus().equals("RETURNED")) {
+        PendingWrites writes = deferWrites();
+        try {
+            try (StripedLocks.Guard guard = entityLocks.lock(loan.getMemberId())) {
+                returnLoanLocked(loan);
+            }
+            journal.commit();
+            
+            // Vérifier s'il y a des réservations en attente (file protégée par le verrou du livre)
+            try (StripedLocks.Guard guard = entityLocks.lock(loan.getBookId())) {
+                notifyNextReservation(loan.getBookId());
+            }
+        } finally {
+            signalWrites(writes);
+        }
+    }
+    
+    // Corps de returnLoan, appelé avec le verrou du membre
+    private void returnLoanLocked(Loan loan) {
+        if (loan.getState() == LoanStatus.RETURNED) {
             throw new RuntimeException("Ce livre a déjà été retourné");
         }
         
@@ -349,6 +716,7 @@ public class LibraryManager {
             // Incrémenter le compteur de retards
             Member member = loan.getMember();
             member.setLateReturnsCount(member.getLateReturnsCount() + 1);
+            loanStats.lateReturn(member.getId());
             
             // Notification de pénalité
             sendNotification(member.getEmail(), "Retour en retard",
@@ -357,21 +725,25 @@ public class LibraryManager {
         }
         
         // Mettre à jour le statut
-        loan.setStatus("RETURNED");
+        dueDateIndex.remove(loan);
+        loan.setState(LoanStatus.RETURNED);
         loan.setReturnDate(new Date());
+        memberLoanIndex.close(loan);
         
-        // Remettre le livre en stock
-        Book book = loan.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
+        // Remettre le livre en stock (CAS)
+        inventory.returnCopy(loan.getBook());
         
         // Mettre à jour le compteur du membre
         Member member = loan.getMember();
         member.setCurrentLoansCount(member.getCurrentLoansCount() - 1);
         
-        // Vérifier s'il y a des réservations en attente
-        notifyNextReservation(book.getId());
+        loanChanged(loan);
+        bookChanged(loan.getBook());
+        memberChanged(member);
+        journal.append(Operation.RETURN_LOAN, loan, member);
+        archive(loan);
         
-        System.out.println("Retour effectué : " + loan);
+        LOG.info("Retour effectué : Loan[{}] {} -> {}", loan.getId(), loan.getBookId(), loan.getMemberId());
     }
     
     /**
@@ -410,12 +782,24 @@ public class LibraryManager {
      * Renouvelle un emprunt.
      */
     public void renewLoan(String loanId) {
-        Loan loan = loans.get(loanId);
+        Loan loan = getLoan(loanId);
         if (loan == null) {
             throw new RuntimeException("Emprunt non trouvé : " + loanId);
         }
-        
-        if (!loan.getStatus().equals("ACTIVE")) {
+        PendingWrites writes = deferWrites();
+        try {
+            try (StripedLocks.Guard guard = entityLocks.lock(loan.getMemberId(), loan.getBookId())) {
+                renewLoanLocked(loan);
+            }
+            journal.commit();
+        } finally {
+            signalWrites(writes);
+        }
+    }
+    
+    // Corps de renewLoan, appelé avec les verrous du membre et du livre
+    private void renewLoanLocked(Loan loan) {
+        if (loan.getState() != LoanStatus.ACTIVE) {
             throw new RuntimeException("Seuls les emprunts actifs peuvent être renouvelés");
         }
         
@@ -428,62 +812,207 @@ public class LibraryManager {
         }
         
         // Vérifier s'il y a des réservations
-        for (Reservation res : reservations.values()) {
-            if (res.getBookId().equals(loan.getBookId()) && 
-                res.getStatus().equals("PENDING")) {
-                throw new RuntimeException("Renouvellement impossible : livre réservé");
-            }
+        if (isReserved(loan.getBookId())) {
+            throw new RuntimeException("Renouvellement impossible : livre réservé");
         }
         
         loan.renew();
+        journal.append(Operation.RENEW_LOAN, loan);
         
         sendNotification(loan.getMember().getEmail(), "Emprunt renouvelé",
             "Votre emprunt a été renouvelé. Nouvelle date de retour : " + loan.getDueDate());
         
-        System.out.println("Emprunt renouvelé : " + loan);
+        LOG.info("Emprunt renouvelé : Loan[{}] (renouvellement {})", loan.getId(), loan.getRenewalCount());
     }
     
+    /**
+     * Emprunt par identifiant. Un emprunt archivé (rendu) est une vue en
+     * lecture seule : copie détachée de l'historique, dont les modifications
+     * ne sont ni enregistrées ni journalisées.
+     */
     public Loan getLoan(String id) {
-        return loans.get(id);
+        // Un emprunt est ajouté à l'historique avant d'être retiré de loans :
+        // lu dans cet ordre, il est trouvé même pendant son archivage
+        Loan loan = loans.get(id);
+        if (loan == null) {
+            ClosedLoanStore.View archived = history.find(id);
+            loan = archived == null ? null : fromHistory(archived);
+        }
+        return loan;
     }
     
+    /**
+     * Tous les emprunts : en mémoire, puis archivés (vues en lecture seule,
+     * voir getLoan). Lus sous le verrou d'archivage : chaque emprunt y
+     * figure une fois.
+     */
     public List<Loan> getAllLoans() {
-        return new ArrayList<>(loans.values());
+        synchronized (archiveLock) {
+            List<Loan> all = new ArrayList<>(loans.values());
+            history.forEach(archived -> all.add(fromHistory(archived)));
+            return all;
+        }
     }
     
+    /**
+     * Emprunts du membre : en cours, puis rendus du plus récent au plus
+     * ancien (vues en lecture seule, voir getLoan). Lus sous le verrou du
+     * membre, qui couvre aussi l'archivage de ses emprunts.
+     */
     public List<Loan> getMemberLoans(String memberId) {
-        List<Loan> memberLoans = new ArrayList<>();
-        for (Loan loan : loans.values()) {
-            if (loan.getMemberId().equals(memberId)) {
-                memberLoans.add(loan);
-            }
+        try (StripedLocks.Guard guard = entityLocks.lock(memberId)) {
+            List<Loan> memberLoans = memberLoanIndex.allLoans(memberId);
+            history.forEachOfMember(memberId, archived -> memberLoans.add(fromHistory(archived)));
+            return memberLoans;
         }
-        return memberLoans;
     }
     
+    /**
+     * Emprunts en cours (ACTIVE ou OVERDUE), lus dans les partitions par statut.
+     */
     public List<Loan> getActiveLoans() {
-        List<Loan> activeLoans = new ArrayList<>();
-        for (Loan loan : loans.values()) {
-            if (loan.getStatus().equals("ACTIVE") || loan.getStatus().equals("OVERDUE")) {
-                activeLoans.add(loan);
-            }
-        }
+        List<Loan> activeLoans = new ArrayList<>(
+            loansByStatus.count(LoanStatus.ACTIVE) + loansByStatus.count(LoanStatus.OVERDUE));
+        activeLoans.addAll(loansByStatus.view(LoanStatus.ACTIVE));
+        activeLoans.addAll(loansByStatus.view(LoanStatus.OVERDUE));
         return activeLoans;
     }
     
+    /**
+     * Emprunts ayant ce statut ; pour un statut clos, les emprunts archivés
+     * sont des vues en lecture seule (voir getLoan).
+     */
+    public List<Loan> getLoans(LoanStatus status) {
+        if (status.isOpen()) {
+            return new ArrayList<>(loansByStatus.view(status));
+        }
+        synchronized (archiveLock) {
+            List<Loan> result = new ArrayList<>(loansByStatus.view(status));
+            history.forEach(archived -> {
+                if (archived.getStatus() == status) {
+                    result.add(fromHistory(archived));
+                }
+            });
+            return result;
+        }
+    }
+    
+    /**
+     * Emprunts en retard (seuls les jours d'échéance passés sont parcourus).
+     */
     public List<Loan> getOverdueLoans() {
         List<Loan> overdueLoans = new ArrayList<>();
-        for (Loan loan : loans.values()) {
-            if (loan.isOverdue()) {
+        for (Loan loan : dueDateIndex.dueBefore(System.currentTimeMillis())) {
+            if (loan.getState().isOpen()) {
                 overdueLoans.add(loan);
             }
         }
         return overdueLoans;
     }
     
+    /**
+     * Registre en colonnes des emprunts, pour les statistiques ad hoc.
+     */
+    public LoanLedger getLedger() {
+        return ledger;
+    }
+    
+    /**
+     * Historique hors du tas des emprunts rendus (vues par membre, par livre).
+     */
+    public ClosedLoanStore getHistory() {
+        return history;
+    }
+    
+    /**
+     * Archive un emprunt clos hors du tas et le retire des structures en
+     * mémoire (table, index membre, partition par statut) ; sa ligne reste
+     * dans le registre pour les agrégats. Les emprunts non archivables (voir
+     * ClosedLoanStore.accepts) restent en mémoire.
+     */
+    private void archive(Loan loan) {
+        synchronized (archiveLock) {
+            if (!history.append(loan)) {
+                return;
+            }
+            loan.setListener(null);
+            loans.remove(loan.getId());
+            memberLoanIndex.remove(loan);
+            loansByStatus.remove(loan, loan.getState());
+        }
+    }
+    
+    /**
+     * Tous les emprunts pour les instantanés et setPersistence, sans liste
+     * intermédiaire : ceux en mémoire, puis ceux de l'historique, recréés un
+     * à un au fil du parcours. Parcours sans verrou : un emprunt archivé
+     * pendant le parcours peut être vu deux fois (images identiques), jamais
+     * manqué, puisqu'il entre dans l'historique avant de quitter loans et que
+     * l'historique est borné au moment où son parcours commence.
+     */
+    private Collection<Loan> streamedLoans() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Loan> iterator() {
+                Iterator<Loan> inMemory = loans.values().iterator();
+                return new Iterator<>() {
+                    private Iterator<ClosedLoanStore.View> archived;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (inMemory.hasNext()) {
+                            return true;
+                        }
+                        if (archived == null) {
+                            archived = history.views();
+                        }
+                        return archived.hasNext();
+                    }
+
+                    @Override
+                    public Loan next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return archived == null ? inMemory.next() : fromHistory(archived.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return loans.size() + history.size();
+            }
+        };
+    }
+    
+    // Copie d'un emprunt archivé, reliée au membre et au livre en mémoire
+    private Loan fromHistory(ClosedLoanStore.View archived) {
+        Loan loan = archived.toLoan();
+        loan.setMember(members.get(loan.getMemberId()));
+        loan.setBook(books.get(loan.getBookId()));
+        return loan;
+    }
+    
     // ==================== GESTION DES RÉSERVATIONS ====================
     
     public String createReservation(String memberId, String bookId) {
+        getBook(bookId);
+        String id;
+        PendingWrites writes = deferWrites();
+        try {
+            try (StripedLocks.Guard guard = entityLocks.lock(memberId, bookId)) {
+                id = createReservationLocked(memberId, bookId);
+            }
+            journal.commit();
+        } finally {
+            signalWrites(writes);
+        }
+        return id;
+    }
+    
+    // Corps de createReservation, appelé avec les verrous du membre et du livre
+    private String createReservationLocked(String memberId, String bookId) {
         Member member = members.get(memberId);
         if (member == null) {
             throw new RuntimeException("Membre non trouvé");
@@ -495,32 +1024,27 @@ public class LibraryManager {
         }
         
         // Vérifier si le membre n'a pas déjà réservé ce livre
-        for (Reservation res : reservations.values()) {
-            if (res.getMemberId().equals(memberId) && 
-                res.getBookId().equals(bookId) &&
-                res.getStatus().equals("PENDING")) {
-                throw new RuntimeException("Vous avez déjà une réservation pour ce livre");
-            }
+        ReservationQueue queue = reservationQueues.computeIfAbsent(bookId, k -> new ReservationQueue());
+        if (queue.containsMember(memberId)) {
+            throw new RuntimeException("Vous avez déjà une réservation pour ce livre");
         }
         
-        String id = "R" + String.format("%05d", reservationIdCounter++);
+        String id = reservationIds.nextId();
         Reservation reservation = new Reservation(id, memberId, bookId);
         
-        // Calculer la position dans la file
-        int position = 1;
-        for (Reservation res : reservations.values()) {
-            if (res.getBookId().equals(bookId) && res.getStatus().equals("PENDING")) {
-                position++;
-            }
-        }
-        reservation.setQueuePosition(position);
-        
         reservations.put(id, reservation);
+        reservationsByStatus.add(reservation, reservation.getState());
+        
+        // Position dans la file (mémorisée à la création, recalculée à la demande ensuite)
+        int position = queue.add(reservation);
+        reservation.setQueuePosition(position);
+        reservationChanged(reservation);
+        journal.append(Operation.CREATE_RESERVATION, reservation);
         
         sendNotification(member.getEmail(), "Réservation confirmée",
             "Vous avez réservé : " + book.getTitle() + ". Position dans la file : " + position);
         
-        System.out.println("Réservation créée : " + reservation.getId() + " (position " + position + ")");
+        LOG.info("Réservation créée : {} (position {})", id, position);
         
         return id;
     }
@@ -531,32 +1055,65 @@ public class LibraryManager {
             throw new RuntimeException("Réservation non trouvée");
         }
         
-        reservation.setStatus("CANCELLED");
-        
-        // Mettre à jour les positions
-        String bookId = reservation.getBookId();
-        int cancelledPosition = reservation.getQueuePosition();
-        
-        for (Reservation res : reservations.values()) {
-            if (res.getBookId().equals(bookId) && 
-                res.getStatus().equals("PENDING") &&
-                res.getQueuePosition() > cancelledPosition) {
-                res.setQueuePosition(res.getQueuePosition() - 1);
+        try (StripedLocks.Guard guard = entityLocks.lock(reservation.getMemberId(), reservation.getBookId())) {
+            // Transition vérifiée : une réservation déjà servie ou expirée ne s'annule pas
+            ReservationStatus oldStatus = reservation.getState();
+            reservation.setState(ReservationStatus.CANCELLED);
+            reservationsByStatus.move(reservation, oldStatus, ReservationStatus.CANCELLED);
+            journal.append(Operation.CANCEL_RESERVATION, reservation);
+            
+            // Les positions des suivants sont dérivées de la file : rien à renuméroter
+            ReservationQueue queue = reservationQueues.get(reservation.getBookId());
+            if (queue != null) {
+                queue.remove(reservation);
             }
         }
+        journal.commit();
+        persistence.reservationChanged(reservation);
     }
     
-    private void notifyNextReservation(String bookId) {
-        Reservation nextReservation = null;
-        
-        for (Reservation res : reservations.values()) {
-            if (res.getBookId().equals(bookId) && 
-                res.getStatus().equals("PENDING") &&
-                res.getQueuePosition() == 1) {
-                nextReservation = res;
-                break;
-            }
+    public Reservation getReservation(String id) {
+        return reservations.get(id);
+    }
+    
+    /**
+     * Réservations ayant ce statut.
+     */
+    public List<Reservation> getReservations(ReservationStatus status) {
+        return new ArrayList<>(reservationsByStatus.view(status));
+    }
+    
+    /**
+     * Position actuelle d'une réservation dans la file de son livre
+     * (1 = prochain servi), ou 0 si elle n'est plus en attente.
+     */
+    public int getReservationQueuePosition(String reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            throw new RuntimeException("Réservation non trouvée");
         }
+        try (StripedLocks.Guard guard = entityLocks.lock(reservation.getBookId())) {
+            ReservationQueue queue = reservationQueues.get(reservation.getBookId());
+            return queue == null ? 0 : queue.positionOf(reservationId);
+        }
+    }
+    
+    /**
+     * Indique si le livre a au moins une réservation en attente.
+     */
+    public boolean isReserved(String bookId) {
+        return hasPendingReservations(bookId);
+    }
+    
+    // Lecture sans verrou : la tête de file est volatile
+    private boolean hasPendingReservations(String bookId) {
+        ReservationQueue queue = reservationQueues.get(bookId);
+        return queue != null && !queue.isEmpty();
+    }
+    
+    private void notifyNextReservation(String bookId) {
+        ReservationQueue queue = reservationQueues.get(bookId);
+        Reservation nextReservation = queue == null ? null : queue.peek();
         
         if (nextReservation != null) {
             Member member = members.get(nextReservation.getMemberId());
@@ -568,41 +1125,137 @@ public class LibraryManager {
         }
     }
     
+    // ==================== ÉCRITURES DIFFÉRÉES ====================
+    
+    /**
+     * Entités modifiées et notifications émises pendant une opération qui
+     * prend des verrous d'entité. Elles sont signalées à la couche d'écriture
+     * et au dispatcher une fois les verrous rendus, à côté de journal.commit() :
+     * en WRITE_THROUGH, chaque signalement est un aller-retour JDBC, et en
+     * politique BLOCK un dépôt peut attendre une place dans la file ; l'un
+     * comme l'autre bloquerait les autres membres de la même bande.
+     */
+    private final class PendingWrites {
+        // Ensembles par identité : une entité modifiée plusieurs fois n'est écrite qu'une fois
+        private final Set<Loan> loanChanges = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Book> bookChanges = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Member> memberChanges = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Reservation> reservationChanges = Collections.newSetFromMap(new IdentityHashMap<>());
+        // Dans l'ordre d'émission
+        private final List<Notification> messages = new ArrayList<>();
+        
+        // Un livre ou un membre supprimé (ou remplacé) entre-temps n'est pas réécrit en base
+        void signal() {
+            try {
+                WriteBehindStore store = persistence;
+                loanChanges.forEach(store::loanChanged);
+                for (Book book : bookChanges) {
+                    if (books.get(book.getId()) == book) {
+                        store.bookChanged(book);
+                    }
+                }
+                for (Member member : memberChanges) {
+                    if (members.get(member.getId()) == member) {
+                        store.memberChanged(member);
+                    }
+                }
+                reservationChanges.forEach(store::reservationChanged);
+            } finally {
+                messages.forEach(notifications::submit);
+            }
+        }
+    }
+    
+    // Ouvre la collecte des écritures du thread courant ; à refermer par signalWrites dans un finally
+    private PendingWrites deferWrites() {
+        PendingWrites writes = new PendingWrites();
+        pendingWrites.set(writes);
+        return writes;
+    }
+    
+    private void signalWrites(PendingWrites writes) {
+        pendingWrites.remove();
+        writes.signal();
+    }
+    
+    private void loanChanged(Loan loan) {
+        PendingWrites writes = pendingWrites.get();
+        if (writes != null) {
+            writes.loanChanges.add(loan);
+        } else {
+            persistence.loanChanged(loan);
+        }
+    }
+    
+    private void bookChanged(Book book) {
+        PendingWrites writes = pendingWrites.get();
+        if (writes != null) {
+            writes.bookChanges.add(book);
+        } else if (books.get(book.getId()) == book) {
+            persistence.bookChanged(book);
+        }
+    }
+    
+    private void memberChanged(Member member) {
+        PendingWrites writes = pendingWrites.get();
+        if (writes != null) {
+            writes.memberChanges.add(member);
+        } else if (members.get(member.getId()) == member) {
+            persistence.memberChanged(member);
+        }
+    }
+    
+    private void reservationChanged(Reservation reservation) {
+        PendingWrites writes = pendingWrites.get();
+        if (writes != null) {
+            writes.reservationChanges.add(reservation);
+        } else {
+            persistence.reservationChanged(reservation);
+        }
+    }
+    
     // ==================== NOTIFICATIONS ====================
     
     /**
-     * Envoie une notification (simulation).
-     * Problème : couplage fort, pas d'abstraction
+     * Envoie une notification : le message est mis en file et envoyé
+     * en arrière-plan par le dispatcher (voir getNotificationDispatcher).
+     * Sous des verrous d'entité, le dépôt attend leur libération (voir PendingWrites).
      */
     private void sendNotification(String email, String subject, String body) {
-        // Simulation d'envoi d'email
-        System.out.println("=== EMAIL ===");
-        System.out.println("To: " + email);
-        System.out.println("Subject: " + subject);
-        System.out.println("Body: " + body);
-        System.out.println("=============");
+        PendingWrites writes = pendingWrites.get();
+        if (writes != null) {
+            writes.messages.add(new Notification(email, subject, body));
+        } else {
+            notifications.submit(email, subject, body);
+        }
+    }
+    
+    /**
+     * Dispatcher des notifications : choix du Notifier, politique de
+     * débordement, compteurs d'envoi et flush.
+     */
+    public NotificationDispatcher getNotificationDispatcher() {
+        return notifications;
     }
     
     /**
      * Envoie les rappels pour les emprunts qui arrivent à échéance.
      */
     public void sendDueReminders() {
-        Date today = new Date();
+        long now = System.currentTimeMillis();
         long threeDaysMs = 3L * 24 * 60 * 60 * 1000;
         
-        for (Loan loan : loans.values()) {
-            if (loan.getStatus().equals("ACTIVE")) {
-                long timeUntilDue = loan.getDueDate().getTime() - today.getTime();
+        // Seuls les emprunts dont l'échéance est dans ]maintenant, maintenant + 3 jours]
+        for (Loan loan : dueDateIndex.dueBetween(now, now + threeDaysMs)) {
+            if (loan.getState() == LoanStatus.ACTIVE) {
+                long timeUntilDue = loan.getDueDate().getTime() - now;
+                int daysLeft = (int) (timeUntilDue / (24 * 60 * 60 * 1000));
+                Member member = loan.getMember();
+                Book book = loan.getBook();
                 
-                if (timeUntilDue > 0 && timeUntilDue <= threeDaysMs) {
-                    int daysLeft = (int) (timeUntilDue / (24 * 60 * 60 * 1000));
-                    Member member = loan.getMember();
-                    Book book = loan.getBook();
-                    
-                    sendNotification(member.getEmail(), "Rappel : retour proche",
-                        "Votre emprunt de '" + book.getTitle() + "' doit être rendu dans " + 
-                        daysLeft + " jour(s).");
-                }
+                sendNotification(member.getEmail(), "Rappel : retour proche",
+                    "Votre emprunt de '" + book.getTitle() + "' doit être rendu dans " + 
+                    daysLeft + " jour(s).");
             }
         }
     }
@@ -611,11 +1264,21 @@ public class LibraryManager {
      * Envoie les notifications de retard.
      */
     public void sendOverdueNotifications() {
-        for (Loan loan : loans.values()) {
-            if (loan.isOverdue() && loan.getStatus().equals("ACTIVE")) {
-                // Marquer comme en retard
-                loan.setStatus("OVERDUE");
-                
+        for (Loan loan : dueDateIndex.dueBefore(System.currentTimeMillis())) {
+            boolean markedOverdue;
+            PendingWrites writes = deferWrites();
+            try (StripedLocks.Guard guard = entityLocks.lock(loan.getMemberId(), loan.getBookId())) {
+                markedOverdue = loan.getState() == LoanStatus.ACTIVE;
+                if (markedOverdue) {
+                    // Marquer comme en retard (l'emprunt reste "en cours" dans l'index membre)
+                    loan.setState(LoanStatus.OVERDUE);
+                    journal.append(Operation.UPDATE_LOAN, loan);
+                }
+            } finally {
+                signalWrites(writes);
+            }
+            
+            if (markedOverdue) {
                 Member member = loan.getMember();
                 Book book = loan.getBook();
                 int daysOverdue = loan.getDaysOverdue();
@@ -627,6 +1290,7 @@ public class LibraryManager {
                     "Merci de retourner le livre au plus vite.");
             }
         }
+        journal.commit();
     }
     
     // ==================== RAPPORTS ====================
@@ -644,23 +1308,12 @@ public class LibraryManager {
         report.append("========== RAPPORT DES EMPRUNTS ==========\n");
         report.append("Date : ").append(new Date()).append("\n\n");
         
-        // Statistiques globales
-        int totalLoans = loans.size();
-        int activeLoans = 0;
-        int overdueLoans = 0;
-        int returnedLoans = 0;
-        double totalPenalties = 0;
-        
-        for (Loan loan : loans.values()) {
-            if (loan.getStatus().equals("ACTIVE")) {
-                activeLoans++;
-            } else if (loan.getStatus().equals("OVERDUE")) {
-                overdueLoans++;
-            } else if (loan.getStatus().equals("RETURNED")) {
-                returnedLoans++;
-            }
-            totalPenalties += loan.getPenaltyAmount();
-        }
+        // Statistiques globales (maintenues à chaque transition d'emprunt)
+        long totalLoans = loanStats.getTotalLoans();
+        long activeLoans = loanStats.countByStatus(LoanStatus.ACTIVE);
+        long overdueLoans = loanStats.countByStatus(LoanStatus.OVERDUE);
+        long returnedLoans = loanStats.countByStatus(LoanStatus.RETURNED);
+        double totalPenalties = loanStats.getTotalPenalties();
         
         report.append("STATISTIQUES GLOBALES\n");
         report.append("---------------------\n");
@@ -670,21 +1323,11 @@ public class LibraryManager {
         report.append("Emprunts retournés : ").append(returnedLoans).append("\n");
         report.append("Total pénalités : ").append(totalPenalties).append("€\n\n");
         
-        // Top 5 des livres les plus empruntés
-        Map<String, Integer> bookLoanCounts = new HashMap<>();
-        for (Loan loan : loans.values()) {
-            String bookId = loan.getBookId();
-            bookLoanCounts.put(bookId, bookLoanCounts.getOrDefault(bookId, 0) + 1);
-        }
-        
-        List<Map.Entry<String, Integer>> sortedBooks = new ArrayList<>(bookLoanCounts.entrySet());
-        sortedBooks.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
-        
-        report.append("TOP 5 LIVRES LES PLUS EMPRUNTÉS\n");
+        // Top K des livres les plus empruntés (classement tenu à jour à chaque emprunt)
+        report.append("TOP ").append(loanStats.getTopK()).append(" LIVRES LES PLUS EMPRUNTÉS\n");
         report.append("-------------------------------\n");
         int count = 0;
-        for (Map.Entry<String, Integer> entry : sortedBooks) {
-            if (count >= 5) break;
+        for (Map.Entry<String, Long> entry : loanStats.topBooks()) {
             Book book = books.get(entry.getKey());
             if (book != null) {
                 report.append(count + 1).append(". ")
@@ -696,23 +1339,16 @@ public class LibraryManager {
         
         report.append("\n");
         
-        // Membres avec le plus de retards
-        List<Member> membersWithLateReturns = new ArrayList<>();
-        for (Member member : members.values()) {
-            if (member.getLateReturnsCount() > 0) {
-                membersWithLateReturns.add(member);
-            }
-        }
-        membersWithLateReturns.sort((m1, m2) -> 
-            Integer.compare(m2.getLateReturnsCount(), m1.getLateReturnsCount()));
-        
+        // Membres avec le plus de retours en retard (classement tenu à jour par returnLoan)
         report.append("MEMBRES AVEC RETARDS\n");
         report.append("--------------------\n");
-        for (int i = 0; i < Math.min(5, membersWithLateReturns.size()); i++) {
-            Member m = membersWithLateReturns.get(i);
-            report.append(m.getFullName())
-                  .append(" : ").append(m.getLateReturnsCount())
-                  .append(" retard(s)\n");
+        for (Map.Entry<String, Long> entry : loanStats.topLateReturners()) {
+            Member m = members.get(entry.getKey());
+            if (m != null) {
+                report.append(m.getFullName())
+                      .append(" : ").append(entry.getValue())
+                      .append(" retard(s)\n");
+            }
         }
         
         report.append("\n========================================\n");
@@ -728,29 +1364,18 @@ public class LibraryManager {
         report.append("========== INVENTAIRE ==========\n");
         report.append("Date : ").append(new Date()).append("\n\n");
         
-        int totalBooks = books.size();
-        int totalCopies = 0;
-        int availableCopies = 0;
-        
-        Map<String, Integer> categoryCount = new HashMap<>();
-        
-        for (Book book : books.values()) {
-            totalCopies += book.getCopies();
-            availableCopies += book.getAvailableCopies();
-            
-            String cat = book.getCategory();
-            categoryCount.put(cat, categoryCount.getOrDefault(cat, 0) + 1);
-        }
-        
-        report.append("Nombre de titres : ").append(totalBooks).append("\n");
-        report.append("Nombre total d'exemplaires : ").append(totalCopies).append("\n");
-        report.append("Exemplaires disponibles : ").append(availableCopies).append("\n\n");
+        // Compteurs maintenus par le catalogue et les emprunts : O(nombre de catégories)
+        loadWholeCatalog();
+        InventoryLevel totals = inventory.totals();
+        report.append("Nombre de titres : ").append(totals.titles()).append("\n");
+        report.append("Nombre total d'exemplaires : ").append(totals.copies()).append("\n");
+        report.append("Exemplaires disponibles : ").append(totals.availableCopies()).append("\n\n");
         
         report.append("PAR CATÉGORIE\n");
         report.append("-------------\n");
-        for (Map.Entry<String, Integer> entry : categoryCount.entrySet()) {
+        for (Map.Entry<String, InventoryLevel> entry : inventory.byCategory().entrySet()) {
             report.append(entry.getKey()).append(" : ")
-                  .append(entry.getValue()).append(" titres\n");
+                  .append(entry.getValue().titles()).append(" titres\n");
         }
         
         report.append("\n================================\n");
@@ -758,8 +1383,203 @@ public class LibraryManager {
         return report.toString();
     }
     
+    /**
+     * Stock total du catalogue (titres, exemplaires, exemplaires disponibles).
+     */
+    public InventoryLevel getInventoryTotals() {
+        loadWholeCatalog();
+        return inventory.totals();
+    }
+    
+    /**
+     * Stock par catégorie, trié par nom de catégorie.
+     */
+    public Map<String, InventoryLevel> getInventoryByCategory() {
+        loadWholeCatalog();
+        return inventory.byCategory();
+    }
+    
+    /**
+     * Stock d'une catégorie.
+     */
+    public InventoryLevel getInventory(String category) {
+        loadWholeCatalog();
+        return inventory.category(category);
+    }
+    
+    // ==================== CATALOGUE PROJETÉ ====================
+    
+    // Ouvre le catalogue désigné par library.catalog.file ; false s'il n'y en a pas
+    private boolean openCatalog() {
+        MappedCatalog source;
+        try {
+            source = MappedCatalog.fromSystemProperties();
+        } catch (IOException e) {
+            throw new RuntimeException("Impossible d'ouvrir le catalogue : " + e.getMessage(), e);
+        }
+        if (source == null) {
+            return false;
+        }
+        if (source.size() > 0) {
+            bookIds.advanceTo(bookIds.parse(source.lastId()) + 1);
+        }
+        catalog = source;
+        return true;
+    }
+    
+    /**
+     * Exporte le catalogue actuel au format projeté (voir MappedCatalog),
+     * relisible au démarrage avec library.catalog.file.
+     */
+    public void exportCatalog(Path file) throws IOException {
+        MappedCatalog.write(file, getAllBooks());
+    }
+    
+    private Book loadFromCatalog(String id) {
+        MappedCatalog source = catalog;
+        int record = source == null ? -1 : source.find(id);
+        if (record < 0) {
+            return books.get(id);
+        }
+        catalogLock.writeLock().lock();
+        try {
+            materialize(source, record);
+            return books.get(id);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    
+    private Book loadFromCatalogByIsbn(String isbn) {
+        MappedCatalog source = catalog;
+        if (source == null) {
+            return getBookByIsbn(isbn);
+        }
+        catalogLock.writeLock().lock();
+        try {
+            for (int record : source.findByIsbn(isbn)) {
+                materialize(source, record);
+            }
+            return isbnIndex.get(isbn);
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Charge tous les livres du catalogue projeté qui ne sont pas encore en
+     * mémoire, pour les opérations qui portent sur tout le catalogue (liste,
+     * recherche plein texte, inventaire, instantané).
+     */
+    private void loadWholeCatalog() {
+        if (catalog == null) {
+            return;
+        }
+        catalogLock.writeLock().lock();
+        try {
+            MappedCatalog source = catalog;
+            if (source != null) {
+                for (int record = 0; record < source.size(); record++) {
+                    materialize(source, record);
+                }
+                catalog = null;
+                LOG.info("Catalogue chargé en mémoire : {} livres", books.size());
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+        }
+    }
+    
+    // Appelé sous le verrou du catalogue en écriture ; un enregistrement n'est chargé qu'une fois
+    private boolean materialize(MappedCatalog source, int record) {
+        if (!source.claim(record)) {
+            return false;
+        }
+        Book book = source.book(record);
+        books.put(book.getId(), book);
+        isbnIndex.add(book);
+        searchIndex.add(book);
+        inventory.bookAdded(book);
+        return true;
+    }
+    
     // ==================== INITIALISATION DONNÉES DE TEST ====================
     
+    /**
+     * Reconstruit la bibliothèque, ses index et ses statistiques à partir de
+     * l'état relu du journal. Les exemplaires disponibles sont recalculés à
+     * partir des emprunts non rendus.
+     */
+    private void restore(LibraryState state) {
+        members.ensureCapacity(state.members().size());
+        books.ensureCapacity(state.books().size());
+        reservations.ensureCapacity(state.reservations().size());
+        for (Member member : state.members()) {
+            members.put(member.getId(), member);
+            memberIds.advanceTo(memberIds.parse(member.getId()) + 1);
+        }
+        Map<String, Integer> copiesOut = new HashMap<>();
+        int openLoans = 0;
+        for (Loan loan : state.loans()) {
+            if (loan.getState().isOpen()) {
+                copiesOut.merge(loan.getBookId(), 1, Integer::sum);
+            }
+            if (loan.getState() != LoanStatus.RETURNED) {
+                openLoans++;
+            }
+        }
+        // Les emprunts rendus partent dans l'historique : seuls les autres restent dans la table
+        loans.ensureCapacity(openLoans);
+        for (Book book : state.books()) {
+            book.setAvailableCopies(Math.max(0, book.getCopies() - copiesOut.getOrDefault(book.getId(), 0)));
+            books.put(book.getId(), book);
+            isbnIndex.add(book);
+            searchIndex.add(book);
+            inventory.bookAdded(book);
+            bookIds.advanceTo(bookIds.parse(book.getId()) + 1);
+        }
+        for (Loan loan : state.loans()) {
+            loan.setMember(members.get(loan.getMemberId()));
+            loan.setBook(books.get(loan.getBookId()));
+            loans.put(loan.getId(), loan);
+            memberLoanIndex.addOpen(loan);
+            if (loan.getState() == LoanStatus.RETURNED) {
+                memberLoanIndex.close(loan);
+            } else {
+                dueDateIndex.add(loan);
+            }
+            ledger.put(loan);
+            loansByStatus.add(loan, loan.getState());
+            loanStats.loanCreated(loan.getBookId(), loan.getState(), loan.getPenaltyAmount());
+            if (loan.getReturnDate() != null && loan.getDueDate() != null
+                && loan.getReturnDate().after(loan.getDueDate())) {
+                loanStats.lateReturn(loan.getMemberId());
+            }
+            loan.setListener(loanListener);
+            loanIds.advanceTo(loanIds.parse(loan.getId()) + 1);
+            if (loan.getState() == LoanStatus.RETURNED) {
+                archive(loan);
+            }
+        }
+        List<Reservation> pending = new ArrayList<>();
+        for (Reservation reservation : state.reservations()) {
+            reservations.put(reservation.getId(), reservation);
+            reservationsByStatus.add(reservation, reservation.getState());
+            if (reservation.isPending()) {
+                pending.add(reservation);
+            }
+            reservationIds.advanceTo(reservationIds.parse(reservation.getId()) + 1);
+        }
+        pending.sort(Comparator.comparing(Reservation::getReservationDate,
+                Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparingInt(Reservation::getQueuePosition));
+        for (Reservation reservation : pending) {
+            reservationQueues.computeIfAbsent(reservation.getBookId(), k -> new ReservationQueue()).add(reservation);
+        }
+        LOG.info("Bibliothèque restaurée : {} livres, {} membres, {} emprunts",
+            books.size(), members.size(), loans.size() + history.size());
+    }
+    
     private void initTestData() {
         // Quelques livres
         addBook("Clean Code", "Robert C. Martin", "978-0132350884", 2008, 3, "TECHNIQUE");
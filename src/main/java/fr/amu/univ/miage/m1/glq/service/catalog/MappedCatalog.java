@@ -0,0 +1,357 @@
+package fr.amu.univ.miage.m1.glq.service.catalog;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.service.index.IsbnIndex;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Catalogue de livres en fichier binaire, projeté en mémoire (FileChannel.map).
+ *
+ * Format : en-tête (magique, version, nombre de livres, nombre d'entrées ISBN),
+ * enregistrements de taille fixe triés par identifiant, index ISBN trié par
+ * ISBN normalisé, puis tas des chaînes UTF-8 (dédoublonnées). Une chaîne est
+ * décrite par (position dans le tas, longueur), longueur -1 pour null.
+ *
+ * L'ouverture ne lit que l'en-tête : getBook et getBookByIsbn font une
+ * recherche dichotomique dans le fichier et ne construisent que le livre
+ * demandé. Les clés sont comparées d'abord par longueur puis octet par octet,
+ * si bien que le dernier enregistrement porte le plus grand identifiant.
+ *
+ * Chaque enregistrement ne peut être matérialisé qu'une fois (claim) : un
+ * livre chargé puis supprimé n'est pas ressuscité par le fichier.
+ *
+ * Taille limitée à 2 Go (une seule projection). Pas de somme de contrôle :
+ * la vérifier obligerait à lire tout le fichier au démarrage.
+ *
+ * Thread-safe.
+ */
+public final class MappedCatalog {
+
+    private static final int MAGIC = 0x42434154; // "BCAT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 4;
+    // id, titre, auteur, ISBN, catégorie (position + longueur), année, exemplaires, drapeaux
+    private static final int RECORD_SIZE = 5 * 8 + 4 + 4 + 4;
+    // enregistrement, ISBN normalisé (position + longueur)
+    private static final int ISBN_ENTRY_SIZE = 4 + 8;
+    private static final int ACTIVE = 1;
+
+    private static final Comparator<byte[]> KEY_ORDER =
+        Comparator.<byte[]>comparingInt(key -> key.length).thenComparing(Arrays::compareUnsigned);
+
+    private final Path file;
+    private final ByteBuffer data;
+    private final int size;
+    private final int isbnCount;
+    private final int isbnStart;
+    private final int heapStart;
+    private final AtomicLongArray claimed;
+
+    private MappedCatalog(Path file, ByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Fichier catalogue invalide : " + file);
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Version de catalogue non supportée : " + data.getInt(4));
+        }
+        this.size = data.getInt(8);
+        this.isbnCount = data.getInt(12);
+        this.isbnStart = HEADER_SIZE + size * RECORD_SIZE;
+        this.heapStart = isbnStart + isbnCount * ISBN_ENTRY_SIZE;
+        if (size < 0 || isbnCount < 0 || isbnCount > size || heapStart > data.capacity()) {
+            throw new IOException("Fichier catalogue tronqué : " + file);
+        }
+        this.claimed = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    /**
+     * Projette le fichier en mémoire. Seul l'en-tête est lu.
+     */
+    public static MappedCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalogue trop volumineux (2 Go maximum) : " + file);
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedCatalog(file, data);
+        }
+    }
+
+    /**
+     * Catalogue désigné par library.catalog.file, ou null si la propriété est absente.
+     */
+    public static MappedCatalog fromSystemProperties() throws IOException {
+        String path = System.getProperty("library.catalog.file");
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        return open(Paths.get(path));
+    }
+
+    // ==================== ÉCRITURE ====================
+
+    /**
+     * Écrit le catalogue (fichier temporaire puis renommage).
+     * Les exemplaires disponibles ne sont pas conservés : un livre relu a
+     * tous ses exemplaires en stock.
+     */
+    public static void write(Path file, Collection<Book> books) throws IOException {
+        List<Book> sorted = new ArrayList<>(books);
+        List<byte[]> ids = new ArrayList<>(sorted.size());
+        for (Book book : sorted) {
+            ids.add(utf8(book.getId()));
+        }
+        Integer[] order = new Integer[sorted.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> KEY_ORDER.compare(ids.get(a), ids.get(b)));
+        for (int i = 1; i < order.length; i++) {
+            if (Arrays.equals(ids.get(order[i - 1]), ids.get(order[i]))) {
+                throw new IllegalArgumentException("Identifiant de livre en double : " + sorted.get(order[i]).getId());
+            }
+        }
+
+        Heap heap = new Heap();
+        ByteBuffer records = ByteBuffer.allocate(order.length * RECORD_SIZE);
+        List<long[]> isbnEntries = new ArrayList<>();
+        List<byte[]> isbnKeys = new ArrayList<>();
+        for (int record = 0; record < order.length; record++) {
+            Book book = sorted.get(order[record]);
+            heap.put(records, book.getId());
+            heap.put(records, book.getTitle());
+            heap.put(records, book.getAuthor());
+            heap.put(records, book.getIsbn());
+            heap.put(records, book.getCategory());
+            records.putInt(book.getYear());
+            records.putInt(book.getCopies());
+            records.putInt(book.isActive() ? ACTIVE : 0);
+            String isbnKey = IsbnIndex.normalize(book.getIsbn());
+            if (isbnKey != null) {
+                byte[] key = utf8(isbnKey);
+                isbnEntries.add(new long[] {record, heap.offsetOf(isbnKey), key.length});
+                isbnKeys.add(key);
+            }
+        }
+        // Tri stable : à ISBN égal, le premier enregistrement reste devant
+        Integer[] isbnOrder = new Integer[isbnEntries.size()];
+        for (int i = 0; i < isbnOrder.length; i++) {
+            isbnOrder[i] = i;
+        }
+        Arrays.sort(isbnOrder, (a, b) -> KEY_ORDER.compare(isbnKeys.get(a), isbnKeys.get(b)));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(order.length);
+            out.writeInt(isbnOrder.length);
+            out.write(records.array());
+            for (Integer index : isbnOrder) {
+                long[] entry = isbnEntries.get(index);
+                out.writeInt((int) entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+            heap.bytes.writeTo(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Tas de chaînes : chaque valeur distincte n'est écrite qu'une fois
+    private static final class Heap {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        final Map<String, Integer> offsets = new HashMap<>();
+
+        int offsetOf(String value) {
+            return offsets.computeIfAbsent(value, v -> {
+                int offset = bytes.size();
+                bytes.writeBytes(utf8(v));
+                return offset;
+            });
+        }
+
+        void put(ByteBuffer record, String value) {
+            if (value == null) {
+                record.putInt(0).putInt(-1);
+            } else {
+                record.putInt(offsetOf(value)).putInt(utf8(value).length);
+            }
+        }
+    }
+
+    // ==================== LECTURE ====================
+
+    public int size() {
+        return size;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Numéro d'enregistrement du livre, ou -1 s'il n'est pas dans le fichier.
+     */
+    public int find(String id) {
+        if (id == null) {
+            return -1;
+        }
+        byte[] key = utf8(id);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(recordAt(mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Numéros des enregistrements portant cet ISBN (tirets ignorés, ISBN-10
+     * et ISBN-13 équivalents), dans l'ordre du fichier.
+     */
+    public int[] findByIsbn(String isbn) {
+        String normalized = IsbnIndex.normalize(isbn);
+        if (normalized == null) {
+            return new int[0];
+        }
+        byte[] key = utf8(normalized);
+        // Borne inférieure : première entrée >= clé
+        int low = 0;
+        int high = isbnCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(isbnEntryAt(mid) + 4, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < isbnCount && compareKey(isbnEntryAt(end) + 4, key) == 0) {
+            end++;
+        }
+        int[] records = new int[end - low];
+        for (int i = low; i < end; i++) {
+            records[i - low] = data.getInt(isbnEntryAt(i));
+        }
+        return records;
+    }
+
+    /**
+     * Identifiant de l'enregistrement.
+     */
+    public String id(int record) {
+        return string(recordAt(record));
+    }
+
+    /**
+     * Plus grand identifiant du fichier, ou null s'il est vide.
+     */
+    public String lastId() {
+        return size == 0 ? null : id(size - 1);
+    }
+
+    /**
+     * Construit un nouveau Book à partir de l'enregistrement.
+     */
+    public Book book(int record) {
+        int base = recordAt(record);
+        Book book = new Book(string(base), string(base + 8), string(base + 16), string(base + 24),
+            data.getInt(base + 40), data.getInt(base + 44), string(base + 32));
+        book.setActive((data.getInt(base + 48) & ACTIVE) != 0);
+        return book;
+    }
+
+    /**
+     * Réserve l'enregistrement pour le matérialiser. Retourne false s'il l'a
+     * déjà été (le livre est alors en mémoire, ou a été supprimé depuis).
+     */
+    public boolean claim(int record) {
+        int slot = record >>> 6;
+        long bit = 1L << (record & 63);
+        while (true) {
+            long current = claimed.get(slot);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (claimed.compareAndSet(slot, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private int recordAt(int record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Enregistrement hors du catalogue : " + record);
+        }
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private int isbnEntryAt(int entry) {
+        return isbnStart + entry * ISBN_ENTRY_SIZE;
+    }
+
+    private String string(int reference) {
+        int length = data.getInt(reference + 4);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(heapStart + data.getInt(reference), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Compare la chaîne référencée à la clé, sans la décoder (même ordre que KEY_ORDER)
+    private int compareKey(int reference, byte[] key) {
+        int length = data.getInt(reference + 4);
+        if (length != key.length) {
+            return Integer.compare(length, key.length);
+        }
+        int offset = heapStart + data.getInt(reference);
+        for (int i = 0; i < length; i++) {
+            int cmp = Integer.compare(data.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package fr.amu.univ.miage.m1.glq.service.concurrent;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrous répartis par clé ("lock striping").
+ *
+ * Chaque clé (id de membre, id de livre) est associée à un verrou parmi
+ * un nombre fixe de verrous. Deux opérations sur des membres et des livres
+ * différents ne se bloquent donc (presque) jamais.
+ *
+ * Pour éviter les interblocages, lock(k1, k2) prend toujours les verrous
+ * dans l'ordre croissant de leur indice.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Verrou(s) acquis, à libérer par try-with-resources.
+     */
+    @FunctionalInterface
+    public interface Guard extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public StripedLocks() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    /**
+     * @param stripes nombre de verrous souhaité (arrondi à la puissance de 2 supérieure)
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Verrouille la clé donnée.
+     */
+    public Guard lock(Object key) {
+        ReentrantLock lock = locks[indexOf(key)];
+        lock.lock();
+        return lock::unlock;
+    }
+
+    /**
+     * Verrouille deux clés, dans un ordre global fixe.
+     */
+    public Guard lock(Object key1, Object key2) {
+        int i1 = indexOf(key1);
+        int i2 = indexOf(key2);
+        if (i1 == i2) {
+            return lock(key1);
+        }
+        ReentrantLock first = locks[Math.min(i1, i2)];
+        ReentrantLock second = locks[Math.max(i1, i2)];
+        first.lock();
+        try {
+            second.lock();
+        } catch (RuntimeException e) {
+            first.unlock();
+            throw e;
+        }
+        return () -> {
+            second.unlock();
+            first.unlock();
+        };
+    }
+
+    public int stripes() {
+        return locks.length;
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        h ^= (h >>> 16);  // Mélange des bits de poids fort (comme HashMap)
+        return h & mask;
+    }
+}
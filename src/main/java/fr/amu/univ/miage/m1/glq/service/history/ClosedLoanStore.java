@@ -0,0 +1,395 @@
+package fr.amu.univ.miage.m1.glq.service.history;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Historique des emprunts clos, hors du tas Java : enregistrements de
+ * taille fixe ajoutés à la suite dans des blocs de mémoire directe
+ * (ByteBuffer.allocateDirect), jamais modifiés ensuite.
+ *
+ * Un emprunt archivé ne coûte au tas que quelques cases de tableaux
+ * d'entiers (index ci-dessous), que le GC ne parcourt pas : la durée d'un
+ * GC complet ne dépend plus de la taille de l'historique.
+ *
+ * Enregistrement (RECORD_SIZE octets) : clés numériques de l'emprunt, du
+ * membre et du livre (voir PrefixedIdGenerator.key), enregistrement
+ * précédent du même membre et du même livre, statut, renouvellements,
+ * dates en millisecondes (NO_TIME pour null), pénalité.
+ *
+ * Index : emprunt -> enregistrement, et dernier enregistrement de chaque
+ * membre et de chaque livre ; l'historique d'un membre (ou d'un livre) est
+ * la chaîne des enregistrements précédents, du plus récent au plus ancien.
+ *
+ * Lecture par vues (View) : un curseur réutilisable positionné sur un
+ * enregistrement, qui lit les champs à la demande sans créer de Loan.
+ *
+ * Thread-safe : ajouts et lectures des index sous le moniteur du store ;
+ * un enregistrement publié n'est plus modifié et se lit sans verrou.
+ *
+ * Mémoire directe par ByteBuffer et non par Arena / MemorySegment : le
+ * projet se compile et se teste aussi sous Java 21, où java.lang.foreign
+ * exige --enable-preview à la compilation et à l'exécution de toute
+ * application qui l'utilise. Conséquence : la mémoire d'un bloc n'est
+ * rendue qu'à la collecte de son ByteBuffer, pas à clear(). Elle reste
+ * bornée : la réservation de mémoire directe (-XX:MaxDirectMemorySize)
+ * déclenche un GC (sauf -XX:+DisableExplicitGC) et attend la libération
+ * des blocs abandonnés avant d'échouer. Avec Java 22 au minimum, passer
+ * à un Arena.ofShared() fermé par clear() ne touche que chunkFor et clear.
+ */
+public class ClosedLoanStore {
+
+    /** Date absente (null côté Loan). */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    static final int RECORD_SIZE = 56;
+    private static final int LOAN = 0;
+    private static final int MEMBER = 4;
+    private static final int BOOK = 8;
+    private static final int PREVIOUS_OF_MEMBER = 12;
+    private static final int PREVIOUS_OF_BOOK = 16;
+    private static final int STATUS = 20;
+    private static final int RENEWALS = 21;
+    private static final int MAX_RENEWALS = 22;
+    private static final int LOAN_DATE = 24;
+    private static final int DUE_DATE = 32;
+    private static final int RETURN_DATE = 40;
+    private static final int PENALTY = 48;
+
+    // 65 536 enregistrements (3,5 Mo) par bloc
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int INITIAL_INDEX = 1024;
+    private static final LoanStatus[] STATUSES = LoanStatus.values();
+
+    private final PrefixedIdGenerator loanIds;
+    private final PrefixedIdGenerator memberIds;
+    private final PrefixedIdGenerator bookIds;
+
+    // Les blocs ne sont jamais déplacés : un tableau périmé reste lisible
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int count;
+    // Enregistrement + 1 (0 = aucun), par clé numérique
+    private int[] recordOfLoan = new int[INITIAL_INDEX];
+    private int[] lastOfMember = new int[INITIAL_INDEX];
+    private int[] lastOfBook = new int[INITIAL_INDEX];
+
+    public ClosedLoanStore(PrefixedIdGenerator loanIds, PrefixedIdGenerator memberIds, PrefixedIdGenerator bookIds) {
+        this.loanIds = loanIds;
+        this.memberIds = memberIds;
+        this.bookIds = bookIds;
+    }
+
+    /**
+     * Indique si l'emprunt peut être archivé : clos, identifiants au format
+     * des générateurs, sans notes (champ de taille variable).
+     */
+    public boolean accepts(Loan loan) {
+        return loan.getState() != null && !loan.getState().isOpen() && loan.getNotes() == null
+            && loanIds.key(loan.getId()) >= 0 && memberIds.key(loan.getMemberId()) >= 0
+            && bookIds.key(loan.getBookId()) >= 0;
+    }
+
+    /**
+     * Ajoute l'emprunt à l'historique ; false s'il n'est pas archivable
+     * (voir accepts) ou s'il est déjà archivé.
+     */
+    public synchronized boolean append(Loan loan) {
+        if (!accepts(loan)) {
+            return false;
+        }
+        int loanKey = loanIds.key(loan.getId());
+        int memberKey = memberIds.key(loan.getMemberId());
+        int bookKey = bookIds.key(loan.getBookId());
+        recordOfLoan = ensureIndex(recordOfLoan, loanKey);
+        if (recordOfLoan[loanKey] != 0) {
+            return false;
+        }
+        lastOfMember = ensureIndex(lastOfMember, memberKey);
+        lastOfBook = ensureIndex(lastOfBook, bookKey);
+
+        int record = count;
+        ByteBuffer chunk = chunkFor(record);
+        int base = (record & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+        chunk.putInt(base + LOAN, loanKey);
+        chunk.putInt(base + MEMBER, memberKey);
+        chunk.putInt(base + BOOK, bookKey);
+        chunk.putInt(base + PREVIOUS_OF_MEMBER, lastOfMember[memberKey] - 1);
+        chunk.putInt(base + PREVIOUS_OF_BOOK, lastOfBook[bookKey] - 1);
+        chunk.put(base + STATUS, (byte) loan.getState().ordinal());
+        chunk.put(base + RENEWALS, (byte) Math.min(loan.getRenewalCount(), Byte.MAX_VALUE));
+        chunk.put(base + MAX_RENEWALS, (byte) Math.min(loan.getMaxRenewals(), Byte.MAX_VALUE));
+        chunk.putLong(base + LOAN_DATE, timeOf(loan.getLoanDate()));
+        chunk.putLong(base + DUE_DATE, timeOf(loan.getDueDate()));
+        chunk.putLong(base + RETURN_DATE, timeOf(loan.getReturnDate()));
+        chunk.putDouble(base + PENALTY, loan.getPenaltyAmount());
+
+        recordOfLoan[loanKey] = record + 1;
+        lastOfMember[memberKey] = record + 1;
+        lastOfBook[bookKey] = record + 1;
+        count++;
+        return true;
+    }
+
+    /**
+     * Vue sur l'emprunt archivé, ou null s'il n'est pas dans l'historique.
+     */
+    public View find(String loanId) {
+        int key = loanIds.key(loanId);
+        if (key < 0) {
+            return null;
+        }
+        synchronized (this) {
+            return key < recordOfLoan.length && recordOfLoan[key] != 0
+                ? new View().moveTo(recordOfLoan[key] - 1) : null;
+        }
+    }
+
+    public boolean contains(String loanId) {
+        return find(loanId) != null;
+    }
+
+    /**
+     * Passe les emprunts archivés du membre au visiteur, du plus récent au
+     * plus ancien. La vue est réutilisée d'un appel à l'autre.
+     */
+    public void forEachOfMember(String memberId, Consumer<View> visitor) {
+        visit(chain(lastOfMemberRecord(memberKey(memberId)), PREVIOUS_OF_MEMBER), visitor);
+    }
+
+    /**
+     * Passe les emprunts archivés du livre au visiteur, du plus récent au
+     * plus ancien. La vue est réutilisée d'un appel à l'autre.
+     */
+    public void forEachOfBook(String bookId, Consumer<View> visitor) {
+        visit(chain(lastOfBookRecord(bookKey(bookId)), PREVIOUS_OF_BOOK), visitor);
+    }
+
+    /**
+     * Passe tous les emprunts archivés au visiteur, dans l'ordre d'archivage.
+     * La vue est réutilisée d'un appel à l'autre.
+     */
+    public void forEach(Consumer<View> visitor) {
+        int archived = size();
+        View view = new View();
+        for (int record = 0; record < archived; record++) {
+            visitor.accept(view.moveTo(record));
+        }
+    }
+
+    /**
+     * Parcours paresseux des emprunts archivés, dans l'ordre d'archivage,
+     * jusqu'au dernier archivé au moment de l'appel. La vue est réutilisée
+     * d'un élément à l'autre.
+     */
+    public Iterator<View> views() {
+        int archived = size();
+        View view = new View();
+        return new Iterator<>() {
+            private int record;
+
+            @Override
+            public boolean hasNext() {
+                return record < archived;
+            }
+
+            @Override
+            public View next() {
+                if (record >= archived) {
+                    throw new NoSuchElementException();
+                }
+                return view.moveTo(record++);
+            }
+        };
+    }
+
+    /**
+     * Somme des pénalités positives des emprunts archivés du membre.
+     */
+    public double penaltiesOfMember(String memberId) {
+        double total = 0;
+        View view = new View();
+        for (int record : chain(lastOfMemberRecord(memberKey(memberId)), PREVIOUS_OF_MEMBER)) {
+            double penalty = view.moveTo(record).getPenaltyAmount();
+            if (penalty > 0) {
+                total += penalty;
+            }
+        }
+        return total;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Mémoire directe réservée par les blocs, en octets.
+     */
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Vide l'historique et abandonne ses blocs : leur mémoire directe est
+     * rendue quand le GC collecte les ByteBuffer (voir la note en tête de classe).
+     */
+    public synchronized void clear() {
+        chunks = new ByteBuffer[0];
+        count = 0;
+        recordOfLoan = new int[INITIAL_INDEX];
+        lastOfMember = new int[INITIAL_INDEX];
+        lastOfBook = new int[INITIAL_INDEX];
+    }
+
+    /**
+     * Vue sur un enregistrement : lit les champs dans la mémoire directe à
+     * chaque appel. Une vue reçue d'un visiteur ne doit pas être conservée.
+     */
+    public class View {
+        private ByteBuffer chunk;
+        private int base;
+
+        View moveTo(int record) {
+            this.chunk = chunks[record >>> CHUNK_SHIFT];
+            this.base = (record & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+            return this;
+        }
+
+        public String getId() {
+            return loanIds.format(chunk.getInt(base + LOAN));
+        }
+
+        public String getMemberId() {
+            return memberIds.format(chunk.getInt(base + MEMBER));
+        }
+
+        public String getBookId() {
+            return bookIds.format(chunk.getInt(base + BOOK));
+        }
+
+        public LoanStatus getStatus() {
+            return STATUSES[chunk.get(base + STATUS)];
+        }
+
+        public int getRenewalCount() {
+            return chunk.get(base + RENEWALS);
+        }
+
+        public long getLoanTime() {
+            return chunk.getLong(base + LOAN_DATE);
+        }
+
+        public long getDueTime() {
+            return chunk.getLong(base + DUE_DATE);
+        }
+
+        public long getReturnTime() {
+            return chunk.getLong(base + RETURN_DATE);
+        }
+
+        public double getPenaltyAmount() {
+            return chunk.getDouble(base + PENALTY);
+        }
+
+        /**
+         * Recrée l'emprunt (sans membre, livre ni observateur) : copie
+         * détachée, à traiter en lecture seule ; ses modifications ne
+         * changent pas l'historique.
+         */
+        public Loan toLoan() {
+            Loan loan = new Loan();
+            loan.setId(getId());
+            loan.setMemberId(getMemberId());
+            loan.setBookId(getBookId());
+            loan.setLoanDate(dateOf(getLoanTime()));
+            loan.setDueDate(dateOf(getDueTime()));
+            loan.setReturnDate(dateOf(getReturnTime()));
+            loan.setState(getStatus());
+            loan.setPenaltyAmount(getPenaltyAmount());
+            loan.setRenewalCount(getRenewalCount());
+            loan.setMaxRenewals(chunk.get(base + MAX_RENEWALS));
+            return loan;
+        }
+    }
+
+    // ==================== INTERNE ====================
+
+    // Enregistrements d'une chaîne (membre ou livre), relevés sous le moniteur
+    private synchronized int[] chain(int last, int link) {
+        int[] records = new int[8];
+        int size = 0;
+        View view = new View();
+        for (int record = last; record >= 0; record = view.chunk.getInt(view.base + link)) {
+            if (size == records.length) {
+                records = Arrays.copyOf(records, size * 2);
+            }
+            records[size++] = record;
+            view.moveTo(record);
+        }
+        return Arrays.copyOf(records, size);
+    }
+
+    private void visit(int[] records, Consumer<View> visitor) {
+        View view = new View();
+        for (int record : records) {
+            visitor.accept(view.moveTo(record));
+        }
+    }
+
+    private int memberKey(String memberId) {
+        return memberId == null ? -1 : memberIds.key(memberId);
+    }
+
+    private int bookKey(String bookId) {
+        return bookId == null ? -1 : bookIds.key(bookId);
+    }
+
+    private synchronized int lastOfMemberRecord(int key) {
+        return key < 0 || key >= lastOfMember.length ? -1 : lastOfMember[key] - 1;
+    }
+
+    private synchronized int lastOfBookRecord(int key) {
+        return key < 0 || key >= lastOfBook.length ? -1 : lastOfBook[key] - 1;
+    }
+
+    // Appelé sous le moniteur
+    private ByteBuffer chunkFor(int record) {
+        int index = record >>> CHUNK_SHIFT;
+        ByteBuffer[] current = chunks;
+        if (index == current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+            grown[index] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+            chunks = grown;
+            return grown[index];
+        }
+        return current[index];
+    }
+
+    private static int[] ensureIndex(int[] index, int key) {
+        if (key < index.length) {
+            return index;
+        }
+        int capacity = index.length;
+        while (capacity <= key) {
+            capacity <<= 1;
+        }
+        return Arrays.copyOf(index, capacity);
+    }
+
+    private static long timeOf(Date date) {
+        return date == null ? NO_TIME : date.getTime();
+    }
+
+    private static Date dateOf(long time) {
+        return time == NO_TIME ? null : new Date(time);
+    }
+}
@@ -0,0 +1,33 @@
+package fr.amu.univ.miage.m1.glq.service.id;
+
+/**
+ * Générateur d'identifiants d'entités.
+ *
+ * Un identifiant a une valeur numérique compacte (nextValue) et une vue
+ * texte (format), par exemple 42 et "B00042". Les implémentations doivent
+ * être thread-safe.
+ */
+public interface IdGenerator {
+
+    /**
+     * Prochaine valeur numérique (unique pour ce générateur).
+     */
+    long nextValue();
+
+    /**
+     * Vue texte d'une valeur numérique.
+     */
+    String format(long value);
+
+    /**
+     * Valeur numérique d'un identifiant texte, ou -1 s'il ne vient pas de ce générateur.
+     */
+    long parse(String id);
+
+    /**
+     * Prochain identifiant texte.
+     */
+    default String nextId() {
+        return format(nextValue());
+    }
+}
@@ -0,0 +1,111 @@
+package fr.amu.univ.miage.m1.glq.service.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identifiants "préfixe + compteur complété par des zéros" (B00001, M00042...).
+ *
+ * Remplace "B" + String.format("%05d", counter++) : le compteur est atomique
+ * et l'encodage est écrit à la main dans un tableau de caractères de la taille
+ * exacte, sans Formatter ni expression régulière.
+ *
+ * La largeur est un minimum : au-delà de 99 999 (largeur 5), l'identifiant
+ * s'allonge d'un chiffre au lieu de déborder silencieusement.
+ */
+public class PrefixedIdGenerator implements IdGenerator {
+
+    public static final int DEFAULT_WIDTH = 5;
+
+    private final String prefix;
+    private final int width;
+    private final AtomicLong counter;
+
+    public PrefixedIdGenerator(String prefix) {
+        this(prefix, DEFAULT_WIDTH, 1);
+    }
+
+    /**
+     * @param prefix préfixe de l'identifiant
+     * @param width  nombre minimal de chiffres
+     * @param first  première valeur générée
+     */
+    public PrefixedIdGenerator(String prefix, int width, long first) {
+        if (width < 1) {
+            throw new IllegalArgumentException("La largeur doit être positive : " + width);
+        }
+        this.prefix = prefix;
+        this.width = width;
+        this.counter = new AtomicLong(first);
+    }
+
+    @Override
+    public long nextValue() {
+        return counter.getAndIncrement();
+    }
+
+    @Override
+    public String format(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Valeur d'identifiant négative : " + value);
+        }
+        int digits = Math.max(digitCount(value), width);
+        int prefixLength = prefix.length();
+        char[] buffer = new char[prefixLength + digits];
+        prefix.getChars(0, prefixLength, buffer, 0);
+        for (int i = buffer.length - 1; i >= prefixLength; i--) {
+            buffer[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+        return new String(buffer);
+    }
+
+    @Override
+    public long parse(String id) {
+        if (id == null || id.length() <= prefix.length() || !id.startsWith(prefix)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Clé entière de l'identifiant s'il a exactement la forme produite par
+     * format (pas de zéro en trop) et tient dans un int, -1 sinon. Deux
+     * identifiants distincts n'ont donc jamais la même clé.
+     */
+    public int key(String id) {
+        long value = parse(id);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            return -1;
+        }
+        int digits = id.length() - prefix.length();
+        return digits == Math.max(width, digitCount(value)) ? (int) value : -1;
+    }
+
+    /**
+     * Fait repartir le compteur au moins à partir de next (rechargement de données).
+     */
+    public void advanceTo(long next) {
+        counter.accumulateAndGet(next, Math::max);
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,307 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index inversé pour la recherche plein texte dans le catalogue.
+ *
+ * Sémantique identique au parcours séquentiel de LibraryManager :
+ * un livre correspond si son titre ou son auteur (en minuscules)
+ * ou son ISBN contient la requête mise en minuscules.
+ *
+ * Chaque livre reçoit un numéro de document, qu'il garde quand il est
+ * réindexé ; le numéro d'un livre retiré est réattribué au suivant. Les
+ * numéros restent donc sous le plus grand nombre de livres indexés à la
+ * fois, quel que soit le nombre de modifications. Deux familles de listes
+ * de postings (triées) sont maintenues sur titre, auteur et ISBN :
+ * - trigrammes : tout livre qui contient la requête contient tous ses trigrammes ;
+ * - mots : tout mot complet de la requête (entouré de séparateurs) est un mot du livre.
+ * L'intersection des listes donne un sur-ensemble des résultats, vérifié
+ * ensuite sur les champs mis en cache (aucune allocation par livre).
+ * Les requêtes de moins de 3 caractères sont vérifiées sur tous les documents.
+ *
+ * Non thread-safe : LibraryManager le protège par le verrou du catalogue.
+ */
+public class BookSearchIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Documents (null = supprimé) et champs normalisés mis en cache
+    private Book[] docs = new Book[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] authors = new String[INITIAL_CAPACITY];
+    private String[] isbns = new String[INITIAL_CAPACITY];
+    private int nextDocId;
+    private int liveDocs;
+    // Numéros libérés par remove, réattribués avant d'en créer un nouveau
+    private int[] freeDocs = new int[INITIAL_CAPACITY];
+    private int freeCount;
+
+    private final Map<String, Integer> docIdByBookId = new HashMap<>();
+    private final Map<Long, IntPostings> trigramPostings = new HashMap<>();
+    private final Map<String, IntPostings> tokenPostings = new HashMap<>();
+
+    /**
+     * Indexe un livre (ou le réindexe après modification).
+     */
+    public void add(Book book) {
+        Integer existing = docIdByBookId.get(book.getId());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unindex(doc);
+        } else {
+            doc = allocateDoc();
+            docIdByBookId.put(book.getId(), doc);
+            liveDocs++;
+        }
+        docs[doc] = book;
+        titles[doc] = book.getTitle() == null ? null : book.getTitle().toLowerCase();
+        authors[doc] = book.getAuthor() == null ? null : book.getAuthor().toLowerCase();
+        isbns[doc] = book.getIsbn();
+
+        for (long trigram : trigramsOf(doc)) {
+            trigramPostings.computeIfAbsent(trigram, k -> new IntPostings()).insert(doc);
+        }
+        for (String token : tokensOf(doc)) {
+            tokenPostings.computeIfAbsent(token, k -> new IntPostings()).insert(doc);
+        }
+    }
+
+    /**
+     * Retire un livre de l'index.
+     */
+    public void remove(String bookId) {
+        Integer docId = docIdByBookId.remove(bookId);
+        if (docId == null) {
+            return;
+        }
+        int doc = docId;
+        unindex(doc);
+        docs[doc] = null;
+        titles[doc] = null;
+        authors[doc] = null;
+        isbns[doc] = null;
+        liveDocs--;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+    }
+
+    /**
+     * Recherche les livres dont le titre, l'auteur ou l'ISBN contient la requête.
+     */
+    public List<Book> search(String query) {
+        String q = query.toLowerCase();
+        List<Book> results = new ArrayList<>();
+        if (q.length() < 3) {
+            for (int doc = 0; doc < nextDocId; doc++) {
+                if (docs[doc] != null && matches(doc, q)) {
+                    results.add(docs[doc]);
+                }
+            }
+            return results;
+        }
+
+        List<IntPostings> lists = new ArrayList<>();
+        for (long trigram : trigramsOf(q)) {
+            IntPostings postings = trigramPostings.get(trigram);
+            if (postings == null) {
+                return results;
+            }
+            lists.add(postings);
+        }
+        for (String token : completeTokensOf(q)) {
+            IntPostings postings = tokenPostings.get(token);
+            if (postings == null) {
+                return results;
+            }
+            lists.add(postings);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        // Parcours de la plus petite liste, appartenance aux autres par recherche dichotomique
+        IntPostings smallest = lists.get(0);
+        for (int i = 0; i < smallest.size; i++) {
+            int doc = smallest.values[i];
+            boolean inAll = true;
+            for (int j = 1; j < lists.size() && inAll; j++) {
+                inAll = lists.get(j).contains(doc);
+            }
+            if (inAll && matches(doc, q)) {
+                results.add(docs[doc]);
+            }
+        }
+        return results;
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    /**
+     * Numéros de document attribués, libres compris (borne des parcours).
+     */
+    public int capacity() {
+        return nextDocId;
+    }
+
+    public void clear() {
+        docs = new Book[INITIAL_CAPACITY];
+        titles = new String[INITIAL_CAPACITY];
+        authors = new String[INITIAL_CAPACITY];
+        isbns = new String[INITIAL_CAPACITY];
+        nextDocId = 0;
+        liveDocs = 0;
+        freeDocs = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        docIdByBookId.clear();
+        trigramPostings.clear();
+        tokenPostings.clear();
+    }
+
+    private int allocateDoc() {
+        if (freeCount > 0) {
+            return freeDocs[--freeCount];
+        }
+        int doc = nextDocId++;
+        ensureCapacity(doc + 1);
+        return doc;
+    }
+
+    // Retire le document des listes de postings, d'après ses champs en cache
+    private void unindex(int doc) {
+        for (long trigram : trigramsOf(doc)) {
+            removePosting(trigramPostings, trigram, doc);
+        }
+        for (String token : tokensOf(doc)) {
+            removePosting(tokenPostings, token, doc);
+        }
+    }
+
+    private boolean matches(int doc, String q) {
+        return (titles[doc] != null && titles[doc].contains(q)) ||
+               (authors[doc] != null && authors[doc].contains(q)) ||
+               (isbns[doc] != null && isbns[doc].contains(q));
+    }
+
+    private Set<Long> trigramsOf(int doc) {
+        Set<Long> trigrams = new HashSet<>();
+        addTrigrams(titles[doc], trigrams);
+        addTrigrams(authors[doc], trigrams);
+        addTrigrams(isbns[doc], trigrams);
+        return trigrams;
+    }
+
+    private static Set<Long> trigramsOf(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        addTrigrams(text, trigrams);
+        return trigrams;
+    }
+
+    private static void addTrigrams(String text, Set<Long> trigrams) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+    }
+
+    private Set<String> tokensOf(int doc) {
+        Set<String> tokens = new HashSet<>();
+        addTokens(titles[doc], tokens, false);
+        addTokens(authors[doc], tokens, false);
+        addTokens(isbns[doc], tokens, false);
+        return tokens;
+    }
+
+    // Mots de la requête entourés de séparateurs (les mots aux extrémités peuvent être partiels)
+    private static Set<String> completeTokensOf(String q) {
+        Set<String> tokens = new HashSet<>();
+        addTokens(q, tokens, true);
+        return tokens;
+    }
+
+    private static void addTokens(String text, Set<String> tokens, boolean completeOnly) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (!completeOnly || (start > 0 && i < text.length())) {
+                    tokens.add(text.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    private static <K> void removePosting(Map<K, IntPostings> index, K key, int doc) {
+        IntPostings postings = index.get(key);
+        if (postings != null) {
+            postings.remove(doc);
+            if (postings.size == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > docs.length) {
+            int newCapacity = Math.max(size, docs.length * 2);
+            docs = Arrays.copyOf(docs, newCapacity);
+            titles = Arrays.copyOf(titles, newCapacity);
+            authors = Arrays.copyOf(authors, newCapacity);
+            isbns = Arrays.copyOf(isbns, newCapacity);
+        }
+    }
+
+    /**
+     * Liste de postings : numéros de document triés, stockés en int[].
+     */
+    private static class IntPostings {
+        int[] values = new int[4];
+        int size;
+
+        // Insertion à sa place (ajout en fin pour un nouveau numéro, le cas courant)
+        void insert(int doc) {
+            int pos = size == 0 || values[size - 1] < doc ? size : Arrays.binarySearch(values, 0, size, doc);
+            if (pos >= 0 && pos < size) {
+                return;
+            }
+            pos = pos < 0 ? -pos - 1 : pos;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(values, 0, size, doc);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(values, 0, size, doc) >= 0;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.util.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index des emprunts en cours par date de retour.
+ *
+ * Les emprunts sont rangés par jour d'échéance dans une TreeMap : "tous les
+ * emprunts échus" ou "échéance dans les 3 prochains jours" sont des requêtes
+ * par plage qui ne parcourent que les jours concernés. Seul le jour limite
+ * est filtré à la milliseconde.
+ *
+ * Seuls les emprunts en cours doivent être indexés : ils sont retirés au retour.
+ * Thread-safe : les méthodes sont synchronisées (sections critiques courtes).
+ */
+public class DueDateIndex {
+
+    private final TreeMap<Long, Set<Loan>> loansByDueDay = new TreeMap<>();
+    private int size;
+
+    /**
+     * Indexe un emprunt selon sa date de retour actuelle.
+     */
+    public synchronized void add(Loan loan) {
+        if (loansByDueDay.computeIfAbsent(dayOf(loan.getDueDate()), k -> new LinkedHashSet<>()).add(loan)) {
+            size++;
+        }
+    }
+
+    /**
+     * Retire un emprunt (indexé sous sa date de retour actuelle).
+     */
+    public synchronized void remove(Loan loan) {
+        remove(loan, loan.getDueDate());
+    }
+
+    /**
+     * Déplace un emprunt après changement de sa date de retour.
+     * Sans effet si l'emprunt n'était pas indexé (emprunt clos).
+     */
+    public synchronized void move(Loan loan, Date oldDueDate) {
+        if (remove(loan, oldDueDate)) {
+            add(loan);
+        }
+    }
+
+    /**
+     * Emprunts dont la date de retour est strictement antérieure à time (ms).
+     */
+    public synchronized List<Loan> dueBefore(long time) {
+        List<Loan> result = new ArrayList<>();
+        for (Set<Loan> day : loansByDueDay.headMap(dayOf(time), true).values()) {
+            for (Loan loan : day) {
+                if (loan.getDueDate().getTime() < time) {
+                    result.add(loan);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Emprunts dont la date de retour est dans ]from, to] (ms).
+     */
+    public synchronized List<Loan> dueBetween(long from, long to) {
+        List<Loan> result = new ArrayList<>();
+        if (from >= to) {
+            return result;
+        }
+        for (Set<Loan> day : loansByDueDay.subMap(dayOf(from), true, dayOf(to), true).values()) {
+            for (Loan loan : day) {
+                long due = loan.getDueDate().getTime();
+                if (due > from && due <= to) {
+                    result.add(loan);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        loansByDueDay.clear();
+        size = 0;
+    }
+
+    private synchronized boolean remove(Loan loan, Date dueDate) {
+        if (dueDate == null) {
+            return false;
+        }
+        Long day = dayOf(dueDate);
+        Set<Loan> loans = loansByDueDay.get(day);
+        if (loans == null || !loans.remove(loan)) {
+            return false;
+        }
+        if (loans.isEmpty()) {
+            loansByDueDay.remove(day);
+        }
+        size--;
+        return true;
+    }
+
+    private static long dayOf(Date date) {
+        return dayOf(date.getTime());
+    }
+
+    private static long dayOf(long time) {
+        return Math.floorDiv(time, DateUtils.ONE_DAY_MS);
+    }
+}
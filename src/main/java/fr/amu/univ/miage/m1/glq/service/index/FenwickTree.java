@@ -0,0 +1,86 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import java.util.Arrays;
+
+/**
+ * Arbre de Fenwick (Binary Indexed Tree) sur des compteurs entiers.
+ *
+ * Permet de modifier un compteur et de calculer une somme préfixe en
+ * O(log n). La taille double automatiquement quand un indice dépasse
+ * la capacité.
+ */
+public class FenwickTree {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // tree[i] (indices 1..n) contient la somme d'une plage de compteurs
+    private int[] tree;
+    private int[] values;
+
+    public FenwickTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FenwickTree(int capacity) {
+        this.tree = new int[Math.max(capacity, 1) + 1];
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Ajoute delta au compteur d'indice index (à partir de 0).
+     */
+    public void add(int index, int delta) {
+        ensureCapacity(index + 1);
+        values[index] += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Somme des compteurs d'indices 0 à index inclus.
+     */
+    public int prefixSum(int index) {
+        int sum = 0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Valeur du compteur d'indice index.
+     */
+    public int get(int index) {
+        return index < values.length ? values[index] : 0;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public void clear() {
+        Arrays.fill(tree, 0);
+        Arrays.fill(values, 0);
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= values.length) {
+            return;
+        }
+        int newCapacity = values.length;
+        while (newCapacity < size) {
+            newCapacity *= 2;
+        }
+        // Reconstruction en O(n) à partir des valeurs
+        values = Arrays.copyOf(values, newCapacity);
+        tree = new int[newCapacity + 1];
+        for (int i = 1; i <= newCapacity; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= newCapacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index secondaire des livres par ISBN normalisé.
+ *
+ * Les ISBN sont normalisés (tirets et espaces retirés, ISBN-10 converti
+ * en ISBN-13) pour qu'une recherche par "0-13-235088-2" ou
+ * "978-0132350884" retrouve le même livre en temps constant.
+ *
+ * Plusieurs livres peuvent partager un ISBN : la recherche retourne
+ * alors le premier indexé, comme le parcours séquentiel d'origine.
+ *
+ * Non thread-safe : LibraryManager le protège par le verrou du catalogue.
+ */
+public class IsbnIndex {
+
+    private final Map<String, List<Book>> booksByIsbn = new HashMap<>();
+
+    // Clé sous laquelle chaque livre est indexé (pour le retrait après modification)
+    private final Map<String, String> isbnByBookId = new HashMap<>();
+
+    /**
+     * Indexe un livre (ou le réindexe si son ISBN a changé).
+     */
+    public void add(Book book) {
+        remove(book.getId());
+        String key = normalize(book.getIsbn());
+        if (key == null) {
+            return;
+        }
+        booksByIsbn.computeIfAbsent(key, k -> new ArrayList<>(1)).add(book);
+        isbnByBookId.put(book.getId(), key);
+    }
+
+    /**
+     * Retire un livre de l'index.
+     */
+    public void remove(String bookId) {
+        String key = isbnByBookId.remove(bookId);
+        if (key == null) {
+            return;
+        }
+        List<Book> candidates = booksByIsbn.get(key);
+        candidates.removeIf(b -> b.getId().equals(bookId));
+        if (candidates.isEmpty()) {
+            booksByIsbn.remove(key);
+        }
+    }
+
+    /**
+     * Retourne le livre correspondant à l'ISBN, ou null.
+     */
+    public Book get(String isbn) {
+        String key = normalize(isbn);
+        if (key == null) {
+            return null;
+        }
+        List<Book> candidates = booksByIsbn.get(key);
+        return candidates == null ? null : candidates.get(0);
+    }
+
+    public int size() {
+        return isbnByBookId.size();
+    }
+
+    public void clear() {
+        booksByIsbn.clear();
+        isbnByBookId.clear();
+    }
+
+    /**
+     * Normalise un ISBN : retire tirets et espaces, met en majuscules
+     * et convertit un ISBN-10 en ISBN-13 (préfixe 978, clé recalculée).
+     * Les valeurs qui ne sont pas des ISBN sont simplement nettoyées.
+     */
+    public static String normalize(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && c != ' ') {
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        if (isIsbn10(sb)) {
+            return toIsbn13(sb);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isIsbn10(CharSequence s) {
+        if (s.length() != 10) {
+            return false;
+        }
+        for (int i = 0; i < 9; i++) {
+            if (!isAsciiDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        char last = s.charAt(9);
+        return isAsciiDigit(last) || last == 'X';
+    }
+
+    // Character.isDigit accepte aussi les chiffres non ASCII (arabes, pleine chasse...)
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static String toIsbn13(CharSequence isbn10) {
+        StringBuilder sb = new StringBuilder(13);
+        sb.append("978").append(isbn10, 0, 9);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = sb.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        sb.append((10 - sum % 10) % 10);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index des emprunts par membre.
+ *
+ * Chaque membre a deux listes : les emprunts en cours (ACTIVE ou OVERDUE)
+ * et les emprunts clos (RETURNED). Les contrôles de createLoan ne touchent
+ * ainsi que les emprunts du membre concerné, et non tout l'historique.
+ *
+ * La table des membres est concurrente ; les listes d'un membre doivent
+ * être lues et modifiées sous le verrou de ce membre.
+ */
+public class MemberLoanIndex {
+
+    private final Map<String, MemberLoans> loansByMember = new ConcurrentHashMap<>();
+
+    private static class MemberLoans {
+        final List<Loan> open = new ArrayList<>(4);
+        final List<Loan> closed = new ArrayList<>();
+    }
+
+    /**
+     * Enregistre un nouvel emprunt en cours.
+     */
+    public void addOpen(Loan loan) {
+        loansByMember.computeIfAbsent(loan.getMemberId(), k -> new MemberLoans()).open.add(loan);
+    }
+
+    /**
+     * Passe un emprunt de la liste "en cours" à la liste "clos".
+     */
+    public void close(Loan loan) {
+        MemberLoans memberLoans = loansByMember.get(loan.getMemberId());
+        if (memberLoans != null && memberLoans.open.remove(loan)) {
+            memberLoans.closed.add(loan);
+        }
+    }
+
+    /**
+     * Retire un emprunt de l'index (emprunt clos archivé hors du tas).
+     */
+    public void remove(Loan loan) {
+        MemberLoans memberLoans = loansByMember.get(loan.getMemberId());
+        if (memberLoans != null && !memberLoans.closed.remove(loan)) {
+            memberLoans.open.remove(loan);
+        }
+    }
+
+    /**
+     * Emprunts en cours (ACTIVE / OVERDUE) du membre. Vue non modifiable.
+     */
+    public List<Loan> openLoans(String memberId) {
+        MemberLoans memberLoans = loansByMember.get(memberId);
+        return memberLoans == null ? Collections.emptyList() : Collections.unmodifiableList(memberLoans.open);
+    }
+
+    /**
+     * Emprunts clos du membre. Vue non modifiable.
+     */
+    public List<Loan> closedLoans(String memberId) {
+        MemberLoans memberLoans = loansByMember.get(memberId);
+        return memberLoans == null ? Collections.emptyList() : Collections.unmodifiableList(memberLoans.closed);
+    }
+
+    /**
+     * Tous les emprunts du membre (en cours puis clos), dans une nouvelle liste.
+     */
+    public List<Loan> allLoans(String memberId) {
+        MemberLoans memberLoans = loansByMember.get(memberId);
+        if (memberLoans == null) {
+            return new ArrayList<>();
+        }
+        List<Loan> all = new ArrayList<>(memberLoans.open.size() + memberLoans.closed.size());
+        all.addAll(memberLoans.open);
+        all.addAll(memberLoans.closed);
+        return all;
+    }
+
+    public void clear() {
+        loansByMember.clear();
+    }
+}
@@ -0,0 +1,150 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * File d'attente FIFO des réservations PENDING d'un livre.
+ *
+ * Chaque réservation reçoit un numéro d'emplacement croissant à l'entrée
+ * en file. Les réservations étant créées avec la date courante, l'ordre
+ * des emplacements est celui des dates de réservation.
+ *
+ * La tête de file est mémorisée (lecture en O(1)) ; ajout et retrait sont
+ * en O(log n) amorti. La position d'une réservation est calculée à la
+ * demande par un arbre de Fenwick sur les emplacements occupés. Les
+ * emplacements libérés ne sont pas réutilisés : quand leur nombre dépasse
+ * celui des réservations en file, les réservations sont renumérotées et
+ * l'arbre reconstruit, ce qui borne sa taille par celle de la file.
+ *
+ * Non thread-safe : LibraryManager la protège par le verrou du livre.
+ * Seul isEmpty() peut être lu sans verrou (tête de file volatile).
+ */
+public class ReservationQueue {
+
+    // En deçà, pas de renumérotation : l'arbre par défaut suffit
+    private static final int MIN_COMPACT_SLOTS = 64;
+
+    private final TreeMap<Integer, Reservation> queue = new TreeMap<>();
+    private final Map<String, Integer> slotsByReservationId = new HashMap<>();
+    private final Map<String, Reservation> reservationsByMemberId = new HashMap<>();
+    private FenwickTree occupiedSlots = new FenwickTree();
+    private int nextSlot;
+    private volatile Reservation head;
+
+    /**
+     * Ajoute une réservation en fin de file et retourne sa position (1 = tête).
+     */
+    public int add(Reservation reservation) {
+        if (nextSlot >= MIN_COMPACT_SLOTS && nextSlot >= 2 * queue.size()) {
+            compact();
+        }
+        int slot = nextSlot++;
+        queue.put(slot, reservation);
+        slotsByReservationId.put(reservation.getId(), slot);
+        reservationsByMemberId.put(reservation.getMemberId(), reservation);
+        occupiedSlots.add(slot, 1);
+        if (head == null) {
+            head = reservation;
+        }
+        return queue.size();
+    }
+
+    /**
+     * Retire une réservation de la file. Retourne false si elle n'y était pas.
+     */
+    public boolean remove(Reservation reservation) {
+        Integer slot = slotsByReservationId.remove(reservation.getId());
+        if (slot == null) {
+            return false;
+        }
+        queue.remove(slot);
+        reservationsByMemberId.remove(reservation.getMemberId());
+        occupiedSlots.add(slot, -1);
+        if (queue.isEmpty()) {
+            // File vide : on repart de l'emplacement 0 avec un arbre neuf
+            head = null;
+            nextSlot = 0;
+            occupiedSlots = new FenwickTree();
+        } else if (head == reservation) {
+            head = queue.firstEntry().getValue();
+        }
+        return true;
+    }
+
+    // Renumérote les réservations en file de 0 à size() - 1, dans l'ordre, en O(n log n)
+    private void compact() {
+        List<Reservation> ordered = new ArrayList<>(queue.values());
+        queue.clear();
+        occupiedSlots = new FenwickTree(Math.max(2 * ordered.size(), MIN_COMPACT_SLOTS));
+        for (int slot = 0; slot < ordered.size(); slot++) {
+            Reservation reservation = ordered.get(slot);
+            queue.put(slot, reservation);
+            slotsByReservationId.put(reservation.getId(), slot);
+            occupiedSlots.add(slot, 1);
+        }
+        nextSlot = ordered.size();
+    }
+
+    /**
+     * Position (1 = tête) de la réservation dans la file, ou 0 si elle n'y est pas.
+     */
+    public int positionOf(String reservationId) {
+        Integer slot = slotsByReservationId.get(reservationId);
+        return slot == null ? 0 : occupiedSlots.prefixSum(slot);
+    }
+
+    /**
+     * Tête de file (prochain réservataire), ou null si la file est vide.
+     */
+    public Reservation peek() {
+        return head;
+    }
+
+    /**
+     * Retire et retourne la tête de file.
+     */
+    public Reservation poll() {
+        Reservation first = head;
+        if (first != null) {
+            remove(first);
+        }
+        return first;
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Nombre d'emplacements numérotés depuis la dernière renumérotation,
+     * occupés ou libérés. Après un ajout, il ne dépasse pas
+     * max(2 × size(), 64) + 1.
+     */
+    public int capacity() {
+        return nextSlot;
+    }
+
+    /**
+     * Indique si le membre a déjà une réservation dans cette file.
+     */
+    public boolean containsMember(String memberId) {
+        return reservationsByMemberId.containsKey(memberId);
+    }
+
+    /**
+     * Copie des réservations dans l'ordre de la file.
+     */
+    public List<Reservation> toList() {
+        return new ArrayList<>(queue.values());
+    }
+}
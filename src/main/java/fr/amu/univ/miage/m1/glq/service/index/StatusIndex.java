@@ -0,0 +1,69 @@
+package fr.amu.univ.miage.m1.glq.service.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partition des entités par statut (EnumMap statut -> ensemble).
+ *
+ * "Tous les emprunts actifs" devient une vue directe de la partition ACTIVE
+ * au lieu d'un parcours de toutes les entités avec comparaison de chaînes.
+ *
+ * Thread-safe : une partition par statut, créée à la construction, chacune
+ * étant un ensemble concurrent. Un déplacement n'est pas atomique : une
+ * lecture concurrente peut voir l'entité dans les deux partitions ou dans
+ * aucune.
+ */
+public class StatusIndex<S extends Enum<S>, E> {
+
+    private final Map<S, Set<E>> partitions;
+
+    public StatusIndex(Class<S> statusType) {
+        this.partitions = new EnumMap<>(statusType);
+        for (S status : statusType.getEnumConstants()) {
+            partitions.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public void add(E entity, S status) {
+        if (status != null) {
+            partitions.get(status).add(entity);
+        }
+    }
+
+    public void remove(E entity, S status) {
+        if (status != null) {
+            partitions.get(status).remove(entity);
+        }
+    }
+
+    /**
+     * Fait passer l'entité de la partition oldStatus à newStatus.
+     */
+    public void move(E entity, S oldStatus, S newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        add(entity, newStatus);
+        remove(entity, oldStatus);
+    }
+
+    /**
+     * Entités ayant ce statut. Vue non modifiable, mise à jour en direct.
+     */
+    public Collection<E> view(S status) {
+        return Collections.unmodifiableSet(partitions.get(status));
+    }
+
+    public int count(S status) {
+        return partitions.get(status).size();
+    }
+
+    public void clear() {
+        partitions.values().forEach(Set::clear);
+    }
+}
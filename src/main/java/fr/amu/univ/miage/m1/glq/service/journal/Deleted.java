@@ -0,0 +1,7 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+/**
+ * Image de suppression d'une entité dans un enregistrement du journal.
+ */
+public record Deleted(EntityKind kind, String id) {
+}
@@ -0,0 +1,182 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+
+import java.nio.ByteBuffer;
+
+import static fr.amu.univ.miage.m1.glq.service.journal.RecordBuffer.getDate;
+import static fr.amu.univ.miage.m1.glq.service.journal.RecordBuffer.getString;
+
+/**
+ * Encodage binaire des images d'entités, commun au journal et aux instantanés.
+ *
+ * Chaque image commence par un octet de type : 1 à 4 pour une entité
+ * (Book, Member, Loan, Reservation), 11 à 14 pour sa suppression.
+ */
+final class EntityCodec {
+
+    private static final int BOOK = 1;
+    private static final int MEMBER = 2;
+    private static final int LOAN = 3;
+    private static final int RESERVATION = 4;
+    private static final int DELETED = 10;
+
+    private EntityCodec() {
+    }
+
+    static void write(Object image, RecordBuffer out) {
+        switch (image) {
+            case Book book -> writeBook(book, out);
+            case Member member -> writeMember(member, out);
+            case Loan loan -> writeLoan(loan, out);
+            case Reservation reservation -> writeReservation(reservation, out);
+            case Deleted deleted -> {
+                out.putByte(DELETED + deleted.kind().ordinal() + 1);
+                out.putString(deleted.id());
+            }
+            default -> throw new IllegalArgumentException("Entité non journalisable : " + image.getClass());
+        }
+    }
+
+    static Object read(ByteBuffer in) {
+        int kind = in.get();
+        return switch (kind) {
+            case BOOK -> readBook(in);
+            case MEMBER -> readMember(in);
+            case LOAN -> readLoan(in);
+            case RESERVATION -> readReservation(in);
+            case DELETED + BOOK, DELETED + MEMBER, DELETED + LOAN, DELETED + RESERVATION ->
+                new Deleted(EntityKind.values()[kind - DELETED - 1], getString(in));
+            default -> throw new IllegalStateException("Type d'image inconnu : " + kind);
+        };
+    }
+
+    private static void writeBook(Book book, RecordBuffer out) {
+        out.putByte(BOOK);
+        out.putString(book.getId());
+        out.putString(book.getTitle());
+        out.putString(book.getAuthor());
+        out.putString(book.getIsbn());
+        out.putInt(book.getYear());
+        out.putInt(book.getCopies());
+        out.putInt(book.getAvailableCopies());
+        out.putString(book.getCategory());
+        out.putBoolean(book.isActive());
+    }
+
+    private static Book readBook(ByteBuffer in) {
+        Book book = new Book();
+        book.setId(getString(in));
+        book.setTitle(getString(in));
+        book.setAuthor(getString(in));
+        book.setIsbn(getString(in));
+        book.setYear(in.getInt());
+        book.setCopies(in.getInt());
+        book.setAvailableCopies(in.getInt());
+        book.setCategory(getString(in));
+        book.setActive(in.get() != 0);
+        return book;
+    }
+
+    private static void writeMember(Member member, RecordBuffer out) {
+        out.putByte(MEMBER);
+        out.putString(member.getId());
+        out.putString(member.getFirstName());
+        out.putString(member.getLastName());
+        out.putString(member.getEmail());
+        out.putString(member.getPhone());
+        out.putString(member.getStreetAddress());
+        out.putString(member.getCity());
+        out.putString(member.getZipCode());
+        out.putString(member.getCountry());
+        out.putDate(member.getBirthDate());
+        out.putDate(member.getMembershipDate());
+        out.putDate(member.getMembershipExpiryDate());
+        out.putString(member.getMemberType());
+        out.putInt(member.getLoanQuota());
+        out.putBoolean(member.isActive());
+        out.putInt(member.getCurrentLoansCount());
+        out.putInt(member.getTotalLoansCount());
+        out.putInt(member.getLateReturnsCount());
+    }
+
+    private static Member readMember(ByteBuffer in) {
+        Member member = new Member();
+        member.setId(getString(in));
+        member.setFirstName(getString(in));
+        member.setLastName(getString(in));
+        member.setEmail(getString(in));
+        member.setPhone(getString(in));
+        member.setStreetAddress(getString(in));
+        member.setCity(getString(in));
+        member.setZipCode(getString(in));
+        member.setCountry(getString(in));
+        member.setBirthDate(getDate(in));
+        member.setMembershipDate(getDate(in));
+        member.setMembershipExpiryDate(getDate(in));
+        member.setMemberType(getString(in));
+        member.setLoanQuota(in.getInt());
+        member.setActive(in.get() != 0);
+        member.setCurrentLoansCount(in.getInt());
+        member.setTotalLoansCount(in.getInt());
+        member.setLateReturnsCount(in.getInt());
+        return member;
+    }
+
+    private static void writeLoan(Loan loan, RecordBuffer out) {
+        out.putByte(LOAN);
+        out.putString(loan.getId());
+        out.putString(loan.getMemberId());
+        out.putString(loan.getBookId());
+        out.putDate(loan.getLoanDate());
+        out.putDate(loan.getDueDate());
+        out.putDate(loan.getReturnDate());
+        out.putString(loan.getStatus());
+        out.putDouble(loan.getPenaltyAmount());
+        out.putInt(loan.getRenewalCount());
+        out.putInt(loan.getMaxRenewals());
+        out.putString(loan.getNotes());
+    }
+
+    private static Loan readLoan(ByteBuffer in) {
+        Loan loan = new Loan();
+        loan.setId(getString(in));
+        loan.setMemberId(getString(in));
+        loan.setBookId(getString(in));
+        loan.setLoanDate(getDate(in));
+        loan.setDueDate(getDate(in));
+        loan.setReturnDate(getDate(in));
+        loan.setStatus(getString(in));
+        loan.setPenaltyAmount(in.getDouble());
+        loan.setRenewalCount(in.getInt());
+        loan.setMaxRenewals(in.getInt());
+        loan.setNotes(getString(in));
+        return loan;
+    }
+
+    private static void writeReservation(Reservation reservation, RecordBuffer out) {
+        out.putByte(RESERVATION);
+        out.putString(reservation.getId());
+        out.putString(reservation.getMemberId());
+        out.putString(reservation.getBookId());
+        out.putDate(reservation.getReservationDate());
+        out.putDate(reservation.getExpiryDate());
+        out.putString(reservation.getStatus());
+        out.putInt(reservation.getQueuePosition());
+    }
+
+    private static Reservation readReservation(ByteBuffer in) {
+        Reservation reservation = new Reservation();
+        reservation.setId(getString(in));
+        reservation.setMemberId(getString(in));
+        reservation.setBookId(getString(in));
+        reservation.setReservationDate(getDate(in));
+        reservation.setExpiryDate(getDate(in));
+        reservation.setStatus(getString(in));
+        reservation.setQueuePosition(in.getInt());
+        return reservation;
+    }
+}
@@ -0,0 +1,11 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+/**
+ * Types d'entités journalisées.
+ */
+public enum EntityKind {
+    BOOK,
+    MEMBER,
+    LOAN,
+    RESERVATION
+}
@@ -0,0 +1,581 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal des modifications de la bibliothèque, en ajout seul, et instantanés.
+ *
+ * Chaque opération métier ajoute un enregistrement : longueur, CRC32C,
+ * numéro de séquence (LSN), opération, puis l'image complète de chaque
+ * entité touchée (voir EntityCodec). Rejouer une image est idempotent.
+ *
+ * Écriture : les enregistrements sont encodés hors verrou puis copiés dans
+ * un tampon partagé. commit() garantit que tout ce qui a été ajouté est sur
+ * disque : le premier thread arrivé écrit le tampon et fait le fsync pour
+ * tous ceux qui attendent derrière lui (group commit). Voir SyncPolicy.
+ *
+ * Instantanés : checkpoint() passe à un nouveau segment de journal, écrit
+ * l'état courant dans snapshot-LSN.bin, puis supprime les segments et
+ * instantanés plus anciens. Le redémarrage charge le dernier instantané
+ * valide et ne rejoue que les segments suivants : sa durée dépend de la
+ * taille de l'état, pas de la longueur de l'historique. Un instantané est
+ * pris toutes les snapshotEvery opérations par le thread de maintenance.
+ *
+ * Une fin de segment tronquée ou corrompue (écriture interrompue) arrête
+ * le rejeu ; le segment est coupé à cet endroit.
+ *
+ * Thread-safe.
+ */
+public class Journal implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(Journal.class);
+
+    public static final long DEFAULT_SYNC_INTERVAL_MS = 100;
+    public static final long DEFAULT_SNAPSHOT_EVERY = 100_000;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    // Longueur, CRC, LSN, opération, nombre d'images
+    private static final int RECORD_HEADER = 4 + 4 + 8 + 1 + 2;
+    private static final int CHECKED_FROM = 8;
+    private static final int WRITE_THRESHOLD = 256 * 1024;
+
+    private static final Journal DISABLED = new Journal();
+
+    private final Path dir;
+    private final SyncPolicy policy;
+    private final long snapshotEvery;
+    private final ThreadLocal<RecordBuffer> encoders = ThreadLocal.withInitial(() -> new RecordBuffer(512));
+
+    // Ordre de prise des verrous : checkpointLock, syncLock, appendLock
+    private final Object checkpointLock = new Object();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    // Protégés par appendLock
+    private final RecordBuffer pending = new RecordBuffer(WRITE_THRESHOLD + 4096);
+    private final CRC32C crc = new CRC32C();
+    private FileChannel segment;
+    private long lastLsn;
+
+    private volatile long appendedLsn;
+    private volatile long durableLsn;
+    private volatile long recordsSinceSnapshot;
+    private volatile boolean open;
+    private volatile Supplier<LibraryState> snapshotSource;
+    private LibraryState recovered;
+    private final long maintenancePeriodMs;
+    private final ScheduledExecutorService maintenance;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private long replayed;
+
+    /**
+     * Ouvre (ou crée) le journal du répertoire et reconstruit l'état qu'il contient
+     * (voir takeRecoveredState).
+     */
+    public static Journal open(Path dir, SyncPolicy policy, long syncIntervalMs, long snapshotEvery) {
+        Journal journal = new Journal(dir, policy, syncIntervalMs, snapshotEvery);
+        journal.start();
+        return journal;
+    }
+
+    private Journal(Path dir, SyncPolicy policy, long syncIntervalMs, long snapshotEvery) {
+        if (syncIntervalMs < 1 || snapshotEvery < 1) {
+            throw new IllegalArgumentException("Intervalle de synchronisation et d'instantané doivent être positifs");
+        }
+        this.dir = dir;
+        this.policy = policy;
+        this.snapshotEvery = snapshotEvery;
+        try {
+            Files.createDirectories(dir);
+            recover();
+            segment = openSegment(lastLsn + 1);
+        } catch (IOException e) {
+            throw new RuntimeException("Journal illisible (" + dir + ") : " + e.getMessage(), e);
+        }
+        appendedLsn = lastLsn;
+        durableLsn = lastLsn;
+        open = true;
+        this.maintenancePeriodMs = policy == SyncPolicy.PERIODIC ? syncIntervalMs : 1_000;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Journal() {
+        this.dir = null;
+        this.policy = SyncPolicy.OS;
+        this.snapshotEvery = Long.MAX_VALUE;
+        this.maintenancePeriodMs = 0;
+        this.maintenance = null;
+    }
+
+    // Hors du constructeur : le thread de maintenance ne voit qu'une instance construite
+    private void start() {
+        maintenance.scheduleWithFixedDelay(this::maintain, maintenancePeriodMs, maintenancePeriodMs,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Journal inactif : rien n'est écrit ni relu.
+     */
+    public static Journal disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Journal du répertoire library.journal.dir (inactif si la propriété est absente),
+     * réglé par library.journal.sync, library.journal.syncInterval (ms) et
+     * library.journal.snapshotEvery (nombre d'opérations).
+     */
+    public static Journal fromSystemProperties() {
+        String dir = System.getProperty("library.journal.dir");
+        if (dir == null || dir.isBlank()) {
+            return DISABLED;
+        }
+        return open(Paths.get(dir), SyncPolicy.parse(System.getProperty("library.journal.sync")),
+            Long.getLong("library.journal.syncInterval", DEFAULT_SYNC_INTERVAL_MS),
+            Long.getLong("library.journal.snapshotEvery", DEFAULT_SNAPSHOT_EVERY));
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    // ==================== RELECTURE ====================
+
+    private void recover() throws IOException {
+        StateBuilder state = new StateBuilder();
+        long baseLsn = 0;
+        for (Path snapshot : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, true)) {
+            try {
+                baseLsn = Snapshot.read(snapshot, state);
+                LOG.info("Instantané chargé : {}", snapshot.getFileName());
+                break;
+            } catch (IOException e) {
+                LOG.warn("Instantané ignoré : {}", e.getMessage());
+                state = new StateBuilder();
+            }
+        }
+        lastLsn = baseLsn;
+        boolean truncated = false;
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX, false)) {
+            if (truncated) {
+                // Rien de fiable après une fin de segment coupée
+                LOG.warn("Segment ignoré après une fin de journal tronquée : {}", file.getFileName());
+                Files.delete(file);
+                continue;
+            }
+            truncated = !replay(file, baseLsn, state);
+        }
+        if (replayed > 0 || !state.isEmpty()) {
+            recovered = state.build();
+            LOG.info("Journal relu : {} enregistrement(s) rejoué(s), dernier LSN {}", replayed, lastLsn);
+        }
+    }
+
+    // Retourne false si le segment a dû être coupé
+    private boolean replay(Path file, long baseLsn, StateBuilder state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segment de journal trop grand : " + file);
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // lecture complète
+            }
+            data.flip();
+            CRC32C check = new CRC32C();
+            while (data.hasRemaining()) {
+                int start = data.position();
+                if (!isValidRecord(data, start, check)) {
+                    LOG.warn("Fin de journal tronquée à l'octet {} de {}, coupée", start, file.getFileName());
+                    channel.truncate(start);
+                    channel.force(true);
+                    return false;
+                }
+                int length = data.getInt(start);
+                data.position(start + CHECKED_FROM);
+                long lsn = data.getLong();
+                Operation.of(data.get());
+                int count = data.getShort() & 0xFFFF;
+                if (lsn > baseLsn) {
+                    for (int i = 0; i < count; i++) {
+                        state.apply(EntityCodec.read(data));
+                    }
+                    replayed++;
+                }
+                lastLsn = Math.max(lastLsn, lsn);
+                data.position(start + CHECKED_FROM + length);
+            }
+            return true;
+        }
+    }
+
+    private static boolean isValidRecord(ByteBuffer data, int start, CRC32C check) {
+        if (data.limit() - start < CHECKED_FROM) {
+            return false;
+        }
+        int length = data.getInt(start);
+        if (length < RECORD_HEADER - CHECKED_FROM || length > data.limit() - start - CHECKED_FROM) {
+            return false;
+        }
+        check.reset();
+        check.update(data.slice(start + CHECKED_FROM, length));
+        return (int) check.getValue() == data.getInt(start + 4);
+    }
+
+    /**
+     * État reconstruit à l'ouverture (instantané puis fin du journal), ou null
+     * si le journal était vide. Ne peut être pris qu'une fois.
+     */
+    public synchronized LibraryState takeRecoveredState() {
+        LibraryState state = recovered;
+        recovered = null;
+        return state;
+    }
+
+    // ==================== ÉCRITURE ====================
+
+    /**
+     * Ajoute un enregistrement avec les images données (Book, Member, Loan,
+     * Reservation ou Deleted ; les null sont ignorés) et retourne son LSN.
+     * L'enregistrement n'est garanti sur disque qu'après commit().
+     *
+     * À appeler sous les verrous qui protègent les entités : l'image est lue
+     * pendant l'appel et l'ordre du journal doit être celui des modifications.
+     */
+    public long append(Operation operation, Object... images) {
+        if (dir == null) {
+            return 0;
+        }
+        RecordBuffer record = encoders.get();
+        record.reset();
+        int count = 0;
+        for (Object image : images) {
+            if (image != null) {
+                count++;
+            }
+        }
+        record.putInt(0);
+        record.putInt(0);
+        record.putLong(0);
+        record.putByte(operation.ordinal());
+        record.putShort(count);
+        for (Object image : images) {
+            if (image != null) {
+                EntityCodec.write(image, record);
+            }
+        }
+        appendLock.lock();
+        try {
+            if (!open) {
+                throw new RuntimeException("Journal fermé : opération " + operation + " non journalisée");
+            }
+            long lsn = ++lastLsn;
+            record.patchLong(CHECKED_FROM, lsn);
+            crc.reset();
+            crc.update(record.array(), CHECKED_FROM, record.size() - CHECKED_FROM);
+            record.patchInt(0, record.size() - CHECKED_FROM);
+            record.patchInt(4, (int) crc.getValue());
+            pending.put(record.array(), 0, record.size());
+            if (pending.size() >= WRITE_THRESHOLD) {
+                writePending();
+            }
+            appendedLsn = lsn;
+            recordsSinceSnapshot++;
+            records.increment();
+            return lsn;
+        } catch (IOException e) {
+            throw new RuntimeException("Écriture du journal impossible : " + e.getMessage(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Avec SyncPolicy.EVERY_COMMIT, attend que tout ce qui a été ajouté
+     * jusqu'ici soit sur disque. Sans effet avec les autres politiques.
+     *
+     * À appeler hors des verrous métier, pour que les threads qui attendent
+     * le même fsync ne se bloquent pas entre eux.
+     */
+    public void commit() {
+        if (dir != null && policy == SyncPolicy.EVERY_COMMIT) {
+            sync(appendedLsn);
+        }
+    }
+
+    /**
+     * Force sur disque tous les enregistrements jusqu'à lsn inclus. Un seul
+     * fsync couvre tout ce qui a été ajouté avant lui.
+     */
+    public void sync(long lsn) {
+        if (dir == null || durableLsn >= lsn) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableLsn >= lsn) {
+                return;
+            }
+            long upTo;
+            FileChannel channel;
+            appendLock.lock();
+            try {
+                upTo = lastLsn;
+                writePending();
+                channel = segment;
+            } finally {
+                appendLock.unlock();
+            }
+            // fsync hors appendLock : les autres threads continuent d'ajouter pour le lot suivant
+            channel.force(false);
+            durableLsn = upTo;
+            syncs.increment();
+        } catch (IOException e) {
+            throw new RuntimeException("Écriture du journal impossible : " + e.getMessage(), e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // Appelé avec appendLock
+    private void writePending() throws IOException {
+        ByteBuffer data = pending.asByteBuffer();
+        while (data.hasRemaining()) {
+            segment.write(data);
+        }
+        pending.reset();
+    }
+
+    // ==================== INSTANTANÉS ====================
+
+    /**
+     * Source de l'état à écrire dans les instantanés (collections vivantes acceptées).
+     */
+    public void setSnapshotSource(Supplier<LibraryState> source) {
+        this.snapshotSource = source;
+    }
+
+    /**
+     * Écrit un instantané de l'état courant et supprime le journal qu'il remplace.
+     * Retourne false si le journal est inactif ou sans source d'état.
+     */
+    public boolean checkpoint() {
+        Supplier<LibraryState> source = snapshotSource;
+        if (dir == null || source == null) {
+            return false;
+        }
+        synchronized (checkpointLock) {
+            try {
+                long baseLsn = roll();
+                Path target = dir.resolve(fileName(SNAPSHOT_PREFIX, baseLsn, SNAPSHOT_SUFFIX));
+                Path temp = dir.resolve(target.getFileName() + ".tmp");
+                // Instantané flou : les images écrites après baseLsn seront rejouées par-dessus
+                Snapshot.write(temp, baseLsn, source.get());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                // Le renommage doit être sur disque avant de supprimer ce qu'il remplace
+                syncDirectory();
+                deleteBefore(baseLsn);
+                snapshots.increment();
+                LOG.info("Instantané écrit : {}", target.getFileName());
+                return true;
+            } catch (IOException e) {
+                throw new RuntimeException("Instantané impossible : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Ferme le segment courant (sur disque) et en ouvre un nouveau ; retourne le dernier LSN fermé
+    private long roll() throws IOException {
+        syncLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                if (!open) {
+                    throw new IOException("Journal fermé");
+                }
+                writePending();
+                segment.force(false);
+                segment.close();
+                long baseLsn = lastLsn;
+                durableLsn = baseLsn;
+                segment = openSegment(baseLsn + 1);
+                recordsSinceSnapshot = 0;
+                return baseLsn;
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void deleteBefore(long baseLsn) throws IOException {
+        for (Path snapshot : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, false)) {
+            if (lsnOf(snapshot, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < baseLsn) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX, false)) {
+            if (lsnOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) <= baseLsn) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void maintain() {
+        try {
+            if (policy == SyncPolicy.PERIODIC) {
+                sync(appendedLsn);
+            }
+            if (recordsSinceSnapshot >= snapshotEvery) {
+                checkpoint();
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Maintenance du journal en échec : {}", e.getMessage(), e);
+        }
+    }
+
+    // ==================== FICHIERS ====================
+
+    // L'entrée du nouveau segment est forcée sur disque : sans elle, un fsync du segment ne suffit pas
+    private FileChannel openSegment(long firstLsn) throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(fileName(SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX)),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            syncDirectory();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    // fsync du répertoire : rend durables les créations, renommages et suppressions de fichiers
+    private void syncDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    private static String fileName(String prefix, long lsn, String suffix) {
+        String digits = Long.toString(lsn);
+        return prefix + "0".repeat(Math.max(0, 20 - digits.length())) + digits + suffix;
+    }
+
+    private static long lsnOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    // Fichiers du type demandé, triés par LSN
+    private List<Path> list(String prefix, String suffix, boolean newestFirst) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(dir)) {
+            entries.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix)
+                    && name.length() == prefix.length() + 20 + suffix.length();
+            }).forEach(files::add);
+        }
+        Comparator<Path> byLsn = Comparator.comparingLong(path -> lsnOf(path, prefix, suffix));
+        files.sort(newestFirst ? byLsn.reversed() : byLsn);
+        return files;
+    }
+
+    /**
+     * Écrit et force sur disque ce qui reste, puis ferme le segment courant.
+     */
+    @Override
+    public void close() {
+        if (dir == null || !open) {
+            return;
+        }
+        maintenance.shutdownNow();
+        synchronized (checkpointLock) {
+            syncLock.lock();
+            appendLock.lock();
+            try {
+                if (!open) {
+                    return;
+                }
+                open = false;
+                writePending();
+                segment.force(false);
+                durableLsn = lastLsn;
+                segment.close();
+            } catch (IOException e) {
+                LOG.error("Fermeture du journal en échec : {}", e.getMessage(), e);
+            } finally {
+                appendLock.unlock();
+                syncLock.unlock();
+            }
+        }
+    }
+
+    public SyncPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getLastLsn() {
+        return appendedLsn;
+    }
+
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    /**
+     * Nombre de fsync du journal (inférieur au nombre d'enregistrements grâce au group commit).
+     */
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    /**
+     * Enregistrements rejoués à l'ouverture, après le dernier instantané.
+     */
+    public long getReplayedCount() {
+        return replayed;
+    }
+}
@@ -0,0 +1,16 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+
+import java.util.Collection;
+
+/**
+ * Contenu complet de la bibliothèque : source d'un instantané, ou état
+ * reconstruit au redémarrage (instantané puis fin du journal).
+ */
+public record LibraryState(Collection<Book> books, Collection<Member> members,
+                           Collection<Loan> loans, Collection<Reservation> reservations) {
+}
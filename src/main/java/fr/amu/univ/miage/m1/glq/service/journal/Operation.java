@@ -0,0 +1,31 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+/**
+ * Opération métier à l'origine d'un enregistrement du journal.
+ *
+ * Le rejeu ne dépend que des images d'entités de l'enregistrement ;
+ * l'opération sert au diagnostic.
+ */
+public enum Operation {
+    ADD_BOOK,
+    UPDATE_BOOK,
+    DELETE_BOOK,
+    ADD_MEMBER,
+    UPDATE_MEMBER,
+    DELETE_MEMBER,
+    CREATE_LOAN,
+    RETURN_LOAN,
+    RENEW_LOAN,
+    UPDATE_LOAN,
+    CREATE_RESERVATION,
+    CANCEL_RESERVATION;
+
+    private static final Operation[] VALUES = values();
+
+    static Operation of(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalStateException("Opération de journal inconnue : " + code);
+        }
+        return VALUES[code];
+    }
+}
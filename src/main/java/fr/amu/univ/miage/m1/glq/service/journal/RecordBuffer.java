@@ -0,0 +1,129 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Tampon d'encodage binaire extensible (gros-boutiste, comme ByteBuffer).
+ *
+ * Chaînes : longueur UTF-8 puis octets, -1 pour null.
+ * Dates : millisecondes, Long.MIN_VALUE pour null.
+ */
+final class RecordBuffer {
+
+    static final long NULL_DATE = Long.MIN_VALUE;
+
+    private byte[] bytes;
+    private int size;
+
+    RecordBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    void putByte(int value) {
+        ensure(1);
+        bytes[size++] = (byte) value;
+    }
+
+    void putShort(int value) {
+        ensure(2);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+    }
+
+    void putInt(int value) {
+        ensure(4);
+        patchInt(size, value);
+        size += 4;
+    }
+
+    void putLong(long value) {
+        ensure(8);
+        patchLong(size, value);
+        size += 8;
+    }
+
+    void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    void putBoolean(boolean value) {
+        putByte(value ? 1 : 0);
+    }
+
+    void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        putInt(utf8.length);
+        put(utf8, 0, utf8.length);
+    }
+
+    void putDate(Date value) {
+        putLong(value == null ? NULL_DATE : value.getTime());
+    }
+
+    void put(byte[] source, int offset, int length) {
+        ensure(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    void patchInt(int position, int value) {
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+
+    void patchLong(int position, long value) {
+        patchInt(position, (int) (value >>> 32));
+        patchInt(position + 4, (int) value);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (in.hasArray()) {
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static Date getDate(ByteBuffer in) {
+        long millis = in.getLong();
+        return millis == NULL_DATE ? null : new Date(millis);
+    }
+}
@@ -0,0 +1,100 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32C;
+
+/**
+ * Instantané binaire compact de la bibliothèque.
+ *
+ * Format : magique, version, LSN de base (dernier enregistrement du journal
+ * couvert), images (voir EntityCodec), puis CRC32C de tout ce qui précède. L'instantané est écrit dans un fichier temporaire,
+ * forcé sur disque puis renommé : un fichier présent est toujours complet.
+ */
+final class Snapshot {
+
+    private static final int MAGIC = 0x42545350; // "BTSP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private Snapshot() {
+    }
+
+    static void write(Path file, long baseLsn, LibraryState state) throws IOException {
+        CRC32C crc = new CRC32C();
+        RecordBuffer buffer = new RecordBuffer(CHUNK_SIZE + 4096);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(baseLsn);
+            // Collections vivantes : une entité modifiée pendant l'écriture sera corrigée par le rejeu
+            writeAll(state.books(), buffer, channel, crc);
+            writeAll(state.members(), buffer, channel, crc);
+            writeAll(state.loans(), buffer, channel, crc);
+            writeAll(state.reservations(), buffer, channel, crc);
+            drain(buffer, channel, crc);
+            writeFully(channel, ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip());
+            channel.force(true);
+        }
+    }
+
+    private static void writeAll(Collection<?> entities, RecordBuffer buffer, FileChannel channel,
+                                 CRC32C crc) throws IOException {
+        for (Object entity : entities) {
+            EntityCodec.write(entity, buffer);
+            if (buffer.size() >= CHUNK_SIZE) {
+                drain(buffer, channel, crc);
+            }
+        }
+    }
+
+    private static void drain(RecordBuffer buffer, FileChannel channel, CRC32C crc) throws IOException {
+        crc.update(buffer.array(), 0, buffer.size());
+        writeFully(channel, buffer.asByteBuffer());
+        buffer.reset();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * Charge un instantané dans le StateBuilder et retourne son LSN de base.
+     *
+     * @throws IOException si le fichier est illisible, tronqué ou corrompu
+     */
+    static long read(Path file, StateBuilder state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Taille d'instantané invalide : " + size);
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C crc = new CRC32C();
+            crc.update(data.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != data.getInt((int) size - 4)) {
+                throw new IOException("Somme de contrôle d'instantané invalide : " + file);
+            }
+            if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+                throw new IOException("Format d'instantané inconnu : " + file);
+            }
+            long baseLsn = data.getLong();
+            data.limit((int) size - 4);
+            while (data.hasRemaining()) {
+                state.apply(EntityCodec.read(data));
+            }
+            return baseLsn;
+        } catch (RuntimeException e) {
+            throw new IOException("Instantané illisible : " + file, e);
+        }
+    }
+}
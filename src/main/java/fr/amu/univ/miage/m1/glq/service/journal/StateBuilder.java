@@ -0,0 +1,50 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reconstruction de l'état : chaque image remplace la précédente de même
+ * identifiant, une suppression la retire. Rejouer une image déjà présente
+ * dans l'instantané ne change donc rien.
+ */
+final class StateBuilder {
+
+    private final Map<String, Book> books = new LinkedHashMap<>();
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    private final Map<String, Loan> loans = new LinkedHashMap<>();
+    private final Map<String, Reservation> reservations = new LinkedHashMap<>();
+
+    void apply(Object image) {
+        switch (image) {
+            case Book book -> books.put(book.getId(), book);
+            case Member member -> members.put(member.getId(), member);
+            case Loan loan -> loans.put(loan.getId(), loan);
+            case Reservation reservation -> reservations.put(reservation.getId(), reservation);
+            case Deleted deleted -> {
+                switch (deleted.kind()) {
+                    case BOOK -> books.remove(deleted.id());
+                    case MEMBER -> members.remove(deleted.id());
+                    case LOAN -> loans.remove(deleted.id());
+                    case RESERVATION -> reservations.remove(deleted.id());
+                }
+            }
+            default -> throw new IllegalArgumentException("Image inconnue : " + image.getClass());
+        }
+    }
+
+    boolean isEmpty() {
+        return books.isEmpty() && members.isEmpty() && loans.isEmpty() && reservations.isEmpty();
+    }
+
+    LibraryState build() {
+        return new LibraryState(new ArrayList<>(books.values()), new ArrayList<>(members.values()),
+            new ArrayList<>(loans.values()), new ArrayList<>(reservations.values()));
+    }
+}
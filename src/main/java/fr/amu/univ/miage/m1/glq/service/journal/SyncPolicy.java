@@ -0,0 +1,24 @@
+package fr.amu.univ.miage.m1.glq.service.journal;
+
+/**
+ * Moment où le journal est forcé sur disque (fsync).
+ */
+public enum SyncPolicy {
+    /** Avant de rendre la main à chaque opération, fsync partagés entre threads (group commit). */
+    EVERY_COMMIT,
+    /** Toutes les syncIntervalMs en arrière-plan : une panne peut perdre le dernier intervalle. */
+    PERIODIC,
+    /** Laissé au système (fermeture et changement de segment seulement). */
+    OS;
+
+    /**
+     * Lecture tolérante de la propriété library.journal.sync
+     * (every-commit, periodic, os).
+     */
+    public static SyncPolicy parse(String value) {
+        if (value == null || value.isBlank()) {
+            return EVERY_COMMIT;
+        }
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,230 @@
+package fr.amu.univ.miage.m1.glq.service.ledger;
+
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import fr.amu.univ.miage.m1.glq.util.DateUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Registre des emprunts en colonnes (une ligne par emprunt, un tableau
+ * primitif par champ) : membre, livre, jour d'emprunt, jour d'échéance,
+ * statut, pénalité en centimes, renouvellements.
+ *
+ * Les agrégats des rapports (statuts, pénalités, retards) lisent des
+ * tableaux contigus au lieu de suivre, pour chaque emprunt, les références
+ * vers Loan, Date, Member et Book. Le registre ne garde aucune référence
+ * vers les emprunts : les balayages qui rendent des Loan passent par
+ * DueDateIndex.
+ *
+ * La ligne d'un emprunt est la clé numérique de son identifiant (L00042 ->
+ * 42, voir PrefixedIdGenerator.key) ; les emprunts dont l'identifiant ne
+ * vient pas du générateur ne sont pas suivis. Jours : jours epoch UTC,
+ * comme DateUtils.ONE_DAY_MS. Membre et livre : clé numérique, -1 si
+ * l'identifiant n'a pas la forme du générateur.
+ *
+ * Maintenu par LibraryManager (création, observateur des emprunts,
+ * restauration). Thread-safe : les écritures prennent le verrou exclusif,
+ * les balayages le verrou partagé ; un balayage voit chaque ligne soit
+ * avant, soit après une écriture, jamais à moitié écrite.
+ */
+public class LoanLedger {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Colonne status : ordinal + 1, 0 = ligne vide
+    private static final LoanStatus[] STATUSES = LoanStatus.values();
+    // Jour d'une date null
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private final PrefixedIdGenerator loanIds;
+    private final PrefixedIdGenerator memberIds;
+    private final PrefixedIdGenerator bookIds;
+    private final StampedLock lock = new StampedLock();
+
+    private int[] member = new int[INITIAL_CAPACITY];
+    private int[] book = new int[INITIAL_CAPACITY];
+    private int[] loanDay = new int[INITIAL_CAPACITY];
+    private int[] dueDay = new int[INITIAL_CAPACITY];
+    private byte[] status = new byte[INITIAL_CAPACITY];
+    private int[] penaltyCents = new int[INITIAL_CAPACITY];
+    private byte[] renewals = new byte[INITIAL_CAPACITY];
+    // Une ligne de plus que la plus haute ligne écrite
+    private int rows;
+
+    public LoanLedger(PrefixedIdGenerator loanIds, PrefixedIdGenerator memberIds, PrefixedIdGenerator bookIds) {
+        this.loanIds = loanIds;
+        this.memberIds = memberIds;
+        this.bookIds = bookIds;
+    }
+
+    /**
+     * Écrit (ou réécrit) la ligne de l'emprunt à partir de son état actuel.
+     */
+    public void put(Loan loan) {
+        int row = loanIds.key(loan.getId());
+        if (row < 0) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(row + 1);
+            member[row] = memberIds.key(loan.getMemberId());
+            book[row] = bookIds.key(loan.getBookId());
+            loanDay[row] = dayOf(loan.getLoanDate());
+            dueDay[row] = dayOf(loan.getDueDate());
+            status[row] = (byte) (loan.getState() == null ? 0 : loan.getState().ordinal() + 1);
+            penaltyCents[row] = (int) Math.round(loan.getPenaltyAmount() * 100);
+            renewals[row] = (byte) Math.min(loan.getRenewalCount(), Byte.MAX_VALUE);
+            rows = Math.max(rows, row + 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(status, (byte) 0);
+            rows = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // ==================== AGRÉGATS ====================
+
+    /**
+     * Nombre d'emprunts par statut (indice : LoanStatus.ordinal()).
+     */
+    public long[] countByStatus() {
+        long[] counts = new long[STATUSES.length];
+        long stamp = lock.readLock();
+        try {
+            int count = rows;
+            for (int row = 0; row < count; row++) {
+                int s = status[row];
+                if (s != 0) {
+                    counts[s - 1]++;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return counts;
+    }
+
+    /**
+     * Somme des pénalités (centimes) des emprunts ayant ce statut.
+     */
+    public long penaltyCents(LoanStatus loanStatus) {
+        byte code = code(loanStatus);
+        long total = 0;
+        long stamp = lock.readLock();
+        try {
+            int count = rows;
+            for (int row = 0; row < count; row++) {
+                if (status[row] == code) {
+                    total += penaltyCents[row];
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return total;
+    }
+
+    /**
+     * Emprunts en cours échus au jour today (jour epoch) : nombre et total
+     * des jours de retard.
+     */
+    public Backlog overdueBacklog(long today) {
+        byte active = code(LoanStatus.ACTIVE);
+        byte overdue = code(LoanStatus.OVERDUE);
+        long loansLate = 0;
+        long daysLate = 0;
+        long stamp = lock.readLock();
+        try {
+            int count = rows;
+            for (int row = 0; row < count; row++) {
+                byte s = status[row];
+                int day = dueDay[row];
+                if ((s == active || s == overdue) && day != NO_DAY && day < today) {
+                    loansLate++;
+                    daysLate += today - day;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return new Backlog(loansLate, daysLate);
+    }
+
+    /**
+     * Retards en cours : nombre d'emprunts échus et somme de leurs jours de retard.
+     */
+    public record Backlog(long loans, long daysLate) {
+
+        public double averageDaysLate() {
+            return loans == 0 ? 0 : (double) daysLate / loans;
+        }
+    }
+
+    /**
+     * Visiteur d'une ligne du registre (statistiques ad hoc sans toucher au modèle objet).
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(int member, int book, int loanDay, int dueDay, LoanStatus status,
+                   int penaltyCents, int renewals);
+    }
+
+    /**
+     * Passe chaque ligne non vide au visiteur, dans l'ordre des identifiants.
+     */
+    public void forEach(RowVisitor visitor) {
+        long stamp = lock.readLock();
+        try {
+            int count = rows;
+            for (int row = 0; row < count; row++) {
+                int s = status[row];
+                if (s != 0) {
+                    visitor.visit(member[row], book[row], loanDay[row], dueDay[row], STATUSES[s - 1],
+                        penaltyCents[row], renewals[row]);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // ==================== INTERNE ====================
+
+    // Appelé sous le verrou exclusif
+    private void ensureCapacity(int required) {
+        if (required <= status.length) {
+            return;
+        }
+        int capacity = status.length;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        member = Arrays.copyOf(member, capacity);
+        book = Arrays.copyOf(book, capacity);
+        loanDay = Arrays.copyOf(loanDay, capacity);
+        dueDay = Arrays.copyOf(dueDay, capacity);
+        status = Arrays.copyOf(status, capacity);
+        penaltyCents = Arrays.copyOf(penaltyCents, capacity);
+        renewals = Arrays.copyOf(renewals, capacity);
+    }
+
+    private static byte code(LoanStatus loanStatus) {
+        return (byte) (loanStatus.ordinal() + 1);
+    }
+
+    private static int dayOf(Date date) {
+        return date == null ? NO_DAY : (int) Math.floorDiv(date.getTime(), DateUtils.ONE_DAY_MS);
+    }
+}
@@ -0,0 +1,13 @@
+package fr.amu.univ.miage.m1.glq.service.notification;
+
+/**
+ * Comportement quand la file de notifications est pleine.
+ */
+public enum BackPressurePolicy {
+    /** L'appelant attend qu'une place se libère, au plus le délai du dispatcher (perte au-delà). */
+    BLOCK,
+    /** Le message est abandonné et compté comme perdu. */
+    DROP,
+    /** Le message part dans une file de débordement non bornée, envoyée après la file principale. */
+    SPILL
+}
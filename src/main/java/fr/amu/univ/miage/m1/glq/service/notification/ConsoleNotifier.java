@@ -0,0 +1,38 @@
+package fr.amu.univ.miage.m1.glq.service.notification;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Simulation d'envoi d'email sur la sortie standard.
+ *
+ * Reprend le format de l'ancien LibraryManager.sendNotification ;
+ * le lot entier est écrit en une seule fois.
+ */
+public class ConsoleNotifier implements Notifier {
+
+    private final PrintStream out;
+
+    public ConsoleNotifier() {
+        this(System.out);
+    }
+
+    public ConsoleNotifier(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) {
+        StringBuilder sb = new StringBuilder(batch.size() * 160);
+        String nl = System.lineSeparator();
+        for (Notification n : batch) {
+            sb.append("=== EMAIL ===").append(nl)
+              .append("To: ").append(n.email()).append(nl)
+              .append("Subject: ").append(n.subject()).append(nl)
+              .append("Body: ").append(n.body()).append(nl)
+              .append("=============").append(nl);
+        }
+        out.print(sb);
+        out.flush();
+    }
+}
@@ -0,0 +1,7 @@
+package fr.amu.univ.miage.m1.glq.service.notification;
+
+/**
+ * Message à envoyer à un membre (simulation d'email).
+ */
+public record Notification(String email, String subject, String body) {
+}
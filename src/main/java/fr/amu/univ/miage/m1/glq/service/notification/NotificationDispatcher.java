@@ -0,0 +1,264 @@
+package fr.amu.univ.miage.m1.glq.service.notification;
+
+import fr.amu.univ.miage.m1.glq.util.log.LogManager;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Envoi asynchrone et groupé des notifications.
+ *
+ * Le code métier dépose un petit message dans une file bornée (submit) et
+ * repart aussitôt ; un thread virtuel vide la file par lots d'au plus
+ * maxBatchSize messages et les passe au Notifier.
+ *
+ * File pleine : voir BackPressurePolicy. En mode BLOCK, l'attente est
+ * bornée (setBlockTimeout) : au-delà, le message est compté comme perdu.
+ * En mode SPILL, l'ordre d'envoi n'est plus garanti entre messages
+ * débordés et messages de la file.
+ *
+ * Thread-safe. Un message est déposé sous le verrou partagé de shutdownLock,
+ * close() passe running à false sous le verrou exclusif : tout message
+ * accepté est dans une file avant l'arrêt, et le thread d'envoi le traite.
+ */
+public class NotificationDispatcher implements AutoCloseable {
+
+    private static final Logger LOG = LogManager.getLogger(NotificationDispatcher.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    public static final long DEFAULT_BLOCK_TIMEOUT_MS = 1000;
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final BlockingQueue<Notification> queue;
+    private final Queue<Notification> spill = new ConcurrentLinkedQueue<>();
+    private final int maxBatchSize;
+    private volatile Notifier notifier;
+    private volatile BackPressurePolicy policy;
+    private volatile long blockTimeoutMs = DEFAULT_BLOCK_TIMEOUT_MS;
+    private volatile boolean running = true;
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private final Thread worker;
+
+    // Messages acceptés mais pas encore traités (pour flush)
+    private final AtomicLong pending = new AtomicLong();
+    private final Object flushMonitor = new Object();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public NotificationDispatcher(Notifier notifier) {
+        this(notifier, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, BackPressurePolicy.BLOCK);
+    }
+
+    public NotificationDispatcher(Notifier notifier, int capacity, int maxBatchSize,
+                                  BackPressurePolicy policy) {
+        if (capacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Capacité et taille de lot doivent être positives");
+        }
+        this.notifier = notifier;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.policy = policy;
+        this.worker = Thread.ofVirtual().name("notification-dispatcher").start(this::run);
+    }
+
+    /**
+     * Dépose une notification. Retourne false si elle a été abandonnée
+     * (politique DROP, attente BLOCK expirée, dispatcher arrêté ou
+     * appelant interrompu).
+     */
+    public boolean submit(Notification notification) {
+        submitted.increment();
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                dropped.increment();
+                return false;
+            }
+            pending.incrementAndGet();
+            if (enqueue(notification)) {
+                return true;
+            }
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+        dropped.increment();
+        completed(1);
+        return false;
+    }
+
+    // Appelé sous le verrou partagé, dispatcher en marche
+    private boolean enqueue(Notification notification) {
+        if (queue.offer(notification)) {
+            return true;
+        }
+        switch (policy) {
+            case BLOCK:
+                try {
+                    return queue.offer(notification, blockTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case SPILL:
+                spill.add(notification);
+                spilled.increment();
+                return true;
+            case DROP:
+            default:
+                return false;
+        }
+    }
+
+    public boolean submit(String email, String subject, String body) {
+        return submit(new Notification(email, subject, body));
+    }
+
+    /**
+     * Attend que tous les messages acceptés aient été traités.
+     * Retourne false si le délai a expiré avant.
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (flushMonitor) {
+            while (pending.get() > 0) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                flushMonitor.wait(remainingMs);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Arrête le dispatcher après avoir envoyé les messages en attente.
+     */
+    @Override
+    public void close() {
+        shutdownLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Notification> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty() || !spill.isEmpty()) {
+            try {
+                Notification first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                // Réveil par close() : on termine de vider les files
+                queue.drainTo(batch, maxBatchSize);
+            }
+            Notification overflow;
+            while (batch.size() < maxBatchSize && (overflow = spill.poll()) != null) {
+                batch.add(overflow);
+            }
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Notification> batch) {
+        try {
+            notifier.deliver(batch);
+            delivered.add(batch.size());
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            LOG.error("Échec d'envoi de {} notification(s)", batch.size(), e);
+        }
+        batches.increment();
+        completed(batch.size());
+    }
+
+    private void completed(int count) {
+        if (pending.addAndGet(-count) == 0) {
+            synchronized (flushMonitor) {
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    public void setNotifier(Notifier notifier) {
+        this.notifier = notifier;
+    }
+
+    public BackPressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(BackPressurePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Attente maximale d'une place en mode BLOCK.
+     */
+    public void setBlockTimeout(long timeout, TimeUnit unit) {
+        this.blockTimeoutMs = unit.toMillis(timeout);
+    }
+
+    public int getQueuedCount() {
+        return queue.size() + spill.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+}
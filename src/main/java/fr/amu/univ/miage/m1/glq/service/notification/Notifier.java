@@ -0,0 +1,14 @@
+package fr.amu.univ.miage.m1.glq.service.notification;
+
+import java.util.List;
+
+/**
+ * Canal d'envoi des notifications (console, SMTP...).
+ *
+ * Appelé par un seul thread à la fois (celui du NotificationDispatcher),
+ * avec un lot d'au moins un message.
+ */
+public interface Notifier {
+
+    void deliver(List<Notification> batch);
+}
@@ -0,0 +1,80 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Classement exact : un compteur par clé, et un ensemble trié borné à k
+ * qui contient les k meilleurs.
+ *
+ * Les compteurs ne faisant qu'augmenter, une clé hors classement n'y entre
+ * qu'en dépassant le dernier : chaque incrément coûte O(log k) et le
+ * classement se lit en O(k).
+ *
+ * Thread-safe (méthodes synchronisées).
+ */
+public class ExactTopKTracker implements TopKTracker {
+
+    private final int k;
+    private final Map<String, RankedCounter> counters = new HashMap<>();
+    private final TreeSet<RankedCounter> ranking = new TreeSet<>(RankedCounter.BY_RANK);
+
+    public ExactTopKTracker(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k doit être positif : " + k);
+        }
+        this.k = k;
+    }
+
+    @Override
+    public synchronized void increment(String key) {
+        RankedCounter counter = counters.computeIfAbsent(key, RankedCounter::new);
+        if (counter.ranked) {
+            ranking.remove(counter);
+            counter.count++;
+            ranking.add(counter);
+            return;
+        }
+        counter.count++;
+        if (ranking.size() < k) {
+            counter.ranked = true;
+            ranking.add(counter);
+        } else if (RankedCounter.BY_RANK.compare(counter, ranking.last()) < 0) {
+            ranking.pollLast().ranked = false;
+            counter.ranked = true;
+            ranking.add(counter);
+        }
+    }
+
+    @Override
+    public synchronized List<Map.Entry<String, Long>> top() {
+        List<Map.Entry<String, Long>> top = new ArrayList<>(ranking.size());
+        for (RankedCounter counter : ranking) {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(counter.key, counter.count));
+        }
+        return top;
+    }
+
+    /**
+     * Nombre exact d'occurrences d'une clé.
+     */
+    public synchronized long count(String key) {
+        RankedCounter counter = counters.get(key);
+        return counter == null ? 0 : counter.count;
+    }
+
+    @Override
+    public int getK() {
+        return k;
+    }
+
+    @Override
+    public synchronized void clear() {
+        counters.clear();
+        ranking.clear();
+    }
+}
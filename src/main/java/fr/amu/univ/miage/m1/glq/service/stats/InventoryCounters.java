@@ -0,0 +1,270 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compteurs d'inventaire par catégorie (titres, exemplaires, exemplaires
+ * disponibles), maintenus à chaque modification du catalogue et à chaque
+ * prise / remise d'exemplaire. Une lecture coûte O(nombre de catégories).
+ *
+ * Pour chaque livre on mémorise la catégorie et les nombres déjà comptés,
+ * afin de corriger les compteurs quand un livre est modifié directement
+ * puis passé à bookUpdated.
+ *
+ * Thread-safe. Prises et remises d'exemplaires (CAS sur le livre) ne
+ * prennent aucun verrou : elles corrigent les compteurs après le CAS et ne
+ * font qu'une lecture optimiste du verrou. Les modifications du catalogue
+ * prennent le verrou en écriture ; une prise qui en chevauche une recompte
+ * ensuite le livre sous ce verrou. Un livre retiré ou remplacé n'accepte
+ * plus de correction : sa contribution est soustraite une seule fois.
+ * Les lectures des compteurs sont optimistes, et se refont sous le verrou
+ * en lecture si le catalogue a changé entre-temps.
+ * Ce verrou est toujours pris en dernier (aucun autre verrou à l'intérieur).
+ */
+public class InventoryCounters {
+
+    private final Map<String, CategoryCounters> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, TrackedBook> byBookId = new ConcurrentHashMap<>();
+    private final StampedLock lock = new StampedLock();
+
+    public void bookAdded(Book book) {
+        bookUpdated(book);
+    }
+
+    /**
+     * Recompte un livre après modification (catégorie, exemplaires...).
+     */
+    public void bookUpdated(Book book) {
+        long stamp = lock.writeLock();
+        try {
+            untrack(book.getId());
+            track(book);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void bookRemoved(String bookId) {
+        long stamp = lock.writeLock();
+        try {
+            untrack(bookId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Prend un exemplaire du livre (Book.tryReserveCopy) et met les compteurs à jour.
+     */
+    public boolean takeCopy(Book book) {
+        long stamp = lock.tryOptimisticRead();
+        if (!book.tryReserveCopy()) {
+            return false;
+        }
+        copyMoved(book, -1, stamp);
+        return true;
+    }
+
+    /**
+     * Remet un exemplaire du livre (Book.releaseCopy) et met les compteurs à jour.
+     */
+    public boolean returnCopy(Book book) {
+        long stamp = lock.tryOptimisticRead();
+        if (!book.releaseCopy()) {
+            return false;
+        }
+        copyMoved(book, 1, stamp);
+        return true;
+    }
+
+    /**
+     * Stock par catégorie (catégories non vides, triées par nom).
+     */
+    public Map<String, InventoryLevel> byCategory() {
+        long stamp = lock.tryOptimisticRead();
+        Map<String, InventoryLevel> levels = readByCategory();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                levels = readByCategory();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return levels;
+    }
+
+    private Map<String, InventoryLevel> readByCategory() {
+        Map<String, InventoryLevel> levels = new TreeMap<>();
+        for (Map.Entry<String, CategoryCounters> entry : byCategory.entrySet()) {
+            InventoryLevel level = entry.getValue().level();
+            if (level.titles() > 0) {
+                levels.put(entry.getKey(), level);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Stock d'une catégorie (zéros si elle est inconnue).
+     */
+    public InventoryLevel category(String category) {
+        long stamp = lock.tryOptimisticRead();
+        InventoryLevel level = readCategory(category);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                level = readCategory(category);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return level;
+    }
+
+    private InventoryLevel readCategory(String category) {
+        CategoryCounters counters = byCategory.get(String.valueOf(category));
+        return counters == null ? new InventoryLevel(0, 0, 0) : counters.level();
+    }
+
+    /**
+     * Stock total du catalogue (somme des catégories).
+     */
+    public InventoryLevel totals() {
+        long stamp = lock.tryOptimisticRead();
+        InventoryLevel totals = readTotals();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                totals = readTotals();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return totals;
+    }
+
+    private InventoryLevel readTotals() {
+        long titles = 0;
+        long copies = 0;
+        long available = 0;
+        for (CategoryCounters counters : byCategory.values()) {
+            titles += counters.titles.sum();
+            copies += counters.copies.sum();
+            available += counters.available.sum();
+        }
+        return new InventoryLevel(titles, copies, available);
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            byCategory.clear();
+            byBookId.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Correction après un CAS réussi sur le livre ; recompte le livre si le catalogue a changé pendant ce temps
+    private void copyMoved(Book book, int delta, long stamp) {
+        TrackedBook tracked = byBookId.get(book.getId());
+        if (tracked != null && tracked.add(delta)) {
+            tracked.counters.available.add(delta);
+        }
+        if (!lock.validate(stamp)) {
+            recount(book.getId());
+        }
+    }
+
+    // Relit un livre suivi à partir de son état actuel
+    private void recount(String bookId) {
+        long stamp = lock.writeLock();
+        try {
+            TrackedBook tracked = byBookId.get(bookId);
+            if (tracked != null) {
+                untrack(bookId);
+                track(tracked.book);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Ajoute la contribution d'un livre (verrou en écriture tenu)
+    private void track(Book book) {
+        TrackedBook tracked = new TrackedBook(book, categoryOf(book), book.getCopies(), book.getAvailableCopies());
+        byBookId.put(book.getId(), tracked);
+        tracked.counters.titles.increment();
+        tracked.counters.copies.add(tracked.copies);
+        tracked.counters.available.add(tracked.available.get());
+    }
+
+    // Retire la contribution d'un livre (verrou en écriture tenu)
+    private void untrack(String bookId) {
+        TrackedBook tracked = byBookId.remove(bookId);
+        if (tracked != null) {
+            tracked.counters.titles.decrement();
+            tracked.counters.copies.add(-tracked.copies);
+            // Les corrections déjà appliquées à available sont soustraites avec lui ;
+            // celles encore en cours finissent sur les compteurs, les suivantes sont refusées
+            tracked.counters.available.add(-tracked.retire());
+        }
+    }
+
+    private CategoryCounters categoryOf(Book book) {
+        // Les livres sans catégorie sont comptés sous "null", comme l'ancien rapport
+        return byCategory.computeIfAbsent(String.valueOf(book.getCategory()), k -> new CategoryCounters());
+    }
+
+    private static final class CategoryCounters {
+        final LongAdder titles = new LongAdder();
+        final LongAdder copies = new LongAdder();
+        final LongAdder available = new LongAdder();
+
+        InventoryLevel level() {
+            return new InventoryLevel(titles.sum(), copies.sum(), available.sum());
+        }
+    }
+
+    // Contribution d'un livre aux compteurs de sa catégorie
+    private static final class TrackedBook {
+        // Valeur de available une fois le livre retiré des compteurs
+        static final int RETIRED = Integer.MIN_VALUE;
+
+        final Book book;
+        final CategoryCounters counters;
+        final int copies;
+        final AtomicInteger available;
+
+        TrackedBook(Book book, CategoryCounters counters, int copies, int available) {
+            this.book = book;
+            this.counters = counters;
+            this.copies = copies;
+            this.available = new AtomicInteger(available);
+        }
+
+        // false si le livre a été retiré entre-temps
+        boolean add(int delta) {
+            int current;
+            do {
+                current = available.get();
+                if (current == RETIRED) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current + delta));
+            return true;
+        }
+
+        int retire() {
+            return available.getAndSet(RETIRED);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+/**
+ * État du stock (d'une catégorie ou de tout le catalogue) à un instant donné.
+ */
+public record InventoryLevel(long titles, long copies, long availableCopies) {
+}
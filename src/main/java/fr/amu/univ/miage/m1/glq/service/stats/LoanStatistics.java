@@ -0,0 +1,128 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrégats des emprunts maintenus au fil de l'eau.
+ *
+ * Mis à jour à chaque transition (création, changement de statut,
+ * pénalité) pour que generateLoanReport n'ait plus à parcourir tout
+ * l'historique des emprunts.
+ *
+ * Les classements (livres les plus empruntés, membres les plus en retard)
+ * sont tenus par des TopKTracker : exacts par défaut, approchés en mémoire
+ * bornée (Space-Saving) pour les très gros catalogues.
+ *
+ * Thread-safe : compteurs LongAdder / DoubleAdder. Une lecture pendant
+ * une transition peut voir l'ancien et le nouveau statut comptés à ±1 près.
+ */
+public class LoanStatistics {
+
+    public static final int DEFAULT_TOP_K = 5;
+
+    private final LongAdder totalLoans = new LongAdder();
+    private final Map<LoanStatus, LongAdder> loansByStatus = new EnumMap<>(LoanStatus.class);
+    private final DoubleAdder totalPenalties = new DoubleAdder();
+    private final TopKTracker mostBorrowedBooks;
+    private final TopKTracker worstLateReturners;
+
+    public LoanStatistics() {
+        this(DEFAULT_TOP_K, false);
+    }
+
+    /**
+     * @param topK        taille des classements
+     * @param approximate classements approchés en mémoire bornée
+     */
+    public LoanStatistics(int topK, boolean approximate) {
+        this.mostBorrowedBooks = approximate ? new SpaceSavingTopKTracker(topK) : new ExactTopKTracker(topK);
+        this.worstLateReturners = approximate ? new SpaceSavingTopKTracker(topK) : new ExactTopKTracker(topK);
+        // Tous les compteurs sont créés ici : la table n'est plus modifiée ensuite
+        for (LoanStatus status : LoanStatus.values()) {
+            loansByStatus.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Nouvel emprunt (statut et pénalité initiaux pris en compte).
+     */
+    public void loanCreated(String bookId, LoanStatus status, double penalty) {
+        totalLoans.increment();
+        if (status != null) {
+            loansByStatus.get(status).increment();
+        }
+        mostBorrowedBooks.increment(bookId);
+        if (penalty != 0) {
+            totalPenalties.add(penalty);
+        }
+    }
+
+    public void statusChanged(LoanStatus oldStatus, LoanStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        if (oldStatus != null) {
+            loansByStatus.get(oldStatus).decrement();
+        }
+        if (newStatus != null) {
+            loansByStatus.get(newStatus).increment();
+        }
+    }
+
+    public void penaltyChanged(double oldPenalty, double newPenalty) {
+        if (oldPenalty != newPenalty) {
+            totalPenalties.add(newPenalty - oldPenalty);
+        }
+    }
+
+    /**
+     * Retour en retard d'un membre.
+     */
+    public void lateReturn(String memberId) {
+        worstLateReturners.increment(memberId);
+    }
+
+    public long getTotalLoans() {
+        return totalLoans.sum();
+    }
+
+    public long countByStatus(LoanStatus status) {
+        return loansByStatus.get(status).sum();
+    }
+
+    public double getTotalPenalties() {
+        return totalPenalties.sum();
+    }
+
+    /**
+     * Livres les plus empruntés (identifiant, nombre d'emprunts), du premier au dernier.
+     */
+    public List<Map.Entry<String, Long>> topBooks() {
+        return mostBorrowedBooks.top();
+    }
+
+    /**
+     * Membres ayant le plus de retours en retard (identifiant, nombre de retards).
+     */
+    public List<Map.Entry<String, Long>> topLateReturners() {
+        return worstLateReturners.top();
+    }
+
+    public int getTopK() {
+        return mostBorrowedBooks.getK();
+    }
+
+    public void clear() {
+        totalLoans.reset();
+        loansByStatus.values().forEach(LongAdder::reset);
+        totalPenalties.reset();
+        mostBorrowedBooks.clear();
+        worstLateReturners.clear();
+    }
+}
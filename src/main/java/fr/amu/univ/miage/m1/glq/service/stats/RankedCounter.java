@@ -0,0 +1,25 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+import java.util.Comparator;
+
+/**
+ * Compteur d'une clé, trié par nombre décroissant puis par clé.
+ *
+ * Le nombre ne doit pas changer tant que le compteur est dans un TreeSet.
+ */
+final class RankedCounter {
+
+    static final Comparator<RankedCounter> BY_RANK =
+        Comparator.comparingLong((RankedCounter c) -> c.count).reversed()
+                  .thenComparing(c -> c.key);
+
+    final String key;
+    long count;
+    // Surestimation possible du nombre (mode approché)
+    long error;
+    boolean ranked;
+
+    RankedCounter(String key) {
+        this.key = key;
+    }
+}
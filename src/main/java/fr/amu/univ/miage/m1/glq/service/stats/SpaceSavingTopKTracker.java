@@ -0,0 +1,99 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Classement approché en mémoire bornée (algorithme Space-Saving).
+ *
+ * Seules capacity clés sont suivies. Une clé nouvelle remplace la moins
+ * fréquente et hérite de son nombre (+1) : les nombres sont donc des
+ * surestimations, d'au plus N / capacity pour N événements. Toute clé
+ * réellement plus fréquente que N / capacity est garantie d'être suivie.
+ *
+ * Pour les très gros catalogues, où un compteur par livre coûterait trop.
+ *
+ * Thread-safe (méthodes synchronisées).
+ */
+public class SpaceSavingTopKTracker implements TopKTracker {
+
+    public static final int DEFAULT_CAPACITY_FACTOR = 10;
+
+    private final int k;
+    private final int capacity;
+    private final Map<String, RankedCounter> monitored = new HashMap<>();
+    private final TreeSet<RankedCounter> ordered = new TreeSet<>(RankedCounter.BY_RANK);
+
+    public SpaceSavingTopKTracker(int k) {
+        this(k, k * DEFAULT_CAPACITY_FACTOR);
+    }
+
+    /**
+     * @param capacity nombre de clés suivies (au moins k)
+     */
+    public SpaceSavingTopKTracker(int k, int capacity) {
+        if (k < 1 || capacity < k) {
+            throw new IllegalArgumentException("Il faut 1 <= k <= capacité : k=" + k + ", capacité=" + capacity);
+        }
+        this.k = k;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void increment(String key) {
+        RankedCounter counter = monitored.get(key);
+        if (counter == null) {
+            counter = new RankedCounter(key);
+            if (monitored.size() >= capacity) {
+                RankedCounter evicted = ordered.pollLast();
+                monitored.remove(evicted.key);
+                counter.count = evicted.count;
+                counter.error = evicted.count;
+            }
+            monitored.put(key, counter);
+        } else {
+            ordered.remove(counter);
+        }
+        counter.count++;
+        ordered.add(counter);
+    }
+
+    @Override
+    public synchronized List<Map.Entry<String, Long>> top() {
+        List<Map.Entry<String, Long>> top = new ArrayList<>(k);
+        Iterator<RankedCounter> it = ordered.iterator();
+        while (top.size() < k && it.hasNext()) {
+            RankedCounter counter = it.next();
+            top.add(new AbstractMap.SimpleImmutableEntry<>(counter.key, counter.count));
+        }
+        return top;
+    }
+
+    /**
+     * Surestimation maximale du nombre d'une clé suivie (0 si non suivie ou exacte).
+     */
+    public synchronized long errorOf(String key) {
+        RankedCounter counter = monitored.get(key);
+        return counter == null ? 0 : counter.error;
+    }
+
+    @Override
+    public int getK() {
+        return k;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized void clear() {
+        monitored.clear();
+        ordered.clear();
+    }
+}
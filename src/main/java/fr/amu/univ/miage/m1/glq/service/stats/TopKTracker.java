@@ -0,0 +1,25 @@
+package fr.amu.univ.miage.m1.glq.service.stats;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classement en continu des k clés les plus fréquentes
+ * (livres les plus empruntés, membres les plus en retard...).
+ *
+ * Les compteurs ne font qu'augmenter : chaque événement appelle increment.
+ */
+public interface TopKTracker {
+
+    void increment(String key);
+
+    /**
+     * Les k premières clés (clé, nombre), de la plus fréquente à la moins fréquente.
+     * À égalité, ordre alphabétique des clés.
+     */
+    List<Map.Entry<String, Long>> top();
+
+    int getK();
+
+    void clear();
+}
@@ -0,0 +1,284 @@
+package fr.amu.univ.miage.m1.glq.service.store;
+
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table des entités par identifiant ("B00042"), rangées sous leur clé
+ * numérique (42) dans une table à adressage ouvert : un tableau de int et
+ * un tableau de références, sans nœud par entrée ni boxing.
+ *
+ * Remplace ConcurrentHashMap<String, E> (nœud de 32 octets + case de table
+ * par entrée) : environ 8 octets par case. Une table dimensionnée d'avance
+ * (constructeur avec taille attendue, ensureCapacity) est remplie aux 3/4 ;
+ * sinon elle grandit de moitié à chaque reconstruction et reste remplie
+ * entre 1/2 et 3/4.
+ *
+ * Sondage linéaire, clés dispersées par hachage de Fibonacci (les clés
+ * consécutives ne forment pas de longues séquences) puis ramenées à la
+ * taille de la table par multiplication, qui n'a donc pas à être une
+ * puissance de deux. Une suppression laisse
+ * la clé en place avec une valeur null (tombe) ; les tombes disparaissent au
+ * prochain redimensionnement.
+ *
+ * Les identifiants qui n'ont pas la forme du générateur (voir
+ * PrefixedIdGenerator.key) vont dans une ConcurrentHashMap de débordement.
+ *
+ * Thread-safe : lectures sans verrou, écritures sérialisées par le moniteur
+ * de la table. Une clé n'est jamais déplacée dans une table ; la valeur est
+ * publiée après la clé (setRelease / getAcquire) et une nouvelle table
+ * n'est publiée qu'une fois remplie. Comme pour ConcurrentHashMap, une
+ * écriture terminée est visible de toute lecture qui la suit.
+ */
+public class IdMap<E> {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int MIN_CAPACITY = 16;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private static final class Table {
+        // Clé + 1 (0 = case libre) ; une fois posée, une clé ne change plus
+        final int[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+        }
+
+        int slot(int stored) {
+            return (int) (((stored * GOLDEN_RATIO) & 0xFFFFFFFFL) * keys.length >>> 32);
+        }
+
+        int next(int i) {
+            return i + 1 == keys.length ? 0 : i + 1;
+        }
+    }
+
+    private final PrefixedIdGenerator ids;
+    private final Map<String, E> overflow = new ConcurrentHashMap<>();
+    private volatile Table table = new Table(MIN_CAPACITY);
+    private volatile int size;
+    // Cases dont la clé est posée (entités + tombes), modifié sous le moniteur
+    private int used;
+
+    /**
+     * @param ids générateur des identifiants rangés dans la table
+     */
+    public IdMap(PrefixedIdGenerator ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * @param ids générateur des identifiants rangés dans la table
+     * @param expectedSize nombre d'entités attendu, rangées sans redimensionnement
+     */
+    public IdMap(PrefixedIdGenerator ids, int expectedSize) {
+        this.ids = ids;
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(String id) {
+        int key = ids.key(id);
+        if (key < 0) {
+            return id == null ? null : overflow.get(id);
+        }
+        Table t = table;
+        int stored = key + 1;
+        for (int i = t.slot(stored); ; i = t.next(i)) {
+            int k = t.keys[i];
+            if (k == 0) {
+                return null;
+            }
+            if (k == stored) {
+                return (E) SLOTS.getAcquire(t.values, i);
+            }
+        }
+    }
+
+    public boolean containsKey(String id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Range l'entité sous son identifiant et retourne la précédente, ou null.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized E put(String id, E entity) {
+        if (entity == null) {
+            throw new NullPointerException("Entité null pour " + id);
+        }
+        int key = ids.key(id);
+        if (key < 0) {
+            return overflow.put(id, entity);
+        }
+        int stored = key + 1;
+        Table t = table;
+        int i = find(t, stored);
+        if (t.keys[i] == 0 && (used + 1) * 4L > t.keys.length * 3L) {
+            t = rehash(Math.max(MIN_CAPACITY, (size + 1) * 2));
+            i = find(t, stored);
+        }
+        E previous = (E) t.values[i];
+        if (t.keys[i] == 0) {
+            t.keys[i] = stored;
+            used++;
+        }
+        SLOTS.setRelease(t.values, i, entity);
+        if (previous == null) {
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * Retire l'entité et la retourne, ou null si elle était absente.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized E remove(String id) {
+        int key = ids.key(id);
+        if (key < 0) {
+            return id == null ? null : overflow.remove(id);
+        }
+        Table t = table;
+        int i = find(t, key + 1);
+        E previous = (E) t.values[i];
+        if (previous != null) {
+            SLOTS.setRelease(t.values, i, null);
+            size--;
+        }
+        return previous;
+    }
+
+    public int size() {
+        return size + overflow.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Agrandit la table pour qu'elle range expectedSize entités sans
+     * redimensionnement (avant un chargement en masse).
+     */
+    public synchronized void ensureCapacity(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (capacity > table.keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    public synchronized void clear() {
+        overflow.clear();
+        table = new Table(MIN_CAPACITY);
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * Vue des entités, faiblement cohérente comme celle de ConcurrentHashMap :
+     * le parcours ne lève jamais ConcurrentModificationException.
+     */
+    public Collection<E> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new ValueIterator(table);
+            }
+
+            @Override
+            public int size() {
+                return IdMap.this.size();
+            }
+        };
+    }
+
+    /**
+     * Nombre de cases de la table (dimensionnement, mesure d'empreinte).
+     */
+    public int capacity() {
+        return table.keys.length;
+    }
+
+    // Case de la clé, ou première case libre de sa séquence
+    private static int find(Table t, int stored) {
+        int i = t.slot(stored);
+        while (t.keys[i] != 0 && t.keys[i] != stored) {
+            i = t.next(i);
+        }
+        return i;
+    }
+
+    // Plus petite table qui range expectedSize entités en restant remplie aux 3/4 au plus
+    private static int capacityFor(int expectedSize) {
+        return (int) Math.max(MIN_CAPACITY, (expectedSize * 4L + 2) / 3);
+    }
+
+    // Recopie les entités (sans les tombes) dans une table de la taille donnée, puis la publie
+    private Table rehash(int capacity) {
+        Table current = table;
+        Table next = new Table(capacity);
+        for (int i = 0; i < current.keys.length; i++) {
+            Object value = current.values[i];
+            if (value != null) {
+                int j = find(next, current.keys[i]);
+                next.keys[j] = current.keys[i];
+                next.values[j] = value;
+            }
+        }
+        used = size;
+        table = next;
+        return next;
+    }
+
+    private class ValueIterator implements Iterator<E> {
+        private final Table t;
+        private final Iterator<E> overflowValues = overflow.values().iterator();
+        private int index = -1;
+        private E next;
+
+        ValueIterator(Table t) {
+            this.t = t;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (++index < t.values.length) {
+                next = (E) SLOTS.getAcquire(t.values, index);
+                if (next != null) {
+                    return;
+                }
+            }
+            if (overflowValues.hasNext()) {
+                next = overflowValues.next();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            E current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package fr.amu.univ.miage.m1.glq.util.log;
+
+/**
+ * Niveaux de log, du plus bavard au plus grave.
+ */
+public enum Level {
+    DEBUG, INFO, WARN, ERROR, OFF
+}
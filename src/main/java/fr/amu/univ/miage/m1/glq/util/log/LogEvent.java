@@ -0,0 +1,39 @@
+package fr.amu.univ.miage.m1.glq.util.log;
+
+/**
+ * Case du tampon circulaire, réutilisée d'un événement à l'autre.
+ *
+ * Le message n'est pas formaté ici : on garde le motif et ses paramètres,
+ * le thread d'écriture fera le formatage.
+ */
+final class LogEvent {
+
+    // Numéro de l'événement publié dans cette case (écrit en dernier par le producteur)
+    volatile long sequence = -1;
+
+    long timestamp;
+    Level level;
+    String loggerName;
+    String threadName;
+    String pattern;
+    int argCount;
+    Object arg0;
+    Object arg1;
+    Object arg2;
+    Object[] args;
+    Throwable error;
+
+    Object arg(int i) {
+        if (args != null) {
+            return args[i];
+        }
+        return i == 0 ? arg0 : i == 1 ? arg1 : arg2;
+    }
+
+    void clear() {
+        arg0 = arg1 = arg2 = null;
+        args = null;
+        error = null;
+        pattern = null;
+    }
+}
@@ -0,0 +1,67 @@
+package fr.amu.univ.miage.m1.glq.util.log;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point d'entrée du logging de l'application.
+ *
+ * Tous les loggers partagent un RingBufferLogWriter qui écrit dans le
+ * fichier donné par la propriété système library.log.file (par défaut
+ * logs/library.log), au niveau library.log.level (par défaut INFO).
+ * Si le fichier ne peut pas être ouvert, les logs partent sur stderr.
+ */
+public final class LogManager {
+
+    private static final RingBufferLogWriter WRITER = createDefaultWriter();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WRITER::close, "log-shutdown"));
+    }
+
+    private LogManager() {
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName(), WRITER);
+    }
+
+    public static Level getLevel() {
+        return WRITER.getLevel();
+    }
+
+    public static void setLevel(Level level) {
+        WRITER.setLevel(level);
+    }
+
+    /**
+     * Attend que les logs déjà émis soient écrits dans le fichier.
+     */
+    public static boolean flush(long timeout, TimeUnit unit) {
+        return WRITER.flush(timeout, unit);
+    }
+
+    private static RingBufferLogWriter createDefaultWriter() {
+        Level level = Level.valueOf(System.getProperty("library.log.level", "INFO").toUpperCase());
+        Path file = Paths.get(System.getProperty("library.log.file", "logs/library.log"));
+        Writer out;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Fichier de log indisponible (" + file + "), sortie sur stderr : " + e.getMessage());
+            out = new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+        }
+        return new RingBufferLogWriter(out, level);
+    }
+}
@@ -0,0 +1,118 @@
+package fr.amu.univ.miage.m1.glq.util.log;
+
+/**
+ * Logger léger à formatage différé : "Emprunt créé : {}" avec ses paramètres.
+ *
+ * Un niveau désactivé ne coûte qu'une comparaison : les surcharges à 0-3
+ * paramètres évitent l'allocation d'un tableau varargs. Les paramètres sont
+ * formatés plus tard par le thread d'écriture : passer des valeurs immuables
+ * (identifiants, nombres) plutôt que des entités qui peuvent encore changer.
+ *
+ * Obtenu par LogManager.getLogger(...). Thread-safe.
+ */
+public final class Logger {
+
+    private final String name;
+    private final RingBufferLogWriter sink;
+
+    public Logger(String name, RingBufferLogWriter sink) {
+        this.name = name;
+        this.sink = sink;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= sink.getLevel().ordinal() && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String pattern) {
+        if (isEnabled(Level.DEBUG)) {
+            sink.publish(Level.DEBUG, name, pattern, 0, null, null, null, null, null);
+        }
+    }
+
+    public void debug(String pattern, Object a0) {
+        if (isEnabled(Level.DEBUG)) {
+            sink.publish(Level.DEBUG, name, pattern, 1, a0, null, null, null, null);
+        }
+    }
+
+    public void debug(String pattern, Object a0, Object a1) {
+        if (isEnabled(Level.DEBUG)) {
+            sink.publish(Level.DEBUG, name, pattern, 2, a0, a1, null, null, null);
+        }
+    }
+
+    public void info(String pattern) {
+        if (isEnabled(Level.INFO)) {
+            sink.publish(Level.INFO, name, pattern, 0, null, null, null, null, null);
+        }
+    }
+
+    public void info(String pattern, Object a0) {
+        if (isEnabled(Level.INFO)) {
+            sink.publish(Level.INFO, name, pattern, 1, a0, null, null, null, null);
+        }
+    }
+
+    public void info(String pattern, Object a0, Object a1) {
+        if (isEnabled(Level.INFO)) {
+            sink.publish(Level.INFO, name, pattern, 2, a0, a1, null, null, null);
+        }
+    }
+
+    public void info(String pattern, Object a0, Object a1, Object a2) {
+        if (isEnabled(Level.INFO)) {
+            sink.publish(Level.INFO, name, pattern, 3, a0, a1, a2, null, null);
+        }
+    }
+
+    public void info(String pattern, Object... args) {
+        if (isEnabled(Level.INFO)) {
+            sink.publish(Level.INFO, name, pattern, args.length, null, null, null, args, null);
+        }
+    }
+
+    public void warn(String pattern) {
+        if (isEnabled(Level.WARN)) {
+            sink.publish(Level.WARN, name, pattern, 0, null, null, null, null, null);
+        }
+    }
+
+    public void warn(String pattern, Object a0) {
+        if (isEnabled(Level.WARN)) {
+            sink.publish(Level.WARN, name, pattern, 1, a0, null, null, null, null);
+        }
+    }
+
+    public void warn(String pattern, Object a0, Object a1) {
+        if (isEnabled(Level.WARN)) {
+            sink.publish(Level.WARN, name, pattern, 2, a0, a1, null, null, null);
+        }
+    }
+
+    public void error(String pattern, Object a0) {
+        if (isEnabled(Level.ERROR)) {
+            sink.publish(Level.ERROR, name, pattern, 1, a0, null, null, null, null);
+        }
+    }
+
+    public void error(String pattern, Object a0, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            sink.publish(Level.ERROR, name, pattern, 1, a0, null, null, null, error);
+        }
+    }
+
+    public void error(String pattern, Object a0, Object a1, Throwable error) {
+        if (isEnabled(Level.ERROR)) {
+            sink.publish(Level.ERROR, name, pattern, 2, a0, a1, null, null, error);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,227 @@
+package fr.amu.univ.miage.m1.glq.util.log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Écriture asynchrone des logs à travers un tampon circulaire préalloué.
+ *
+ * Les threads métier réservent un numéro d'événement (compteur atomique),
+ * remplissent la case correspondante puis la publient ; ils n'attendent
+ * que si le tampon est plein. Un thread d'arrière-plan formate les
+ * événements dans l'ordre des numéros et les écrit dans le Writer, vidé
+ * dès que le tampon est rattrapé.
+ *
+ * Thread-safe.
+ */
+public class RingBufferLogWriter implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final DateTimeFormatter TIMESTAMP =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final LogEvent[] ring;
+    private final int mask;
+    private final Writer out;
+    private final Thread writerThread;
+    private volatile Level level;
+    private volatile boolean running = true;
+
+    // Prochain numéro à réserver (producteurs) / à écrire (thread d'écriture)
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    // Numéro jusqu'auquel les événements ont été écrits et le Writer vidé
+    private volatile long flushed;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public RingBufferLogWriter(Writer out, Level level) {
+        this(out, level, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity nombre de cases, arrondi à la puissance de deux supérieure
+     */
+    public RingBufferLogWriter(Writer out, Level level, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new LogEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new LogEvent();
+        }
+        this.mask = size - 1;
+        this.out = out;
+        this.level = level;
+        this.writerThread = new Thread(this::run, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    void publish(Level eventLevel, String loggerName, String pattern, int argCount,
+                 Object a0, Object a1, Object a2, Object[] args, Throwable error) {
+        if (!running) {
+            dropped.increment();
+            return;
+        }
+        long seq = claimed.getAndIncrement();
+        // Tampon plein : on attend que le thread d'écriture libère la case
+        while (seq - consumed >= ring.length) {
+            if (!running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(1_000);
+        }
+        LogEvent event = ring[(int) (seq & mask)];
+        event.timestamp = System.currentTimeMillis();
+        event.level = eventLevel;
+        event.loggerName = loggerName;
+        event.threadName = Thread.currentThread().getName();
+        event.pattern = pattern;
+        event.argCount = argCount;
+        event.arg0 = a0;
+        event.arg1 = a1;
+        event.arg2 = a2;
+        event.args = args;
+        event.error = error;
+        event.sequence = seq;
+    }
+
+    /**
+     * Attend que tous les événements déjà publiés soient écrits et vidés.
+     * Retourne false si le délai a expiré avant.
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (flushed < target) {
+            if (System.nanoTime() > deadline || !writerThread.isAlive()) {
+                return flushed >= target;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NS);
+        }
+        return true;
+    }
+
+    /**
+     * Écrit les événements en attente puis ferme le Writer.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Erreur fermeture du log : " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        StringBuilder line = new StringBuilder(256);
+        long next = 0;
+        int idleAfterClose = 0;
+        while (true) {
+            LogEvent event = ring[(int) (next & mask)];
+            if (event.sequence != next) {
+                // Rien de publié : on vide le Writer, puis on s'arrête ou on attend
+                if (flushed < next) {
+                    flushQuietly();
+                    flushed = next;
+                }
+                // Arrêt : tout est écrit, ou un producteur a abandonné sa case réservée
+                if (!running && (claimed.get() == next || ++idleAfterClose > 100)) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NS);
+                continue;
+            }
+            line.setLength(0);
+            try {
+                format(event, line);
+            } catch (RuntimeException e) {
+                // toString() d'un paramètre en échec : on garde le motif brut
+                line.append(event.level).append(' ').append(event.pattern)
+                    .append(" [formatage impossible : ").append(e).append(']')
+                    .append(System.lineSeparator());
+            }
+            event.clear();
+            consumed = ++next;
+            try {
+                out.append(line);
+                written.increment();
+            } catch (IOException e) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Erreur écriture du log : " + e.getMessage());
+        }
+    }
+
+    private static void format(LogEvent event, StringBuilder sb) {
+        TIMESTAMP.formatTo(Instant.ofEpochMilli(event.timestamp), sb);
+        sb.append(' ').append(event.level);
+        for (int i = event.level.name().length(); i < 5; i++) {
+            sb.append(' ');
+        }
+        sb.append(" [").append(event.threadName).append("] ")
+          .append(event.loggerName).append(" - ");
+        appendMessage(event, sb);
+        sb.append(System.lineSeparator());
+        if (event.error != null) {
+            sb.append(event.error).append(System.lineSeparator());
+            for (StackTraceElement element : event.error.getStackTrace()) {
+                sb.append("\tat ").append(element).append(System.lineSeparator());
+            }
+        }
+    }
+
+    // Remplace chaque {} par le paramètre suivant ; les {} en trop restent tels quels
+    private static void appendMessage(LogEvent event, StringBuilder sb) {
+        String pattern = event.pattern;
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while (argIndex < event.argCount && (placeholder = pattern.indexOf("{}", start)) >= 0) {
+            sb.append(pattern, start, placeholder).append(event.arg(argIndex++));
+            start = placeholder + 2;
+        }
+        sb.append(pattern, start, pattern.length());
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
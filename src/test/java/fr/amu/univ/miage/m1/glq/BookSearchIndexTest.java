@@ -0,0 +1,56 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.service.index.BookSearchIndex;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class BookSearchIndexTest {
+
+    private final BookSearchIndex index = new BookSearchIndex();
+
+    private static Book book(String id, String title) {
+        return new Book(id, title, "Auteur", "978-" + id, 2000, 1, "ROMAN");
+    }
+
+    @Test
+    void should_keep_capacity_bounded_when_the_same_books_are_edited_many_times() {
+        Book first = book("B00001", "Dune");
+        Book second = book("B00002", "Fondation");
+        index.add(first);
+        index.add(second);
+
+        for (int i = 0; i < 10_000; i++) {
+            first.setTitle("Dune tome " + i);
+            index.add(first);
+        }
+
+        assertThat(index.capacity()).isEqualTo(2);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("tome 9999")).containsExactly(first);
+        assertThat(index.search("tome 9998")).isEmpty();
+        assertThat(index.search("du")).containsExactly(first);
+    }
+
+    @Test
+    void should_reuse_the_numbers_of_removed_books_and_keep_postings_sorted() {
+        for (int i = 1; i <= 5; i++) {
+            index.add(book("B0000" + i, "Saga " + i));
+        }
+        for (int round = 0; round < 1_000; round++) {
+            index.remove("B00002");
+            index.remove("B00004");
+            index.add(book("B00004", "Saga 4"));
+            index.add(book("B00002", "Saga 2"));
+        }
+
+        assertThat(index.capacity()).isEqualTo(5);
+        assertThat(index.search("saga")).extracting(Book::getId)
+            .containsExactlyInAnyOrder("B00001", "B00002", "B00003", "B00004", "B00005");
+        assertThat(index.search("saga 2")).extracting(Book::getId).containsExactly("B00002");
+    }
+}
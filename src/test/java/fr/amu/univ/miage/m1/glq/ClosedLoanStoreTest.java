@@ -0,0 +1,91 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.service.history.ClosedLoanStore;
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ClosedLoanStoreTest {
+
+    private final PrefixedIdGenerator loanIds = new PrefixedIdGenerator("L");
+    private final PrefixedIdGenerator memberIds = new PrefixedIdGenerator("M");
+    private final PrefixedIdGenerator bookIds = new PrefixedIdGenerator("B");
+    private final ClosedLoanStore store = new ClosedLoanStore(loanIds, memberIds, bookIds);
+
+    private Loan loan(long loanKey, long memberKey, long bookKey) {
+        Member member = new Member(memberIds.format(memberKey), "Ada", "Lovelace", "ada@univ.fr", "STAFF");
+        Book book = new Book(bookIds.format(bookKey), "T", "A", "I", 2000, 1, "ROMAN");
+        return new Loan(loanIds.format(loanKey), member, book);
+    }
+
+    private Loan returned(long loanKey, long memberKey, long bookKey, double penalty) {
+        Loan loan = loan(loanKey, memberKey, bookKey);
+        loan.setPenaltyAmount(penalty);
+        loan.setState(LoanStatus.RETURNED);
+        loan.setReturnDate(new Date(loan.getDueDate().getTime() + 1));
+        return loan;
+    }
+
+    @Test
+    void should_read_archived_loans_back_by_loan_member_and_book() {
+        Loan first = returned(1, 1, 1, 0);
+        first.setRenewalCount(2);
+        store.append(first);
+        store.append(returned(2, 2, 1, 0));
+        store.append(returned(3, 1, 2, 1.5));
+        Loan open = loan(4, 1, 1);
+        Loan annotated = returned(5, 1, 1, 0);
+        annotated.setNotes("abîmé");
+
+        assertThat(store.append(open)).isFalse();
+        assertThat(store.append(annotated)).isFalse();
+        assertThat(store.append(first)).isFalse();
+        assertThat(store.size()).isEqualTo(3);
+
+        Loan copy = store.find("L00001").toLoan();
+        assertThat(copy.getState()).isEqualTo(LoanStatus.RETURNED);
+        assertThat(copy.getMemberId()).isEqualTo("M00001");
+        assertThat(copy.getDueDate()).isEqualTo(first.getDueDate());
+        assertThat(copy.getReturnDate()).isEqualTo(first.getReturnDate());
+        assertThat(copy.getRenewalCount()).isEqualTo(2);
+        assertThat(store.find("L00004")).isNull();
+
+        List<String> ofMember = new ArrayList<>();
+        store.forEachOfMember("M00001", view -> ofMember.add(view.getId()));
+        List<String> ofBook = new ArrayList<>();
+        store.forEachOfBook("B00001", view -> ofBook.add(view.getId()));
+        assertThat(ofMember).containsExactly("L00003", "L00001");
+        assertThat(ofBook).containsExactly("L00002", "L00001");
+        assertThat(store.penaltiesOfMember("M00001")).isEqualTo(1.5);
+        assertThat(store.penaltiesOfMember("M00009")).isZero();
+    }
+
+    @Test
+    void should_spread_records_over_several_off_heap_chunks() {
+        for (int i = 1; i <= 70_000; i++) {
+            store.append(returned(i, i % 10 + 1, 1, 0));
+        }
+
+        assertThat(store.size()).isEqualTo(70_000);
+        assertThat(store.offHeapBytes()).isEqualTo(2L * 65_536 * 56);
+        assertThat(store.find("L70000").getMemberId()).isEqualTo("M00001");
+        int[] ofMember = new int[1];
+        store.forEachOfMember("M00001", view -> ofMember[0]++);
+        assertThat(ofMember[0]).isEqualTo(7_000);
+
+        store.clear();
+        assertThat(store.find("L00001")).isNull();
+    }
+}
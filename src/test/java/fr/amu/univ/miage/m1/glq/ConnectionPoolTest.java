@@ -0,0 +1,209 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.db.pool.ConnectionPool;
+import fr.amu.univ.miage.m1.glq.db.pool.PoolSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool pool(int maxSize, long borrowTimeoutMs, long idleTimeoutMs, long leakThresholdMs) {
+        return pool(new PoolSettings(maxSize, 0, borrowTimeoutMs, idleTimeoutMs, leakThresholdMs, 0, true));
+    }
+
+    private ConnectionPool pool(PoolSettings settings) {
+        pool = new ConnectionPool(() -> DriverManager.getConnection(URL, "sa", ""), settings);
+        return pool;
+    }
+
+    @Test
+    void should_reuse_the_connection_returned_by_close() throws SQLException {
+        ConnectionPool pool = pool(2, 1000, 60_000, 60_000);
+
+        try (Connection connection = pool.borrow()) {
+            assertThat(connection.isClosed()).isFalse();
+            assertThat(pool.getActiveCount()).isEqualTo(1);
+        }
+        try (Connection connection = pool.borrow(); Statement st = connection.createStatement()) {
+            assertThat(st.execute("SELECT 1")).isTrue();
+        }
+
+        assertThat(pool.getCreatedCount()).isEqualTo(1);
+        assertThat(pool.getBorrowCount()).isEqualTo(2);
+        assertThat(pool.getIdleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_refuse_a_handle_used_after_close() throws SQLException {
+        ConnectionPool pool = pool(1, 1000, 60_000, 60_000);
+        Connection stale = pool.borrow();
+        stale.close();
+
+        try (Connection current = pool.borrow()) {
+            assertThat(stale.isClosed()).isTrue();
+            assertThat(current.isClosed()).isFalse();
+            assertThatThrownBy(stale::createStatement).isInstanceOf(SQLException.class);
+        }
+    }
+
+    @Test
+    void should_time_out_when_every_connection_is_borrowed() throws SQLException {
+        ConnectionPool pool = pool(1, 50, 60_000, 60_000);
+
+        try (Connection held = pool.borrow()) {
+            assertThat(held.isClosed()).isFalse();
+            assertThatThrownBy(pool::borrow).isInstanceOf(SQLException.class)
+                .hasMessageContaining("Aucune connexion libre");
+        }
+
+        assertThat(pool.getTimeoutCount()).isEqualTo(1);
+        assertThat(pool.getMaxWaitNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void should_never_lend_more_than_max_size_connections() throws Exception {
+        ConnectionPool pool = pool(3, 5_000, 60_000, 60_000);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try (Connection connection = pool.borrow()) {
+                        peak.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        assertThat(connection.isClosed()).isFalse();
+                        Thread.yield();
+                        inUse.decrementAndGet();
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(peak.get()).isLessThanOrEqualTo(3);
+        assertThat(pool.getTotalCount()).isLessThanOrEqualTo(3);
+        assertThat(pool.getBorrowCount()).isEqualTo(400);
+        assertThat(pool.getActiveCount()).isZero();
+    }
+
+    @Test
+    void should_evict_idle_connections_and_report_leaks() throws Exception {
+        ConnectionPool pool = pool(3, 1000, 50, 50);
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            connections.add(pool.borrow());
+        }
+        connections.get(0).close();
+        connections.get(1).close();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((pool.getIdleCount() > 0 || pool.getLeakCount() == 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(pool.getEvictedCount()).isEqualTo(2);
+        assertThat(pool.getTotalCount()).isEqualTo(1);
+        assertThat(pool.getLeakCount()).isEqualTo(1);
+        connections.get(2).close();
+    }
+
+    @Test
+    void should_reuse_prepared_statements_across_borrows() throws SQLException {
+        ConnectionPool pool = pool(1, 1000, 60_000, 60_000);
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.borrow();
+                 PreparedStatement ps = connection.prepareStatement("SELECT ? + 1")) {
+                ps.setInt(1, i);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    assertThat(rs.getInt(1)).isEqualTo(i + 1);
+                }
+            }
+        }
+
+        assertThat(pool.getStatementCacheMisses()).isEqualTo(1);
+        assertThat(pool.getStatementCacheHits()).isEqualTo(2);
+    }
+
+    @Test
+    void should_prepare_a_separate_statement_when_the_cached_one_is_open() throws SQLException {
+        ConnectionPool pool = pool(1, 1000, 60_000, 60_000);
+
+        try (Connection connection = pool.borrow();
+             PreparedStatement outer = connection.prepareStatement("SELECT 1");
+             PreparedStatement inner = connection.prepareStatement("SELECT 1")) {
+            assertThat(inner).isNotSameAs(outer);
+            assertThat(outer.executeQuery().next()).isTrue();
+            assertThat(inner.executeQuery().next()).isTrue();
+        }
+
+        assertThat(pool.getStatementCacheMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void should_close_the_least_recently_used_statement_beyond_capacity() throws SQLException {
+        ConnectionPool pool = pool(new PoolSettings(1, 0, 1000, 60_000, 60_000, 0, false, 2));
+
+        try (Connection connection = pool.borrow()) {
+            for (String sql : new String[] {"SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3", "SELECT 1", "SELECT 2"}) {
+                connection.prepareStatement(sql).close();
+            }
+        }
+
+        // SELECT 2 a été chassée par SELECT 3 puis préparée de nouveau
+        assertThat(pool.getStatementCacheMisses()).isEqualTo(4);
+        assertThat(pool.getStatementCacheHits()).isEqualTo(2);
+    }
+
+    @Test
+    void should_refuse_a_statement_left_open_after_its_connection_was_returned() throws SQLException {
+        ConnectionPool pool = pool(1, 1000, 60_000, 60_000);
+        Connection connection = pool.borrow();
+        PreparedStatement forgotten = connection.prepareStatement("SELECT 1");
+        connection.close();
+
+        try (Connection next = pool.borrow(); PreparedStatement ps = next.prepareStatement("SELECT 1")) {
+            assertThat(forgotten.isClosed()).isTrue();
+            assertThatThrownBy(forgotten::executeQuery).isInstanceOf(SQLException.class);
+            assertThat(ps.executeQuery().next()).isTrue();
+        }
+        assertThat(pool.getStatementCacheHits()).isEqualTo(1);
+    }
+}
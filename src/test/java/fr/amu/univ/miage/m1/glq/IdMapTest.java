@@ -0,0 +1,110 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import fr.amu.univ.miage.m1.glq.service.store.IdMap;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class IdMapTest {
+
+    private final PrefixedIdGenerator ids = new PrefixedIdGenerator("L");
+    private final IdMap<String> map = new IdMap<>(ids);
+
+    @Test
+    void should_store_find_and_remove_entities_across_resizes() {
+        for (int i = 1; i <= 10_000; i++) {
+            map.put(ids.format(i), "loan " + i);
+        }
+        for (int i = 1; i <= 10_000; i += 2) {
+            assertThat(map.remove(ids.format(i))).isEqualTo("loan " + i);
+        }
+        for (int i = 10_001; i <= 12_000; i++) {
+            map.put(ids.format(i), "loan " + i);
+        }
+
+        assertThat(map.size()).isEqualTo(7_000);
+        assertThat(map.get("L00042")).isEqualTo("loan 42");
+        assertThat(map.get("L00041")).isNull();
+        assertThat(map.get("L11000")).isEqualTo("loan 11000");
+        assertThat(map.put("L00042", "renewed")).isEqualTo("loan 42");
+        assertThat(map.get("L00042")).isEqualTo("renewed");
+        assertThat(map.values()).hasSize(7_000).contains("renewed").doesNotContain("loan 41");
+    }
+
+    @Test
+    void should_fill_a_presized_table_to_three_quarters_without_resizing() {
+        IdMap<String> presized = new IdMap<>(ids, 3_000);
+        int capacity = presized.capacity();
+        for (int i = 1; i <= 3_000; i++) {
+            presized.put(ids.format(i), "loan " + i);
+        }
+
+        assertThat(capacity).isEqualTo(4_000);
+        assertThat(presized.capacity()).isEqualTo(capacity);
+        assertThat(presized.get("L02999")).isEqualTo("loan 2999");
+
+        map.put("L00001", "first");
+        map.ensureCapacity(3_000);
+        assertThat(map.capacity()).isEqualTo(4_000);
+        assertThat(map.get("L00001")).isEqualTo("first");
+    }
+
+    @Test
+    void should_keep_ids_outside_the_generator_format_apart() {
+        map.put("L00007", "canonical");
+        map.put("L0007", "short");
+        map.put("X-7", "foreign");
+
+        assertThat(ids.key("L00007")).isEqualTo(7);
+        assertThat(ids.key("L0007")).isEqualTo(-1);
+        assertThat(map.get("L00007")).isEqualTo("canonical");
+        assertThat(map.get("L0007")).isEqualTo("short");
+        assertThat(map.get("X-7")).isEqualTo("foreign");
+        assertThat(map.get(null)).isNull();
+        assertThat(map.values()).containsExactlyInAnyOrder("canonical", "short", "foreign");
+    }
+
+    @Test
+    void should_let_readers_see_every_completed_write_while_the_table_grows() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(pool.submit(() -> {
+                    int misses = 0;
+                    for (int i = 1; i <= 50_000; i++) {
+                        // Seules les valeurs déjà écrites sont relues
+                        int written = map.size();
+                        if (written > 0 && map.get(ids.format(written)) == null) {
+                            misses++;
+                        }
+                    }
+                    return misses;
+                }));
+            }
+            pool.submit(() -> {
+                for (int i = 1; i <= 50_000; i++) {
+                    map.put(ids.format(i), "loan " + i);
+                }
+            }).get(10, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertThat(reader.get(10, TimeUnit.SECONDS)).isZero();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(map.size()).isEqualTo(50_000);
+        assertThat(map.capacity()).isLessThanOrEqualTo(50_000 * 8 / 3 * 2);
+    }
+}
@@ -0,0 +1,151 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcBookRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcLoanRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcMemberRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcReservationRepository;
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JdbcRepositoryTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private DatabaseConnection db;
+    private JdbcBookRepository books;
+    private JdbcMemberRepository members;
+    private JdbcLoanRepository loans;
+    private JdbcReservationRepository reservations;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DatabaseConnection.reset();
+        db = DatabaseConnection.getInstance();
+        // Base mémoire conservée entre connexions (DB_CLOSE_DELAY=-1) : on repart de tables vides
+        try (Connection connection = db.getConnection(); Statement st = connection.createStatement()) {
+            st.executeUpdate("DELETE FROM reservations");
+            st.executeUpdate("DELETE FROM loans");
+            st.executeUpdate("DELETE FROM members");
+            st.executeUpdate("DELETE FROM books");
+        }
+        books = new JdbcBookRepository(db);
+        members = new JdbcMemberRepository(db);
+        loans = new JdbcLoanRepository(db);
+        reservations = new JdbcReservationRepository(db);
+    }
+
+    // Lignes parentes exigées par les clés étrangères de loans et reservations
+    private void saveParents() {
+        books.save(new Book("B00001", "Dune", "Herbert", "978-0441013593", 1965, 3, "SF"));
+        members.saveAll(List.of(
+            new Member("M00001", "Ada", "Lovelace", "ada@univ.fr", "STUDENT"),
+            new Member("M00002", "Alan", "Turing", "alan@univ.fr", "TEACHER"),
+            new Member("M00003", "Grace", "Hopper", "grace@univ.fr", "STAFF")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseConnection.reset();
+    }
+
+    @Test
+    void should_save_find_and_delete_a_book() {
+        Book book = new Book("B00001", "Dune", "Herbert", "978-0441013593", 1965, 3, "SF");
+        book.setAvailableCopies(2);
+        books.save(book);
+
+        Book found = books.findByIsbn("978-0441013593");
+        assertThat(found.getId()).isEqualTo("B00001");
+        assertThat(found.getYear()).isEqualTo(1965);
+        assertThat(found.getAvailableCopies()).isEqualTo(2);
+
+        book.setTitle("Dune (réédition)");
+        books.save(book);
+        assertThat(books.count()).isEqualTo(1);
+        assertThat(books.findById("B00001").getTitle()).isEqualTo("Dune (réédition)");
+
+        books.delete("B00001");
+        assertThat(books.findById("B00001")).isNull();
+    }
+
+    @Test
+    void should_find_a_member_by_email() {
+        members.saveAll(List.of(
+            new Member("M00001", "Ada", "Lovelace", "ada@univ.fr", "STUDENT"),
+            new Member("M00002", "Alan", "Turing", "alan@univ.fr", "TEACHER")));
+
+        Member found = members.findByEmail("alan@univ.fr");
+
+        assertThat(found.getId()).isEqualTo("M00002");
+        assertThat(found.getMemberType()).isEqualTo("TEACHER");
+        assertThat(members.findAll()).hasSize(2);
+    }
+
+    @Test
+    void should_return_only_open_loans_of_a_member() {
+        saveParents();
+        long now = System.currentTimeMillis();
+        Loan active = loan("L00001", "M00001", "ACTIVE", now + 7 * DAY);
+        Loan overdue = loan("L00002", "M00001", "OVERDUE", now - 2 * DAY);
+        Loan returned = loan("L00003", "M00001", "RETURNED", now - 5 * DAY);
+        Loan other = loan("L00004", "M00002", "ACTIVE", now - DAY);
+        loans.saveAll(List.of(active, overdue, returned, other));
+
+        assertThat(loans.findOpenByMember("M00001")).extracting(Loan::getId)
+            .containsExactly("L00001", "L00002");
+        assertThat(loans.findByMember("M00001")).hasSize(3);
+        assertThat(loans.findOpenDueBefore(new Date(now))).extracting(Loan::getId)
+            .containsExactly("L00002", "L00004");
+        // L'heure de l'échéance est conservée
+        assertThat(loans.findById("L00001").getDueDate()).isEqualTo(active.getDueDate());
+    }
+
+    @Test
+    void should_list_pending_reservations_of_a_book_in_queue_order() {
+        saveParents();
+        long now = System.currentTimeMillis();
+        reservations.saveAll(List.of(
+            reservation("R00002", "M00002", "PENDING", now + 1000, 2),
+            reservation("R00001", "M00001", "PENDING", now, 1),
+            reservation("R00003", "M00003", "CANCELLED", now - 1000, 0)));
+
+        assertThat(reservations.findPendingByBook("B00001")).extracting(Reservation::getId)
+            .containsExactly("R00001", "R00002");
+    }
+
+    private static Loan loan(String id, String memberId, String status, long dueDate) {
+        Loan loan = new Loan();
+        loan.setId(id);
+        loan.setMemberId(memberId);
+        loan.setBookId("B00001");
+        loan.setLoanDate(new Date(dueDate - 14 * DAY));
+        loan.setDueDate(new Date(dueDate));
+        loan.setStatus(status);
+        return loan;
+    }
+
+    private static Reservation reservation(String id, String memberId, String status, long date, int position) {
+        Reservation reservation = new Reservation(id, memberId, "B00001");
+        reservation.setReservationDate(new Date(date));
+        reservation.setStatus(status);
+        reservation.setQueuePosition(position);
+        return reservation;
+    }
+}
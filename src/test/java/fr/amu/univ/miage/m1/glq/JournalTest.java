@@ -0,0 +1,148 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import fr.amu.univ.miage.m1.glq.service.journal.Journal;
+import fr.amu.univ.miage.m1.glq.service.journal.LibraryState;
+import fr.amu.univ.miage.m1.glq.service.journal.Operation;
+import fr.amu.univ.miage.m1.glq.service.journal.SyncPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("library.journal.dir", dir.toString());
+        LibraryManager.resetInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        LibraryManager.resetInstance();
+        System.clearProperty("library.journal.dir");
+    }
+
+    private static LibraryManager restart() {
+        LibraryManager.resetInstance();
+        return LibraryManager.getInstance();
+    }
+
+    @Test
+    void should_rebuild_the_library_from_the_journal_after_a_restart() {
+        LibraryManager manager = LibraryManager.getInstance();
+        String bookId = manager.addBook("Dune", "Herbert", "978-0441013593", 1965, 2, "SF");
+        String memberId = manager.addMember("Ada", "Lovelace", "ada@univ.fr", "TEACHER");
+        String returnedId = manager.createLoan(memberId, bookId);
+        manager.returnLoan(returnedId);
+        String openId = manager.createLoan(memberId, bookId);
+        manager.renewLoan(openId);
+        String waitingId = manager.addMember("Alan", "Turing", "alan@univ.fr", "STUDENT");
+        String reservationId = manager.createReservation(waitingId, bookId);
+
+        LibraryManager restarted = restart();
+
+        assertThat(restarted.getJournal().getReplayedCount()).isPositive();
+        assertThat(restarted.getBookByIsbn("978-0441013593").getId()).isEqualTo(bookId);
+        assertThat(restarted.getBook(bookId).getAvailableCopies()).isEqualTo(1);
+        assertThat(restarted.getLoan(returnedId).getStatus()).isEqualTo("RETURNED");
+        Loan open = restarted.getLoan(openId);
+        assertThat(open.getRenewalCount()).isEqualTo(1);
+        assertThat(open.getMember()).isSameAs(restarted.getMember(memberId));
+        assertThat(restarted.getMemberLoans(memberId)).hasSize(2);
+        assertThat(restarted.getReservationQueuePosition(reservationId)).isEqualTo(1);
+        // Les compteurs d'identifiants repartent après les identifiants relus
+        List<String> knownIds = restarted.getAllBooks().stream().map(Book::getId).toList();
+        assertThat(restarted.addBook("Neuf", "Auteur", "978-1", 2024, 1, "ROMAN"))
+            .isNotIn(knownIds)
+            .isGreaterThan(bookId);
+
+        restarted.returnLoan(openId);
+        assertThat(restarted.getBook(bookId).getAvailableCopies()).isEqualTo(2);
+    }
+
+    @Test
+    void should_replay_only_the_tail_after_a_snapshot() throws IOException {
+        LibraryManager manager = LibraryManager.getInstance();
+        String bookId = manager.addBook("Dune", "Herbert", "978-0441013593", 1965, 3, "SF");
+        String memberId = manager.addMember("Ada", "Lovelace", "ada@univ.fr", "TEACHER");
+        assertThat(manager.checkpoint()).isTrue();
+        String loanId = manager.createLoan(memberId, bookId);
+
+        LibraryManager restarted = restart();
+
+        assertThat(restarted.getJournal().getReplayedCount()).isEqualTo(1);
+        assertThat(restarted.getLoan(loanId).getStatus()).isEqualTo("ACTIVE");
+        assertThat(restarted.getAllBooks()).hasSize(manager.getAllBooks().size());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.map(path -> path.getFileName().toString()).filter(name -> name.startsWith("snapshot-")))
+                .hasSize(1);
+        }
+    }
+
+    @Test
+    void should_write_archived_loans_into_the_snapshot() {
+        LibraryManager manager = LibraryManager.getInstance();
+        String bookId = manager.addBook("Dune", "Herbert", "978-0441013593", 1965, 3, "SF");
+        String memberId = manager.addMember("Ada", "Lovelace", "ada@univ.fr", "TEACHER");
+        String returnedId = manager.createLoan(memberId, bookId);
+        manager.returnLoan(returnedId);
+        String openId = manager.createLoan(memberId, bookId);
+        assertThat(manager.getHistory().contains(returnedId)).isTrue();
+        assertThat(manager.checkpoint()).isTrue();
+
+        LibraryManager restarted = restart();
+
+        assertThat(restarted.getJournal().getReplayedCount()).isZero();
+        assertThat(restarted.getHistory().contains(returnedId)).isTrue();
+        assertThat(restarted.getLoan(returnedId).getStatus()).isEqualTo("RETURNED");
+        assertThat(restarted.getLoan(openId).getStatus()).isEqualTo("ACTIVE");
+        assertThat(restarted.getAllLoans()).hasSize(manager.getAllLoans().size());
+    }
+
+    @Test
+    void should_stop_replay_at_a_torn_record_and_cut_the_segment() throws IOException {
+        Path journalDir = dir.resolve("torn");
+        try (Journal journal = Journal.open(journalDir, SyncPolicy.EVERY_COMMIT, 100, 1_000)) {
+            for (int i = 1; i <= 3; i++) {
+                journal.append(Operation.ADD_BOOK, new Book("B0000" + i, "Titre " + i, "A", "isbn" + i, 2000, 1, "ROMAN"));
+            }
+            journal.commit();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segment = files.filter(path -> path.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        long goodSize = Files.size(segment);
+        // Écriture interrompue : début d'un quatrième enregistrement
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (Journal journal = Journal.open(journalDir, SyncPolicy.EVERY_COMMIT, 100, 1_000)) {
+            LibraryState state = journal.takeRecoveredState();
+
+            assertThat(state.books()).extracting(Book::getId).containsExactly("B00001", "B00002", "B00003");
+            assertThat(journal.getLastLsn()).isEqualTo(3);
+            assertThat(Files.size(segment)).isEqualTo(goodSize);
+            assertThat(journal.append(Operation.ADD_BOOK, new Book("B00004", "T", "A", "i", 2000, 1, "ROMAN")))
+                .isEqualTo(4);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class LibraryManagerConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private LibraryManager manager;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        LibraryManager.resetInstance();
+        manager = LibraryManager.getInstance();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @Test
+    void should_never_lend_more_copies_than_available() throws Exception {
+        String bookId = manager.addBook("Hot Book", "A", "HOT", 2020, 5, "ROMAN");
+        List<String> memberIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            memberIds.add(manager.addMember("M" + i, "X", "m" + i + "@test.com", "TEACHER"));
+        }
+
+        ConcurrentLinkedQueue<String> loanIds = new ConcurrentLinkedQueue<>();
+        runConcurrently(memberIds.stream().<Callable<Void>>map(memberId -> () -> {
+            try {
+                loanIds.add(manager.createLoan(memberId, bookId));
+            } catch (RuntimeException e) {
+                // Plus d'exemplaire disponible : attendu pour la plupart des membres
+            }
+            return null;
+        }).toList());
+
+        assertThat(loanIds).hasSize(5).doesNotHaveDuplicates();
+        assertThat(manager.getBook(bookId).getAvailableCopies()).isZero();
+    }
+
+    @Test
+    void should_enforce_member_quota_under_concurrent_checkouts() throws Exception {
+        String memberId = manager.addMember("Student", "S", "s@test.com", "STUDENT");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String bookId = manager.addBook("B" + i, "A", "I" + i, 2000, 1, "BD");
+            tasks.add(() -> {
+                try {
+                    manager.createLoan(memberId, bookId);
+                } catch (RuntimeException e) {
+                    // Quota atteint
+                }
+                return null;
+            });
+        }
+
+        runConcurrently(tasks);
+
+        assertThat(manager.getMemberLoans(memberId)).hasSize(3);
+        assertThat(manager.getMember(memberId).getCurrentLoansCount()).isEqualTo(3);
+    }
+
+    @Test
+    void should_keep_copies_consistent_with_concurrent_loans_and_returns() throws Exception {
+        String bookId = manager.addBook("Busy Book", "A", "BUSY", 2020, 3, "ROMAN");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String memberId = manager.addMember("M" + i, "X", "busy" + i + "@test.com", "STAFF");
+            tasks.add(() -> {
+                for (int round = 0; round < 20; round++) {
+                    try {
+                        manager.returnLoan(manager.createLoan(memberId, bookId));
+                    } catch (RuntimeException e) {
+                        // Aucun exemplaire disponible à cet instant
+                    }
+                }
+                return null;
+            });
+        }
+
+        runConcurrently(tasks);
+
+        assertThat(manager.getBook(bookId).getAvailableCopies()).isEqualTo(3);
+        assertThat(manager.getActiveLoans()).extracting(Loan::getBookId).doesNotContain(bookId);
+    }
+
+    @Test
+    void should_keep_inventory_counters_exact_while_loans_race_with_catalog_updates() throws Exception {
+        String bookId = manager.addBook("Moving Book", "A", "MOVE", 2020, 4, "ROMAN");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            String memberId = manager.addMember("I" + i, "X", "inv" + i + "@test.com", "STAFF");
+            tasks.add(() -> {
+                for (int round = 0; round < 20; round++) {
+                    try {
+                        manager.returnLoan(manager.createLoan(memberId, bookId));
+                    } catch (RuntimeException e) {
+                        // Aucun exemplaire disponible à cet instant
+                    }
+                }
+                return null;
+            });
+        }
+        tasks.add(() -> {
+            Book book = manager.getBook(bookId);
+            for (int round = 0; round < 50; round++) {
+                book.setCategory(round % 2 == 0 ? "SCIENCE" : "ROMAN");
+                manager.updateBook(book);
+            }
+            return null;
+        });
+
+        runConcurrently(tasks);
+
+        int copies = 0;
+        int available = 0;
+        for (Book book : manager.getAllBooks()) {
+            copies += book.getCopies();
+            available += book.getAvailableCopies();
+        }
+        assertThat(manager.getInventoryTotals().copies()).isEqualTo(copies);
+        assertThat(manager.getInventoryTotals().availableCopies()).isEqualTo(available);
+        assertThat(manager.getInventoryTotals().titles()).isEqualTo(manager.getAllBooks().size());
+    }
+
+    @Test
+    void should_keep_book_copies_within_bounds_with_concurrent_cas() throws Exception {
+        Book book = new Book("B1", "T", "A", "I", 2000, 4, "ROMAN");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    if (book.tryReserveCopy()) {
+                        assertThat(book.getAvailableCopies()).isBetween(0, 3);
+                        assertThat(book.releaseCopy()).isTrue();
+                    }
+                }
+                return null;
+            });
+        }
+
+        runConcurrently(tasks);
+
+        assertThat(book.getAvailableCopies()).isEqualTo(4);
+        assertThat(book.releaseCopy()).isFalse();
+    }
+
+    private void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
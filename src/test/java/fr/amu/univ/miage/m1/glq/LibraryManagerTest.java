@@ -2,14 +2,29 @@ package fr.amu.univ.miage.m1.glq;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 import fr.amu.univ.miage.m1.glq.model.Book;
 import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
 import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+import fr.amu.univ.miage.m1.glq.model.ReservationStatus;
 import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import fr.amu.univ.miage.m1.glq.service.notification.BackPressurePolicy;
+import fr.amu.univ.miage.m1.glq.service.notification.Notification;
+import fr.amu.univ.miage.m1.glq.service.notification.NotificationDispatcher;
+import fr.amu.univ.miage.m1.glq.service.stats.InventoryLevel;
+import fr.amu.univ.miage.m1.glq.util.DateUtils;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.DisplayNameGeneration;
@@ -28,6 +43,11 @@ class LibraryManagerTest {
         manager = LibraryManager.getInstance();
     }
 
+    @AfterEach
+    void tearDown() {
+        LibraryManager.resetInstance();
+    }
+
     @Nested
     @DisplayName("Catalog Management")
     class CatalogManagement {
@@ -56,6 +76,29 @@ class LibraryManagerTest {
             assertThat(manager.getBookByIsbn("000-0000000000")).isNull();
         }
 
+        @Test
+        void should_find_book_by_isbn_without_dashes_or_as_isbn_10() {
+            // Clean Code (données initiales) : 978-0132350884 / ISBN-10 0132350882
+            assertThat(manager.getBookByIsbn("9780132350884")).extracting(Book::getTitle).isEqualTo("Clean Code");
+            assertThat(manager.getBookByIsbn("0-13-235088-2")).extracting(Book::getTitle).isEqualTo("Clean Code");
+            // Chiffres pleine chasse : pas un ISBN-10, pas de conversion
+            assertThat(manager.getBookByIsbn("\uFF10-13-235088-2")).isNull();
+        }
+
+        @Test
+        void should_keep_isbn_lookup_consistent_after_update_and_delete() {
+            String id = manager.addBook("Indexed", "Author", "111-1111111111", 2020, 1, "ROMAN");
+            Book book = manager.getBook(id);
+            book.setIsbn("222-2222222222");
+            manager.updateBook(book);
+
+            assertThat(manager.getBookByIsbn("111-1111111111")).isNull();
+            assertThat(manager.getBookByIsbn("2222222222222")).isSameAs(book);
+
+            manager.deleteBook(id);
+            assertThat(manager.getBookByIsbn("222-2222222222")).isNull();
+        }
+
         @Test
         void should_search_books_by_title_author_or_isbn() {
             manager.addBook("Java Programming", "John Doe", "12345", 2020, 1, "TECHNIQUE");
@@ -71,6 +114,24 @@ class LibraryManagerTest {
             assertThat(resultsIsbn).hasSize(1).extracting(Book::getTitle).contains("Java Programming");
         }
 
+        @Test
+        void should_return_same_results_with_index_and_linear_scan() {
+            manager.addBook("Java Concurrency in Practice", "Brian Goetz", "978-0321349606", 2006, 1, "TECHNIQUE");
+            String updatedId = manager.addBook("Old Java Title", "Someone", "111", 2000, 1, "TECHNIQUE");
+            Book updated = manager.getBook(updatedId);
+            updated.setTitle("Renamed");
+            manager.updateBook(updated);
+            manager.deleteBook(manager.addBook("Deleted Java Book", "Nobody", "222", 2000, 1, "TECHNIQUE"));
+
+            for (String query : List.of("java", "JAVA", "a", "", "ti", "in practice", "goetz", "978-0", "old java",
+                                        "renamed", "deleted", "c. martin", " pr", "xyz")) {
+                List<Book> indexed = manager.searchBooks(query);
+                assertThat(indexed).as(query).containsExactlyInAnyOrderElementsOf(manager.searchBooksLinear(query));
+            }
+            assertThat(manager.searchBooks("java")).extracting(Book::getTitle)
+                .containsExactly("Java Concurrency in Practice");
+        }
+
         @Test
         void should_update_book_information() {
             String id = manager.addBook("Old Title", "Author", "ISBN", 2000, 1, "ROMAN");
@@ -183,6 +244,56 @@ class LibraryManagerTest {
             assertThat(member.getCurrentLoansCount()).isEqualTo(1);
         }
 
+        @Test
+        void should_send_loan_confirmation_through_the_notification_pipeline() throws Exception {
+            List<Notification> sent = new CopyOnWriteArrayList<>();
+            manager.getNotificationDispatcher().setNotifier(sent::addAll);
+
+            manager.createLoan(memberId, bookId);
+
+            assertThat(manager.getNotificationDispatcher().flush(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(sent).extracting(Notification::email, Notification::subject)
+                .containsExactly(tuple("loaner@test.com", "Emprunt confirmé"));
+        }
+
+        @Test
+        void should_release_the_member_lock_before_waiting_for_room_in_the_notification_queue() throws Exception {
+            CountDownLatch delivering = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            NotificationDispatcher dispatcher = manager.getNotificationDispatcher();
+            dispatcher.setNotifier(batch -> {
+                delivering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // Envoi bloqué puis file pleine : le prochain dépôt BLOCK attend une place
+            dispatcher.submit("filler@test.com", "Remplissage", "");
+            assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+            dispatcher.setPolicy(BackPressurePolicy.DROP);
+            while (dispatcher.submit("filler@test.com", "Remplissage", "")) {
+                Thread.onSpinWait();
+            }
+            dispatcher.setPolicy(BackPressurePolicy.BLOCK);
+            dispatcher.setBlockTimeout(10, TimeUnit.SECONDS);
+
+            CompletableFuture<String> loan = CompletableFuture.supplyAsync(() -> manager.createLoan(memberId, bookId));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (manager.getMemberLoans(memberId).isEmpty() && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            try {
+                assertThat(manager.getMemberLoans(memberId)).hasSize(1);
+                assertThat(loan).isNotDone();
+            } finally {
+                release.countDown();
+            }
+            assertThat(loan.get(10, TimeUnit.SECONDS)).isNotNull();
+        }
+
         @Test
         void should_throw_exception_when_member_not_found() {
             assertThatThrownBy(() -> manager.createLoan("UNKNOWN", bookId))
@@ -287,6 +398,19 @@ class LibraryManagerTest {
             assertThat(manager.getActiveLoans()).hasSizeGreaterThanOrEqualTo(1);
             assertThat(manager.getMemberLoans(memberId)).hasSize(1);
         }
+
+        @Test
+        void should_free_quota_but_keep_history_after_return() {
+            String first = manager.createLoan(memberId, manager.addBook("B1", "A", "I1", 2000, 1, "BD"));
+            manager.createLoan(memberId, manager.addBook("B2", "A", "I2", 2000, 1, "BD"));
+            manager.createLoan(memberId, manager.addBook("B3", "A", "I3", 2000, 1, "BD"));
+            manager.returnLoan(first);
+
+            String fourth = manager.createLoan(memberId, bookId);
+
+            assertThat(fourth).isNotNull();
+            assertThat(manager.getMemberLoans(memberId)).hasSize(4).extracting(Loan::getId).contains(first);
+        }
     }
 
     @Nested
@@ -325,6 +449,15 @@ class LibraryManagerTest {
             // Or relying on the fact that if we can create them, it works.
             assertThat(res1).isNotEqualTo(res2);
         }
+
+        @Test
+        void should_number_reservations_in_queue_order() {
+            String res1 = manager.createReservation(member1Id, popularBookId);
+            String res2 = manager.createReservation(member2Id, popularBookId);
+
+            assertThat(manager.getReservationQueuePosition(res1)).isEqualTo(1);
+            assertThat(manager.getReservationQueuePosition(res2)).isEqualTo(2);
+        }
         
         @Test
         void should_prevent_duplicate_reservation() {
@@ -343,6 +476,32 @@ class LibraryManagerTest {
             
             // Can't easily inspect internal state without getters, but let's check no exception
         }
+
+        @Test
+        void should_move_next_reservation_up_after_cancellation() {
+            String resId = manager.createReservation(member1Id, popularBookId);
+            String nextId = manager.createReservation(member2Id, popularBookId);
+
+            manager.cancelReservation(resId);
+
+            assertThat(manager.getReservation(resId).getStatus()).isEqualTo("CANCELLED");
+            assertThat(manager.getReservationQueuePosition(resId)).isZero();
+            assertThat(manager.getReservationQueuePosition(nextId)).isEqualTo(1);
+            // Les autres réservations ne sont plus modifiées
+            assertThat(manager.getReservation(nextId).getQueuePosition()).isEqualTo(2);
+            assertThat(manager.isReserved(popularBookId)).isTrue();
+        }
+
+        @Test
+        void should_release_book_when_last_reservation_cancelled() {
+            String resId = manager.createReservation(member1Id, popularBookId);
+
+            manager.cancelReservation(resId);
+
+            assertThat(manager.isReserved(popularBookId)).isFalse();
+            // Le membre peut réserver à nouveau après annulation
+            assertThat(manager.createReservation(member1Id, popularBookId)).isNotNull();
+        }
         
         @Test
         void should_throw_exception_when_accessing_non_existent_reservation() {
@@ -364,6 +523,89 @@ class LibraryManagerTest {
             assertThat(report).contains("STATISTIQUES GLOBALES");
         }
 
+        @Test
+        void should_keep_loan_report_statistics_in_sync_with_loan_transitions() {
+            String bookId = manager.addBook("Stats Book", "Author", "S-ISBN", 2023, 5, "ROMAN");
+            String m1 = manager.addMember("Stat", "One", "s1@test.com", "STUDENT");
+            String m2 = manager.addMember("Stat", "Two", "s2@test.com", "STUDENT");
+            String returnedId = manager.createLoan(m1, bookId);
+            String overdueId = manager.createLoan(m2, bookId);
+
+            manager.returnLoan(returnedId);
+            Loan overdue = manager.getLoan(overdueId);
+            overdue.setStatus("OVERDUE");
+            overdue.setPenaltyAmount(2.5);
+
+            String report = manager.generateLoanReport();
+
+            assertThat(report)
+                .contains("Total emprunts : 2\n")
+                .contains("Emprunts actifs : 0\n")
+                .contains("Emprunts en retard : 1\n")
+                .contains("Emprunts retournés : 1\n")
+                .contains("Total pénalités : 2.5€")
+                .contains("1. Stats Book (2 emprunts)");
+        }
+
+        @Test
+        void should_rank_members_by_late_returns_in_loan_report() {
+            String bookId = manager.addBook("Late Book", "Author", "LT-ISBN", 2023, 5, "ROMAN");
+            String memberId = manager.addMember("Late", "Returner", "late@test.com", "STUDENT");
+            for (int i = 0; i < 2; i++) {
+                String loanId = manager.createLoan(memberId, bookId);
+                Calendar past = Calendar.getInstance();
+                past.add(Calendar.DAY_OF_MONTH, -3);
+                manager.getLoan(loanId).setDueDate(past.getTime());
+                manager.returnLoan(loanId);
+            }
+
+            assertThat(manager.generateLoanReport())
+                .contains("TOP 5 LIVRES LES PLUS EMPRUNTÉS")
+                .contains("Late Returner : 2 retard(s)");
+        }
+
+        @Test
+        void should_keep_the_loan_ledger_in_step_with_renewals_due_dates_and_returns() {
+            long returnedBefore = manager.getLedger().countByStatus()[LoanStatus.RETURNED.ordinal()];
+            String memberId = manager.addMember("Grace", "Hopper", "grace@univ.fr", "TEACHER");
+            String loanId = manager.createLoan(memberId, manager.addBook("Cobol", "A", "I-1", 1960, 1, "TECH"));
+            manager.renewLoan(loanId);
+            manager.getLoan(loanId).setDueDate(new Date(System.currentTimeMillis() - 3L * 86400000));
+
+            long today = Math.floorDiv(System.currentTimeMillis(), DateUtils.ONE_DAY_MS);
+
+            assertThat(manager.getOverdueLoans()).extracting(Loan::getId).containsExactly(loanId);
+            assertThat(manager.getLedger().overdueBacklog(today).loans()).isEqualTo(1);
+
+            manager.returnLoan(loanId);
+
+            assertThat(manager.getOverdueLoans()).isEmpty();
+            assertThat(manager.getLedger().overdueBacklog(today).loans()).isZero();
+            assertThat(manager.getLedger().countByStatus()[LoanStatus.RETURNED.ordinal()]).isEqualTo(returnedBefore + 1);
+        }
+
+        @Test
+        void should_maintain_inventory_counters_through_catalog_and_loan_changes() {
+            InventoryLevel before = manager.getInventory("BD");
+            String bookId = manager.addBook("Astérix", "Goscinny", "BD-1", 1961, 3, "BD");
+            String memberId = manager.addMember("Inv", "Entory", "inv@test.com", "STUDENT");
+
+            String loanId = manager.createLoan(memberId, bookId);
+            assertThat(manager.getInventory("BD")).isEqualTo(new InventoryLevel(
+                before.titles() + 1, before.copies() + 3, before.availableCopies() + 2));
+
+            manager.returnLoan(loanId);
+            Book book = manager.getBook(bookId);
+            book.setCategory("JEUNESSE");
+            manager.updateBook(book);
+            assertThat(manager.getInventory("BD")).isEqualTo(before);
+            assertThat(manager.getInventory("JEUNESSE")).isEqualTo(new InventoryLevel(1, 3, 3));
+
+            manager.deleteBook(bookId);
+            assertThat(manager.getInventoryByCategory()).doesNotContainKey("JEUNESSE");
+            assertThat(manager.generateInventoryReport()).contains("Nombre de titres : " + manager.getAllBooks().size());
+        }
+
         @Test
         void should_generate_inventory_report_without_error() {
             String report = manager.generateInventoryReport();
@@ -562,6 +804,20 @@ class LibraryManagerTest {
             assertThat(newLoanId).isNotNull();
             // TODO: In a real test we might want to check reservation status is FULFILLED, but no getter for all reqs
         }
+
+        @Test
+        void should_fulfil_reservation_and_release_book_when_reserver_borrows_it() {
+            String bookId = manager.addBook("Fulfilled", "A", "I", 2000, 1, "TECH");
+            String holderId = manager.addMember("H3", "H", "h3@h.com", "STUDENT");
+            manager.returnLoan(manager.createLoan(holderId, bookId));
+            String reserverId = manager.addMember("Me2", "Me", "me2@me.com", "STUDENT");
+            String resId = manager.createReservation(reserverId, bookId);
+
+            manager.createLoan(reserverId, bookId);
+
+            assertThat(manager.getReservation(resId).getStatus()).isEqualTo("FULFILLED");
+            assertThat(manager.isReserved(bookId)).isFalse();
+        }
     }
 
     @Nested
@@ -670,5 +926,91 @@ class LibraryManagerTest {
 
             assertThat(manager.getOverdueLoans()).extracting(Loan::getId).contains(loanId3);
         }
+
+        @Test
+        void should_follow_due_date_changes_and_returns_in_overdue_queries() {
+            Member member = manager.getMember(manager.addMember("Q3", "Q3", "q3@q.com", "STAFF"));
+            String loanId1 = manager.createLoan(member.getId(), manager.addBook("QB5", "A", "I", 2000, 1, "TECH"));
+            String loanId2 = manager.createLoan(member.getId(), manager.addBook("QB6", "A", "I", 2000, 1, "TECH"));
+            Date lastWeek = new Date(System.currentTimeMillis() - 7L * 86400000);
+            manager.getLoan(loanId1).setDueDate(lastWeek);
+            manager.getLoan(loanId2).setDueDate(lastWeek);
+
+            manager.returnLoan(loanId1);
+            manager.getLoan(loanId2).setDueDate(new Date(System.currentTimeMillis() + 86400000));
+
+            assertThat(manager.getOverdueLoans()).extracting(Loan::getId).doesNotContain(loanId1, loanId2);
+        }
+
+        @Test
+        void should_keep_status_partitions_in_sync_with_loan_transitions() {
+            Member member = manager.getMember(manager.addMember("Q4", "Q4", "q4@q.com", "STAFF"));
+            String loanId1 = manager.createLoan(member.getId(), manager.addBook("QB7", "A", "I", 2000, 1, "TECH"));
+            String loanId2 = manager.createLoan(member.getId(), manager.addBook("QB8", "A", "I", 2000, 1, "TECH"));
+
+            manager.getLoan(loanId2).setStatus("LOST");
+
+            assertThat(manager.getLoans(LoanStatus.ACTIVE)).extracting(Loan::getId).containsExactly(loanId1);
+            assertThat(manager.getLoans(LoanStatus.LOST)).extracting(Loan::getId).containsExactly(loanId2);
+            assertThat(manager.getActiveLoans()).extracting(Loan::getId).containsExactly(loanId1);
+        }
+
+        @Test
+        void should_reject_transitions_missing_from_the_status_table() {
+            Member member = manager.getMember(manager.addMember("Q5", "Q5", "q5@q.com", "STAFF"));
+            String bookId = manager.addBook("QB9", "A", "I", 2000, 1, "TECH");
+            String loanId = manager.createLoan(member.getId(), bookId);
+            manager.returnLoan(loanId);
+            String reservationId = manager.createReservation(member.getId(), bookId);
+            manager.createLoan(member.getId(), bookId);
+
+            assertThatThrownBy(() -> manager.getLoan(loanId).setState(LoanStatus.ACTIVE))
+                .isInstanceOf(IllegalStateException.class);
+            assertThat(manager.getReservation(reservationId).getState()).isEqualTo(ReservationStatus.FULFILLED);
+            assertThatThrownBy(() -> manager.cancelReservation(reservationId))
+                .isInstanceOf(IllegalStateException.class);
+            assertThat(manager.getReservations(ReservationStatus.FULFILLED))
+                .extracting(Reservation::getId).containsExactly(reservationId);
+        }
+
+        @Test
+        void should_move_returned_loans_out_of_the_heap_tables_into_read_only_history() {
+            String memberId = manager.addMember("Grace", "Hopper", "grace@univ.fr", "STUDENT");
+            String bookId = manager.addBook("Cobol", "A", "I-1", 1960, 2, "TECH");
+            String returnedId = manager.createLoan(memberId, bookId);
+            manager.returnLoan(returnedId);
+            String openId = manager.createLoan(memberId, bookId);
+
+            assertThat(manager.getHistory().contains(returnedId)).isTrue();
+            assertThat(manager.getLoans(LoanStatus.RETURNED)).extracting(Loan::getId).contains(returnedId);
+            assertThat(manager.getMemberLoans(memberId)).extracting(Loan::getId).containsExactly(openId, returnedId);
+            Loan archived = manager.getLoan(returnedId);
+            assertThat(archived.getStatus()).isEqualTo("RETURNED");
+            assertThat(archived.getMember()).isSameAs(manager.getMember(memberId));
+            archived.setPenaltyAmount(9);
+            assertThat(manager.getLoan(returnedId).getPenaltyAmount()).isZero();
+            assertThatThrownBy(() -> manager.returnLoan(returnedId))
+                .hasMessageContaining("déjà été retourné");
+        }
+
+        @Test
+        void should_list_each_loan_once_while_loans_are_being_archived() {
+            String bookId = manager.addBook("Busy", "A", "I-2", 2000, 40, "TECH");
+            List<String> loanIds = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String memberId = manager.addMember("M" + i, "M" + i, "m" + i + "@univ.fr", "STAFF");
+                loanIds.add(manager.createLoan(memberId, bookId));
+            }
+            int total = manager.getAllLoans().size();
+
+            CompletableFuture<Void> returns = CompletableFuture.runAsync(() -> loanIds.forEach(manager::returnLoan));
+            while (!returns.isDone()) {
+                assertThat(manager.getAllLoans()).extracting(Loan::getId).doesNotHaveDuplicates().hasSize(total);
+            }
+            returns.join();
+
+            assertThat(manager.getAllLoans()).extracting(Loan::getId).doesNotHaveDuplicates().hasSize(total);
+            assertThat(manager.getHistory().size()).isGreaterThanOrEqualTo(40);
+        }
     }
 }
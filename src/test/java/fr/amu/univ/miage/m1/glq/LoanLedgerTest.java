@@ -0,0 +1,94 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+import fr.amu.univ.miage.m1.glq.model.LoanStatus;
+import fr.amu.univ.miage.m1.glq.model.Member;
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import fr.amu.univ.miage.m1.glq.service.ledger.LoanLedger;
+import fr.amu.univ.miage.m1.glq.util.DateUtils;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class LoanLedgerTest {
+
+    private static final long DAY = DateUtils.ONE_DAY_MS;
+    private static final long NOON = 20_000 * DAY + DAY / 2;
+
+    private final PrefixedIdGenerator loanIds = new PrefixedIdGenerator("L");
+    private final LoanLedger ledger = new LoanLedger(loanIds, new PrefixedIdGenerator("M"), new PrefixedIdGenerator("B"));
+
+    private Loan loan(long dueDate) {
+        Member member = new Member("M00001", "Ada", "Lovelace", "ada@univ.fr", "STAFF");
+        Loan loan = new Loan(loanIds.nextId(), member, new Book("B00001", "T", "A", "I", 2000, 1, "ROMAN"));
+        loan.setDueDate(new Date(dueDate));
+        ledger.put(loan);
+        return loan;
+    }
+
+    @Test
+    void should_aggregate_statuses_penalties_and_overdue_days_from_the_columns() {
+        Loan late = loan(NOON - 4 * DAY);
+        late.setPenaltyAmount(1.25);
+        ledger.put(late);
+        loan(NOON - 2 * DAY);
+        loan(NOON + 5 * DAY);
+
+        long[] counts = ledger.countByStatus();
+        assertThat(counts[LoanStatus.ACTIVE.ordinal()]).isEqualTo(3);
+        assertThat(ledger.penaltyCents(LoanStatus.ACTIVE)).isEqualTo(125);
+        LoanLedger.Backlog backlog = ledger.overdueBacklog(NOON / DAY);
+        assertThat(backlog.loans()).isEqualTo(2);
+        assertThat(backlog.averageDaysLate()).isEqualTo(3.0);
+
+        AtomicLong renewable = new AtomicLong();
+        ledger.forEach((member, book, loanDay, dueDay, status, cents, renewals) -> {
+            if (member == 1 && book == 1 && renewals == 0 && cents == 0) {
+                renewable.incrementAndGet();
+            }
+        });
+        assertThat(renewable).hasValue(2);
+    }
+
+    @Test
+    void should_count_every_row_written_by_concurrent_writers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 3; w++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        loan(NOON);
+                    }
+                }));
+            }
+            Future<Long> scans = pool.submit(() -> {
+                long maxSeen = 0;
+                for (int i = 0; i < 200; i++) {
+                    maxSeen = Math.max(maxSeen, ledger.countByStatus()[LoanStatus.ACTIVE.ordinal()]);
+                }
+                return maxSeen;
+            });
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(scans.get(10, TimeUnit.SECONDS)).isLessThanOrEqualTo(15_000);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(ledger.countByStatus()[LoanStatus.ACTIVE.ordinal()]).isEqualTo(15_000);
+    }
+}
@@ -0,0 +1,102 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import fr.amu.univ.miage.m1.glq.service.catalog.MappedCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class MappedCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = dir.resolve("catalog.bin");
+        List<Book> books = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            books.add(new Book(String.format("B%05d", i), "Titre " + i, "Auteur " + (i % 7),
+                String.format("978-%010d", i), 1900 + i, 1 + i % 3, i % 2 == 0 ? "ROMAN" : "SCIENCE"));
+        }
+        // Identifiant plus long que les autres : doit rester le dernier
+        books.add(new Book("B100000", "Été à Zürich", null, "0-13-235088-2", 2008, 2, "ROMAN"));
+        MappedCatalog.write(file, books);
+    }
+
+    @AfterEach
+    void tearDown() {
+        LibraryManager.resetInstance();
+        System.clearProperty("library.catalog.file");
+    }
+
+    @Test
+    void should_find_books_by_id_and_isbn_without_loading_the_file() throws IOException {
+        MappedCatalog catalog = MappedCatalog.open(file);
+
+        assertThat(catalog.size()).isEqualTo(121);
+        assertThat(catalog.lastId()).isEqualTo("B100000");
+        assertThat(catalog.find("B00042")).isNotNegative();
+        assertThat(catalog.find("B00000")).isEqualTo(-1);
+
+        Book book = catalog.book(catalog.find("B00042"));
+        assertThat(book.getTitle()).isEqualTo("Titre 42");
+        assertThat(book.getAuthor()).isEqualTo("Auteur 0");
+        assertThat(book.getYear()).isEqualTo(1942);
+        assertThat(book.getAvailableCopies()).isEqualTo(book.getCopies());
+
+        int[] byIsbn = catalog.findByIsbn("9780132350884");
+        assertThat(byIsbn).hasSize(1);
+        Book last = catalog.book(byIsbn[0]);
+        assertThat(last.getTitle()).isEqualTo("Été à Zürich");
+        assertThat(last.getAuthor()).isNull();
+        assertThat(catalog.findByIsbn("978-9999999999")).isEmpty();
+    }
+
+    @Test
+    void should_materialize_only_the_books_that_are_touched() {
+        System.setProperty("library.catalog.file", file.toString());
+        LibraryManager.resetInstance();
+        LibraryManager manager = LibraryManager.getInstance();
+
+        Book book = manager.getBook("B00007");
+        assertThat(book.getTitle()).isEqualTo("Titre 7");
+        assertThat(manager.getBook("B00007")).isSameAs(book);
+        assertThat(manager.getBookByIsbn("978-0000000009").getId()).isEqualTo("B00009");
+
+        manager.deleteBook("B00009");
+        assertThat(manager.getBook("B00009")).isNull();
+        assertThat(manager.getBookByIsbn("978-0000000009")).isNull();
+
+        String added = manager.addBook("Neuf", "Auteur", "978-1", 2024, 1, "ROMAN");
+        assertThat(added).isEqualTo("B100001");
+
+        assertThat(manager.getAllBooks()).hasSize(121).contains(book);
+        assertThat(manager.getInventoryTotals().titles()).isEqualTo(121);
+        assertThat(manager.searchBooks("Zürich")).extracting(Book::getId).containsExactly("B100000");
+    }
+
+    @Test
+    void should_reject_a_file_that_is_not_a_catalogue() throws IOException {
+        Path other = dir.resolve("other.bin");
+        Files.write(other, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+        assertThatThrownBy(() -> MappedCatalog.open(other)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,160 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.service.notification.BackPressurePolicy;
+import fr.amu.univ.miage.m1.glq.service.notification.Notification;
+import fr.amu.univ.miage.m1.glq.service.notification.NotificationDispatcher;
+import fr.amu.univ.miage.m1.glq.service.notification.Notifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class NotificationDispatcherTest {
+
+    private final List<Notification> received = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final Notifier recorder = batch -> {
+        batchSizes.add(batch.size());
+        received.addAll(batch);
+    };
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void should_deliver_every_notification_in_batches() throws Exception {
+        dispatcher = new NotificationDispatcher(recorder, 1024, 10, BackPressurePolicy.BLOCK);
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.submit("m" + i + "@univ.fr", "Sujet", "Corps");
+        }
+
+        assertThat(dispatcher.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).hasSize(100);
+        assertThat(received.get(0).email()).isEqualTo("m0@univ.fr");
+        assertThat(batchSizes).allMatch(size -> size <= 10);
+        assertThat(dispatcher.getDeliveredCount()).isEqualTo(100);
+    }
+
+    @Test
+    void should_drop_and_count_when_queue_is_full() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new NotificationDispatcher(blockingUntil(release), 2, 1, BackPressurePolicy.DROP);
+
+        for (int i = 0; i < 20; i++) {
+            dispatcher.submit("m@univ.fr", "Sujet", "Corps " + i);
+        }
+        release.countDown();
+
+        assertThat(dispatcher.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.getDroppedCount()).isPositive();
+        assertThat(dispatcher.getDeliveredCount() + dispatcher.getDroppedCount()).isEqualTo(20);
+    }
+
+    @Test
+    void should_spill_instead_of_losing_messages() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new NotificationDispatcher(blockingUntil(release), 2, 4, BackPressurePolicy.SPILL);
+
+        for (int i = 0; i < 20; i++) {
+            dispatcher.submit("m@univ.fr", "Sujet", "Corps " + i);
+        }
+        release.countDown();
+
+        assertThat(dispatcher.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.getSpilledCount()).isPositive();
+        assertThat(dispatcher.getDroppedCount()).isZero();
+        assertThat(received).hasSize(20);
+    }
+
+    @Test
+    void should_count_failed_deliveries() throws Exception {
+        dispatcher = new NotificationDispatcher(batch -> {
+            throw new RuntimeException("SMTP indisponible");
+        });
+
+        dispatcher.submit("m@univ.fr", "Sujet", "Corps");
+
+        assertThat(dispatcher.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.getFailedCount()).isEqualTo(1);
+        assertThat(dispatcher.getDeliveredCount()).isZero();
+    }
+
+    @Test
+    void should_send_pending_notifications_on_close() {
+        dispatcher = new NotificationDispatcher(recorder);
+        for (int i = 0; i < 50; i++) {
+            dispatcher.submit("m@univ.fr", "Sujet", "Corps " + i);
+        }
+
+        dispatcher.close();
+
+        assertThat(received).hasSize(50);
+        assertThat(dispatcher.submit("m@univ.fr", "Sujet", "Trop tard")).isFalse();
+    }
+
+    @Test
+    void should_give_up_blocking_after_the_timeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher = new NotificationDispatcher(blockingUntil(release), 1, 1, BackPressurePolicy.BLOCK);
+        dispatcher.setBlockTimeout(20, TimeUnit.MILLISECONDS);
+
+        int accepted = 0;
+        for (int i = 0; i < 5; i++) {
+            if (dispatcher.submit("m@univ.fr", "Sujet", "Corps " + i)) {
+                accepted++;
+            }
+        }
+        release.countDown();
+
+        assertThat(dispatcher.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.getDroppedCount()).isPositive();
+        assertThat(received).hasSize(accepted);
+    }
+
+    @Test
+    void should_deliver_or_drop_every_message_submitted_while_closing() throws Exception {
+        dispatcher = new NotificationDispatcher(recorder, 16, 4, BackPressurePolicy.BLOCK);
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            submitters.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    dispatcher.submit("m@univ.fr", "Sujet", "Corps " + i);
+                }
+            }));
+        }
+
+        dispatcher.close();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        assertThat(dispatcher.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).hasSize((int) dispatcher.getDeliveredCount());
+        assertThat(dispatcher.getDeliveredCount() + dispatcher.getDroppedCount()).isEqualTo(2000);
+    }
+
+    // Bloque le premier envoi pour remplir la file
+    private Notifier blockingUntil(CountDownLatch release) {
+        return batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recorder.deliver(batch);
+        };
+    }
+}
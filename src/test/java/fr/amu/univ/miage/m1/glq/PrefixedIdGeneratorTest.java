@@ -0,0 +1,64 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.service.id.PrefixedIdGenerator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class PrefixedIdGeneratorTest {
+
+    @Test
+    void should_produce_the_same_ids_as_string_format() {
+        PrefixedIdGenerator generator = new PrefixedIdGenerator("B");
+        for (long value : new long[]{0, 1, 42, 9_999, 99_999, 100_000, 1_234_567}) {
+            assertThat(generator.format(value)).isEqualTo("B" + String.format("%05d", value));
+        }
+    }
+
+    @Test
+    void should_start_at_one_and_increment() {
+        PrefixedIdGenerator generator = new PrefixedIdGenerator("L");
+
+        assertThat(generator.nextId()).isEqualTo("L00001");
+        assertThat(generator.nextId()).isEqualTo("L00002");
+    }
+
+    @Test
+    void should_parse_back_its_own_ids_only() {
+        PrefixedIdGenerator generator = new PrefixedIdGenerator("M");
+
+        assertThat(generator.parse("M00042")).isEqualTo(42);
+        assertThat(generator.parse("M123456")).isEqualTo(123_456);
+        assertThat(generator.parse("B00042")).isEqualTo(-1);
+        assertThat(generator.parse("M")).isEqualTo(-1);
+        assertThat(generator.parse("M00a42")).isEqualTo(-1);
+        assertThat(generator.parse(null)).isEqualTo(-1);
+    }
+
+    @Test
+    void should_never_hand_out_the_same_id_twice_under_concurrency() throws Exception {
+        PrefixedIdGenerator generator = new PrefixedIdGenerator("R");
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ids).hasSize(80_000);
+    }
+}
@@ -0,0 +1,111 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.model.Reservation;
+import fr.amu.univ.miage.m1.glq.service.index.ReservationQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class ReservationQueueTest {
+
+    private ReservationQueue queue;
+    private List<Reservation> reservations;
+
+    @BeforeEach
+    void setUp() {
+        queue = new ReservationQueue();
+        reservations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Reservation reservation = new Reservation("R" + i, "M" + i, "B1");
+            reservations.add(reservation);
+            queue.add(reservation);
+        }
+    }
+
+    @Test
+    void should_serve_reservations_in_arrival_order() {
+        assertThat(queue.peek()).isSameAs(reservations.get(0));
+        assertThat(queue.poll()).isSameAs(reservations.get(0));
+        assertThat(queue.peek()).isSameAs(reservations.get(1));
+        assertThat(queue.size()).isEqualTo(99);
+    }
+
+    @Test
+    void should_derive_positions_after_cancellations() {
+        queue.remove(reservations.get(10));
+        queue.remove(reservations.get(50));
+
+        assertThat(queue.positionOf("R9")).isEqualTo(10);
+        assertThat(queue.positionOf("R10")).isZero();
+        assertThat(queue.positionOf("R11")).isEqualTo(11);
+        assertThat(queue.positionOf("R99")).isEqualTo(98);
+    }
+
+    @Test
+    void should_update_head_when_head_is_cancelled() {
+        queue.remove(reservations.get(0));
+
+        assertThat(queue.peek()).isSameAs(reservations.get(1));
+        assertThat(queue.positionOf("R1")).isEqualTo(1);
+    }
+
+    @Test
+    void should_track_members_in_queue() {
+        assertThat(queue.containsMember("M42")).isTrue();
+
+        queue.remove(reservations.get(42));
+
+        assertThat(queue.containsMember("M42")).isFalse();
+    }
+
+    @Test
+    void should_restart_positions_when_queue_emptied() {
+        reservations.forEach(queue::remove);
+        assertThat(queue.isEmpty()).isTrue();
+
+        queue.add(new Reservation("RX", "MX", "B1"));
+
+        assertThat(queue.positionOf("RX")).isEqualTo(1);
+        assertThat(queue.peek().getId()).isEqualTo("RX");
+    }
+
+    @Test
+    void should_keep_capacity_bounded_when_the_queue_never_drains() {
+        for (int i = 100; i < 10_100; i++) {
+            queue.poll();
+            queue.add(new Reservation("R" + i, "M" + i, "B1"));
+
+            assertThat(queue.capacity()).isLessThanOrEqualTo(2 * queue.size() + 1);
+        }
+
+        assertThat(queue.size()).isEqualTo(100);
+        assertThat(queue.peek().getId()).isEqualTo("R10000");
+        assertThat(queue.positionOf("R10000")).isEqualTo(1);
+        assertThat(queue.positionOf("R10099")).isEqualTo(100);
+        assertThat(queue.positionOf("R9999")).isZero();
+    }
+
+    @Test
+    void should_keep_positions_after_renumbering() {
+        for (int i = 0; i < 100; i += 2) {
+            queue.remove(reservations.get(i));
+        }
+        for (int i = 100; i < 150; i++) {
+            queue.add(new Reservation("R" + i, "M" + i, "B1"));
+        }
+
+        assertThat(queue.capacity()).isLessThan(150);
+        assertThat(queue.peek()).isSameAs(reservations.get(1));
+        assertThat(queue.positionOf("R99")).isEqualTo(50);
+        assertThat(queue.positionOf("R100")).isEqualTo(51);
+        assertThat(queue.positionOf("R149")).isEqualTo(100);
+        assertThat(queue.toList()).extracting(Reservation::getId).startsWith("R1", "R3", "R5");
+    }
+}
@@ -0,0 +1,92 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.util.log.Level;
+import fr.amu.univ.miage.m1.glq.util.log.Logger;
+import fr.amu.univ.miage.m1.glq.util.log.RingBufferLogWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class RingBufferLogWriterTest {
+
+    private final StringWriter out = new StringWriter();
+    private RingBufferLogWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    void should_format_parameters_in_the_writer_thread() {
+        writer = new RingBufferLogWriter(out, Level.INFO);
+        Logger log = new Logger("Test", writer);
+
+        log.info("Emprunt créé : Loan[{}] {} -> {}", "L00001", "B00001", "M00001");
+
+        assertThat(writer.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(out.toString())
+            .contains("INFO  [" + Thread.currentThread().getName() + "] Test - ")
+            .contains("Emprunt créé : Loan[L00001] B00001 -> M00001");
+    }
+
+    @Test
+    void should_skip_disabled_levels() {
+        writer = new RingBufferLogWriter(out, Level.WARN);
+        Logger log = new Logger("Test", writer);
+
+        log.debug("debug {}", 1);
+        log.info("info {}", 2);
+        log.warn("warn {}", 3);
+
+        assertThat(log.isDebugEnabled()).isFalse();
+        assertThat(writer.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(out.toString()).doesNotContain("debug").doesNotContain("info 2").contains("warn 3");
+        assertThat(writer.getWrittenCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_keep_every_event_when_the_ring_wraps_around() throws Exception {
+        writer = new RingBufferLogWriter(out, Level.INFO, 8);
+        Logger log = new Logger("Test", writer);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    log.info("t{} #{}", thread, i);
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(writer.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(writer.getWrittenCount()).isEqualTo(2000);
+        assertThat(out.toString().lines()).hasSize(2000);
+    }
+
+    @Test
+    void should_write_stack_trace_of_errors() {
+        writer = new RingBufferLogWriter(out, Level.INFO);
+        Logger log = new Logger("Test", writer);
+
+        log.error("Erreur BDD : {}", "timeout", new IllegalStateException("boom"));
+
+        assertThat(writer.flush(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(out.toString())
+            .contains("ERROR [")
+            .contains("Erreur BDD : timeout")
+            .contains("java.lang.IllegalStateException: boom")
+            .contains("\tat ");
+    }
+}
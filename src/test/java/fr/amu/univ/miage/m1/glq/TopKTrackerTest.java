@@ -0,0 +1,71 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.service.stats.ExactTopKTracker;
+import fr.amu.univ.miage.m1.glq.service.stats.SpaceSavingTopKTracker;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class TopKTrackerTest {
+
+    @Test
+    void should_rank_exactly_like_a_full_sort() {
+        ExactTopKTracker tracker = new ExactTopKTracker(5);
+        Map<String, Long> counts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // Distribution biaisée : quelques livres très demandés
+            String key = "B" + (int) Math.abs(random.nextGaussian() * 40);
+            tracker.increment(key);
+            counts.merge(key, 1L, Long::sum);
+        }
+
+        List<Map.Entry<String, Long>> expected = new ArrayList<>(counts.entrySet());
+        expected.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey()));
+
+        assertThat(tracker.top()).containsExactlyElementsOf(expected.subList(0, 5));
+        assertThat(tracker.count("B0")).isEqualTo(counts.get("B0"));
+    }
+
+    @Test
+    void should_return_fewer_than_k_entries_when_few_keys_were_seen() {
+        ExactTopKTracker tracker = new ExactTopKTracker(5);
+        tracker.increment("B1");
+        tracker.increment("B2");
+        tracker.increment("B2");
+
+        assertThat(tracker.top()).extracting(Map.Entry::getKey).containsExactly("B2", "B1");
+    }
+
+    @Test
+    void should_find_heavy_hitters_in_bounded_memory() {
+        SpaceSavingTopKTracker tracker = new SpaceSavingTopKTracker(3, 30);
+        Random random = new Random(7);
+        for (int i = 0; i < 30_000; i++) {
+            // 3 livres font la moitié des emprunts, le reste est dispersé sur 10 000 livres
+            String key = random.nextBoolean() ? "HOT" + random.nextInt(3) : "B" + random.nextInt(10_000);
+            tracker.increment(key);
+        }
+
+        assertThat(tracker.top()).extracting(Map.Entry::getKey)
+            .containsExactlyInAnyOrder("HOT0", "HOT1", "HOT2");
+        for (Map.Entry<String, Long> entry : tracker.top()) {
+            // Surestimation bornée par N / capacité
+            assertThat(tracker.errorOf(entry.getKey())).isLessThanOrEqualTo(30_000 / 30);
+            assertThat(entry.getValue()).isGreaterThan(4_000);
+        }
+        assertThat(tracker.top()).isSortedAccordingTo(
+            Comparator.comparing(Map.Entry<String, Long>::getValue).reversed());
+    }
+}
@@ -0,0 +1,187 @@
+package fr.amu.univ.miage.m1.glq;
+
+import fr.amu.univ.miage.m1.glq.db.DatabaseConnection;
+import fr.amu.univ.miage.m1.glq.db.cache.PersistenceMode;
+import fr.amu.univ.miage.m1.glq.db.cache.WriteBehindStore;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcBookRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcLoanRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcMemberRepository;
+import fr.amu.univ.miage.m1.glq.db.repository.JdbcReservationRepository;
+import fr.amu.univ.miage.m1.glq.service.LibraryManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator;
+import org.junit.jupiter.api.Test;
+
+import fr.amu.univ.miage.m1.glq.model.Book;
+import fr.amu.univ.miage.m1.glq.model.Loan;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayNameGeneration(DisplayNameGenerator.ReplaceUnderscores.class)
+class WriteBehindStoreTest {
+
+    private DatabaseConnection db;
+    private JdbcBookRepository books;
+    private JdbcLoanRepository loans;
+    private LibraryManager manager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DatabaseConnection.reset();
+        db = DatabaseConnection.getInstance();
+        try (Connection connection = db.getConnection(); Statement st = connection.createStatement()) {
+            st.executeUpdate("DELETE FROM reservations");
+            st.executeUpdate("DELETE FROM loans");
+            st.executeUpdate("DELETE FROM members");
+            st.executeUpdate("DELETE FROM books");
+        }
+        books = new JdbcBookRepository(db);
+        loans = new JdbcLoanRepository(db);
+        LibraryManager.resetInstance();
+        manager = LibraryManager.getInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        LibraryManager.resetInstance();
+        DatabaseConnection.reset();
+    }
+
+    private WriteBehindStore store(PersistenceMode mode, int batchSize) {
+        return WriteBehindStore.create(books, new JdbcMemberRepository(db), loans,
+            new JdbcReservationRepository(db), mode, batchSize, 60_000);
+    }
+
+    @Test
+    void should_write_each_row_once_per_flush_however_often_it_changed() {
+        WriteBehindStore store = store(PersistenceMode.WRITE_BEHIND, 10_000);
+        manager.setPersistence(store);
+        String bookId = manager.addBook("Hot", "Author", "978-0000000001", 2024, 2, "ROMAN");
+        String memberId = manager.addMember("Desk", "One", "desk@univ.fr", "TEACHER");
+        store.flush();
+        long written = store.getRowsWritten();
+
+        String lastLoanId = null;
+        for (int i = 0; i < 10; i++) {
+            lastLoanId = manager.createLoan(memberId, bookId);
+            manager.returnLoan(lastLoanId);
+        }
+        assertThat(loans.findById(lastLoanId)).isNull();
+        assertThat(store.flush()).isTrue();
+
+        // 10 emprunts + 1 livre + 1 membre, malgré une soixantaine de modifications
+        assertThat(store.getRowsWritten() - written).isEqualTo(12);
+        assertThat(store.getCoalescedCount()).isGreaterThan(40);
+        assertThat(loans.findById(lastLoanId).getStatus()).isEqualTo("RETURNED");
+        assertThat(books.findById(bookId).getAvailableCopies()).isEqualTo(2);
+        assertThat(loans.count()).isEqualTo(10);
+    }
+
+    @Test
+    void should_write_immediately_in_write_through_mode() {
+        WriteBehindStore store = store(PersistenceMode.WRITE_THROUGH, 10_000);
+        manager.setPersistence(store);
+        String bookId = manager.addBook("Dune", "Herbert", "978-0441013593", 1965, 3, "SF");
+        String memberId = manager.addMember("Ada", "Lovelace", "ada@univ.fr", "STUDENT");
+
+        String loanId = manager.createLoan(memberId, bookId);
+
+        assertThat(store.getPendingCount()).isZero();
+        assertThat(loans.findById(loanId).getStatus()).isEqualTo("ACTIVE");
+        assertThat(books.findById(bookId).getAvailableCopies()).isEqualTo(2);
+    }
+
+    @Test
+    void should_flush_in_background_once_the_batch_size_is_reached() throws InterruptedException {
+        WriteBehindStore store = store(PersistenceMode.WRITE_BEHIND, 5);
+        manager.setPersistence(store);
+        long before = books.count();
+        for (int i = 0; i < 20; i++) {
+            manager.addBook("Titre " + i, "Auteur", "978-1-" + i, 2024, 1, "ROMAN");
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        // Le compteur de flush n'avance qu'une fois toutes les tables écrites
+        while ((books.count() < before + 20 || store.getFlushCount() == 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(books.count()).isGreaterThanOrEqualTo(before + 20);
+        assertThat(store.getFlushCount()).isPositive();
+    }
+
+    @Test
+    void should_write_through_only_once_the_member_lock_is_released() {
+        AtomicBoolean memberLockFree = new AtomicBoolean(true);
+        JdbcLoanRepository probingLoans = new JdbcLoanRepository(db) {
+            @Override
+            public void save(Loan loan) {
+                // Un autre thread prend le verrou du membre pendant l'écriture en base
+                try {
+                    CompletableFuture.runAsync(() -> manager.getMemberLoans(loan.getMemberId())).get(2, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    memberLockFree.set(false);
+                }
+                super.save(loan);
+            }
+        };
+        manager.setPersistence(WriteBehindStore.create(books, new JdbcMemberRepository(db), probingLoans,
+            new JdbcReservationRepository(db), PersistenceMode.WRITE_THROUGH, 10_000, 60_000));
+        String bookId = manager.addBook("Dune", "Herbert", "978-0441013593", 1965, 3, "SF");
+        String memberId = manager.addMember("Ada", "Lovelace", "ada@univ.fr", "STUDENT");
+
+        String loanId = manager.createLoan(memberId, bookId);
+        manager.renewLoan(loanId);
+        manager.returnLoan(loanId);
+
+        assertThat(memberLockFree).isTrue();
+        assertThat(loans.findById(loanId).getStatus()).isEqualTo("RETURNED");
+    }
+
+    @Test
+    void should_not_write_a_deleted_book_back_when_its_loan_is_returned() {
+        List<String> savedBooks = new CopyOnWriteArrayList<>();
+        JdbcBookRepository recordingBooks = new JdbcBookRepository(db) {
+            @Override
+            public void save(Book book) {
+                savedBooks.add(book.getId());
+                super.save(book);
+            }
+        };
+        manager.setPersistence(WriteBehindStore.create(recordingBooks, new JdbcMemberRepository(db), loans,
+            new JdbcReservationRepository(db), PersistenceMode.WRITE_THROUGH, 10_000, 60_000));
+        String bookId = manager.addBook("Dune", "Herbert", "978-0441013593", 1965, 3, "SF");
+        String memberId = manager.addMember("Ada", "Lovelace", "ada@univ.fr", "STUDENT");
+        String loanId = manager.createLoan(memberId, bookId);
+        manager.deleteBook(bookId);
+        savedBooks.clear();
+
+        manager.returnLoan(loanId);
+
+        assertThat(savedBooks).doesNotContain(bookId);
+        assertThat(loans.findById(loanId).getStatus()).isEqualTo("RETURNED");
+    }
+
+    @Test
+    void should_flush_pending_changes_on_shutdown() {
+        manager.setPersistence(store(PersistenceMode.WRITE_BEHIND, 10_000));
+        String bookId = manager.addBook("Fondation", "Asimov", "978-2070360536", 1951, 1, "SF");
+        assertThat(books.findById(bookId)).isNull();
+
+        LibraryManager.resetInstance();
+
+        assertThat(books.findById(bookId).getTitle()).isEqualTo("Fondation");
+    }
+}